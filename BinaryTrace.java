@@ -0,0 +1,232 @@
+package Utilities;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+import Driver.CompilationContext;
+
+/**
+ * Trace backend that writes compact binary records instead of text.
+ * Every record is one tag byte followed by its fields as unsigned varints (7 bits per byte, low bits first).
+ * Token text is never copied, a finding refers to its characters in the source file by offset and length.
+ *   0 START         step, stacktop
+ *   1 RULE          step, stacktop, lookahead code + 1, rule id, rule sub id
+ *   2 MATCH         step, stacktop, code, symbol id + 1
+ *   3 ACCEPT        step, stacktop
+ *   4 FINDING       kind, line, start, length
+ *   5 LEXICAL_ERROR kind, line
+ *   6 SKIPPED       start, length
+ *   7 SYMBOL        id, type (0 identifier, 1 constant), name length, name bytes (UTF-8)
+ *   8 SYNTAX_ERROR  step, stacktop, lookahead code + 1, line
+ * @author kobypascual
+ *
+ */
+public final class BinaryTrace extends Trace
+{
+	////////////////////
+	// Record Tags
+	////////////////////
+
+	public static final int START = 0;
+	public static final int RULE = 1;
+	public static final int MATCH = 2;
+	public static final int ACCEPT = 3;
+	public static final int FINDING = 4;
+	public static final int LEXICAL_ERROR = 5;
+	public static final int SKIPPED = 6;
+	public static final int SYMBOL = 7;
+	public static final int SYNTAX_ERROR = 8;
+
+	/**
+	 * Compilation being traced
+	 */
+	private final CompilationContext context;
+
+	/**
+	 * Where the records go
+	 */
+	private final OutputStream out;
+
+	/**
+	 * BinaryTrace Constructor.
+	 * @param context
+	 * @param out
+	 * @param levels
+	 */
+	public BinaryTrace(CompilationContext context, OutputStream out, int levels)
+	{
+		super(levels);
+		this.context = context;
+		this.out = new BufferedOutputStream(out, 1 << 16);
+	}
+
+	///////////////////////////
+	// Public - Parser Events
+	///////////////////////////
+
+	@Override
+	public void start(int step, int stacktop)
+	{
+		if(!enabled(STEPS)) return;
+		write(START);
+		write(step);
+		write(stacktop);
+	}
+
+	@Override
+	public void rule(int step, int stacktop, Rule rule)
+	{
+		if(!enabled(STEPS)) return;
+		write(RULE);
+		write(step);
+		write(stacktop);
+		write(context.scanner.getLookAhead() + 1);
+		write(rule.id);
+		write(rule.sub_id);
+	}
+
+	@Override
+	public void match(int step, int stacktop, int code)
+	{
+		if(!enabled(STEPS)) return;
+		write(MATCH);
+		write(step);
+		write(stacktop);
+		write(code);
+		write(context.scanner.getLookAheadSymbol() + 1);
+	}
+
+	@Override
+	public void accept(int step, int stacktop)
+	{
+		if(!enabled(STEPS)) return;
+		write(ACCEPT);
+		write(step);
+		write(stacktop);
+	}
+
+	@Override
+	public void syntaxError(int step, int stacktop, int line, String message)
+	{
+		if(!enabled(STEPS)) return;
+		write(SYNTAX_ERROR);
+		write(step);
+		write(stacktop);
+		write(context.scanner.getLookAhead() + 1);
+		write(line);
+	}
+
+	///////////////////////////
+	// Public - Scanner Events
+	///////////////////////////
+
+	@Override
+	public void finding(int kind, int line, int start, int end)
+	{
+		if(!enabled(FINDINGS)) return;
+		write(FINDING);
+		write(kind);
+		write(line);
+		write(start);
+		write(end - start);
+	}
+
+	@Override
+	public void lexicalError(int kind, int line)
+	{
+		if(!enabled(FINDINGS)) return;
+		write(LEXICAL_ERROR);
+		write(kind);
+		write(line);
+	}
+
+	@Override
+	public void skipped(int start, int end)
+	{
+		if(!enabled(FINDINGS)) return;
+		write(SKIPPED);
+		write(start);
+		write(end - start);
+	}
+
+	///////////////////////////
+	// Public - Symbol Table Events
+	///////////////////////////
+
+	@Override
+	public void symbolAdded(int id, String name, String type)
+	{
+		if(!enabled(SYMBOLS)) return;
+		byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+		write(SYMBOL);
+		write(id);
+		write(type.equals("constant") ? 1 : 0);
+		write(bytes.length);
+		try
+		{
+			out.write(bytes);
+		}
+		catch (IOException e)
+		{
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	///////////////////////////
+	// Public - Utilities
+	///////////////////////////
+
+	@Override
+	public void flush()
+	{
+		try
+		{
+			out.flush();
+		}
+		catch (IOException e)
+		{
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	@Override
+	public void close()
+	{
+		try
+		{
+			out.close();
+		}
+		catch (IOException e)
+		{
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	///////////////////////////
+	// Private - Utilities
+	///////////////////////////
+
+	/**
+	 * Writes a non-negative int as an unsigned varint
+	 * @param value
+	 */
+	private void write(int value)
+	{
+		try
+		{
+			while((value & ~0x7F) != 0)
+			{
+				out.write((value & 0x7F) | 0x80);
+				value >>>= 7;
+			}
+			out.write(value);
+		}
+		catch (IOException e)
+		{
+			throw new UncheckedIOException(e);
+		}
+	}
+}
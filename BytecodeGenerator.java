@@ -0,0 +1,1510 @@
+package Backend;
+
+import java.util.Arrays;
+
+import Interpreter.Interpreter;
+import Parser.SyntaxTree;
+import Utilities.IntStack;
+import Utilities.SymbolTable;
+import Utilities.Token;
+
+/**
+ * Turns a parsed Mini-LOL program into a JVM class, so HotSpot can compile it like any other Java code.
+ * The class has a public static main(String[]) for the program and one static method per HOW IZ I function.
+ * Variables are static fields.
+ *
+ * Every variable gets one JVM type, found before any code is written:
+ *   NUMBR (int), NUMBAR (double) or TROOF (boolean) when the main program gives it a value before anything else
+ *           can touch it, and it only ever holds that type after: it is declared with that type, or it is never
+ *           declared and every value stored in it has that type
+ *   ANY     everything else, a tagged value (a long, see LolRuntime) that carries its type, or NOOB while it has
+ *           no value. A tagged variable that is declared somewhere also has an int field name$type with its declared type.
+ * Parameters are the variables of the same name: a function saves the variable, stores its argument there and puts the
+ * old value back when it returns, so every function it calls sees it too. A parameter that is only used in the functions
+ * it is a parameter of, is never declared or read with GIMMEH and is only ever passed values of one type
+ * is a local of its method instead.
+ * With that, every expression runs on JVM primitives where its type is known and on tagged values where it is not,
+ * the same way the Interpreter runs it (same casts on assignment, same comparisons, same errors, same fall through in WTF?).
+ * @author kobypascual
+ *
+ */
+public final class BytecodeGenerator
+{
+	////////////////////
+	// Types - same codes as the Interpreter
+	////////////////////
+
+	private static final byte NOOB = Interpreter.NOOB;
+	private static final byte NUMBR = Interpreter.NUMBR;
+	private static final byte NUMBAR = Interpreter.NUMBAR;
+	private static final byte TROOF = Interpreter.TROOF;
+
+	/**
+	 * A tagged value, its type is only known when the program runs
+	 */
+	private static final byte ANY = 4;
+
+	/**
+	 * Internal name of the support class generated code calls
+	 */
+	private static final String RUNTIME = "Backend/LolRuntime";
+
+	/**
+	 * Scope of statements outside of every function
+	 */
+	private static final int MAIN = -1;
+
+	/**
+	 * Program being compiled
+	 */
+	private final SyntaxTree tree;
+
+	/**
+	 * Symbols of the program, variable and function names come from here
+	 */
+	private final SymbolTable symbols;
+
+	/**
+	 * Internal name of the class being generated
+	 */
+	private final String className;
+
+	////////////////////
+	// Slots - indexed by symbol id
+	////////////////////
+
+	/**
+	 * Type of each variable, or of each constant
+	 */
+	private final byte[] types;
+
+	/**
+	 * True if the type of the variable does not come from the values stored in it: it is declared, or it is ANY anyway
+	 */
+	private final boolean[] fixed;
+
+	/**
+	 * True if the variable is declared somewhere with I HAS A
+	 */
+	private final boolean[] declared;
+
+	/**
+	 * True for the variables that are a parameter of some function
+	 */
+	private final boolean[] isParam;
+
+	/**
+	 * True for the parameters that are locals of their methods, they have no static field
+	 */
+	private final boolean[] local;
+
+	/**
+	 * True for constants
+	 */
+	private final boolean[] constant;
+
+	/**
+	 * Value of each NUMBR and NUMBAR constant
+	 */
+	private final int[] numbrs;
+	private final double[] numbars;
+
+	////////////////////
+	// Functions - indexed by the symbol id of their name
+	////////////////////
+
+	/**
+	 * Function node of each name, -1 if no function has that name. A later definition replaces an earlier one.
+	 */
+	private final int[] functions;
+
+	/**
+	 * Parameter slots of each function, in order
+	 */
+	private final int[][] params;
+
+	/**
+	 * Type of each parameter of each function, ANY for the ones that are not locals
+	 */
+	private final byte[][] paramTypes;
+
+	/**
+	 * True while types are still changing
+	 */
+	private boolean changed;
+
+	////////////////////
+	// Code Generation State
+	////////////////////
+
+	private ClassWriter classWriter;
+
+	/**
+	 * Method being generated
+	 */
+	private Code code;
+
+	/**
+	 * Function being generated, MAIN for the program itself
+	 */
+	private int scope;
+
+	/**
+	 * Local slot of each parameter of the function being generated
+	 */
+	private int[] paramLocals;
+
+	/**
+	 * Local slots the old value of each parameter that is not a local is kept in while the function runs, -1 for locals
+	 */
+	private int[] savedLocals;
+
+	/**
+	 * Where GTFO jumps to: the end of each loop and WTF? the generated code is in, innermost on top
+	 */
+	private final IntStack breakLabels = new IntStack(8);
+
+	/**
+	 * BytecodeGenerator Constructor.
+	 * @param className internal name of the class to generate
+	 * @param tree
+	 * @param symbols
+	 */
+	public BytecodeGenerator(String className, SyntaxTree tree, SymbolTable symbols)
+	{
+		this.className = className;
+		this.tree = tree;
+		this.symbols = symbols;
+
+		int size = symbols.size();
+		types = new byte[size];
+		fixed = new boolean[size];
+		declared = new boolean[size];
+		isParam = new boolean[size];
+		local = new boolean[size];
+		constant = new boolean[size];
+		numbrs = new int[size];
+		numbars = new double[size];
+		functions = new int[size];
+		params = new int[size][];
+		paramTypes = new byte[size][];
+		Arrays.fill(functions, -1);
+	}
+
+	///////////////////////////
+	// Public - Utilities
+	///////////////////////////
+
+	/**
+	 * Generates the class file
+	 * @return
+	 */
+	public byte[] generate()
+	{
+		findConstants();
+		findFunctions();
+		inferTypes();
+
+		classWriter = new ClassWriter(className);
+
+		// A static field for every variable, and for the declared type of every tagged one that is declared somewhere
+		for(int slot = 0; slot < types.length; slot++)
+		{
+			if(constant[slot] || local[slot]) continue;
+			classWriter.addField(ClassWriter.ACC_PRIVATE | ClassWriter.ACC_STATIC, name(slot), descriptor(types[slot]));
+			if(hasTypeField(slot)) classWriter.addField(ClassWriter.ACC_PRIVATE | ClassWriter.ACC_STATIC, typeFieldName(slot), "I");
+		}
+
+		generateMain();
+		for(int slot = 0; slot < functions.length; slot++)
+		{
+			if(functions[slot] >= 0) generateFunction(slot);
+		}
+
+		return classWriter.toByteArray();
+	}
+
+	///////////////////////////
+	// Analysis
+	///////////////////////////
+
+	/**
+	 * Parses every constant, whole numbers are NUMBRs unless they do not fit in one (same as the Interpreter)
+	 */
+	private void findConstants()
+	{
+		for(int slot = 0; slot < types.length; slot++)
+		{
+			Token token = symbols.get(slot);
+			if(!token.getType().equals("constant")) continue;
+
+			constant[slot] = true;
+			String text = token.getName();
+			types[slot] = NUMBAR;
+			if(text.indexOf('.') < 0)
+			{
+				try
+				{
+					numbrs[slot] = Integer.parseInt(text);
+					types[slot] = NUMBR;
+					continue;
+				}
+				catch (NumberFormatException e)
+				{
+					// Too large for a NUMBR
+				}
+			}
+			numbars[slot] = Double.parseDouble(text);
+		}
+	}
+
+	/**
+	 * Finds every function and its parameters
+	 */
+	private void findFunctions()
+	{
+		for(int node = 0; node < tree.size(); node++)
+		{
+			if(tree.kind(node) != SyntaxTree.FUNCTION || tree.childCount(node) == 0) continue;
+
+			int slot = tree.symbol(tree.child(node, 0));
+			int args = tree.child(node, 1);
+			int[] slots = new int[count(args)];
+			for(int i = 0; i < slots.length; i++, args = tree.child(args, 1))
+				slots[i] = argSlot(args);
+
+			functions[slot] = node;
+			params[slot] = slots;
+			paramTypes[slot] = new byte[slots.length];
+		}
+
+		for(int slot = 0; slot < functions.length; slot++)
+		{
+			if(functions[slot] < 0) continue;
+			for(int param : params[slot]) isParam[param] = true;
+		}
+	}
+
+	/**
+	 * Finds the type of every variable and parameter.
+	 * First from where variables are used: a variable that may be read before the main program gives it a value,
+	 * is declared with different types, is read with GIMMEH without a declared type or is a parameter is ANY,
+	 * one declared before anything else touches it has its declared type. Then the types of the values stored
+	 * in the others are joined in until nothing changes. Anything still unknown is a NUMBR.
+	 * A parameter kept as a local that ends up passed values of different types is made a variable, and it all starts over.
+	 */
+	private void inferTypes()
+	{
+		int size = types.length;
+		byte[] declaredAs = new byte[size];
+		boolean[] input = new boolean[size];
+		boolean[] outside = new boolean[size];
+		usage(declaredAs, input, outside);
+		int[] first = firstUses();
+
+		for(int slot = 0; slot < size; slot++)
+			local[slot] = isParam[slot] && !outside[slot] && !declared[slot] && !input[slot];
+
+		boolean demoted;
+		do
+		{
+			for(int slot = 0; slot < size; slot++)
+			{
+				if(constant[slot]) continue;
+				boolean tagged = isParam[slot] && !local[slot] || first[slot] < 0 || declaredAs[slot] == ANY
+						|| (declared[slot] ? first[slot] != 0 && first[slot] != SyntaxTree.DECL : input[slot]);
+				types[slot] = local[slot] ? NOOB : tagged ? ANY : declared[slot] ? declaredAs[slot] : NOOB;
+				fixed[slot] = types[slot] != NOOB;
+			}
+			for(int function = 0; function < functions.length; function++)
+			{
+				if(functions[function] < 0) continue;
+				for(int i = 0; i < params[function].length; i++)
+					paramTypes[function][i] = local[params[function][i]] ? NOOB : ANY;
+			}
+
+			int body = tree.child(tree.root(), 0);
+			do
+			{
+				changed = false;
+				infer(body, MAIN);
+				for(int slot = 0; slot < functions.length; slot++)
+					if(functions[slot] >= 0) infer(tree.child(functions[slot], 2), slot);
+			} while(changed);
+
+			demoted = false;
+			for(int function = 0; function < functions.length; function++)
+			{
+				if(functions[function] < 0) continue;
+				for(int i = 0; i < params[function].length; i++)
+				{
+					int slot = params[function][i];
+					if(local[slot] && paramTypes[function][i] == ANY)
+					{
+						local[slot] = false;
+						demoted = true;
+					}
+				}
+			}
+		} while(demoted);
+
+		for(int slot = 0; slot < size; slot++)
+		{
+			if(types[slot] == NOOB) types[slot] = NUMBR;
+			if(paramTypes[slot] != null)
+				for(int i = 0; i < paramTypes[slot].length; i++)
+					if(paramTypes[slot][i] == NOOB) paramTypes[slot][i] = NUMBR;
+		}
+	}
+
+	/**
+	 * Finds the declared type of every variable (ANY if it is declared with different types), the variables read with GIMMEH,
+	 * and the variables used somewhere other than in the functions they are a parameter of
+	 * @param declaredAs
+	 * @param input
+	 * @param outside
+	 */
+	private void usage(byte[] declaredAs, boolean[] input, boolean[] outside)
+	{
+		IntStack nodes = new IntStack(1024);
+		for(int scope = MAIN; scope < functions.length; scope++)
+		{
+			if(scope != MAIN && functions[scope] < 0) continue;
+
+			nodes.clear();
+			collect(scope == MAIN ? tree.child(tree.root(), 0) : tree.child(functions[scope], 2), nodes);
+			for(int i = 0; i < nodes.size(); i++)
+			{
+				int node = nodes.get(i);
+				switch(tree.kind(node))
+				{
+					case SyntaxTree.ID:
+						int slot = tree.symbol(node);
+						if(paramIndex(scope, slot) < 0) outside[slot] = true;
+						break;
+
+					case SyntaxTree.DECL:
+						slot = tree.symbol(tree.child(node, 0));
+						byte type = declaredType(node);
+						declaredAs[slot] = !declared[slot] || declaredAs[slot] == type ? type : ANY;
+						declared[slot] = true;
+						break;
+
+					case SyntaxTree.INPUT:
+						input[tree.symbol(tree.child(node, 0))] = true;
+						break;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns how the main program first touches each variable: DECL, ASMT or INPUT if a statement of the main body
+	 * gives it a value before anything else touches it, 0 if nothing does, -1 if something else comes first.
+	 * Only statements right in the main body count as giving a value, nested ones may not run.
+	 * A call touches every variable any function uses.
+	 * @return
+	 */
+	private int[] firstUses()
+	{
+		int size = types.length;
+		int[] first = new int[size];
+		IntStack nodes = new IntStack(1024);
+
+		boolean[] inFunctions = new boolean[size];
+		for(int function = 0; function < functions.length; function++)
+		{
+			if(functions[function] < 0) continue;
+			nodes.clear();
+			collect(tree.child(functions[function], 2), nodes);
+			for(int i = 0; i < nodes.size(); i++)
+				if(tree.kind(nodes.get(i)) == SyntaxTree.ID) inFunctions[tree.symbol(nodes.get(i))] = true;
+		}
+		boolean called = false;
+
+		for(int body = tree.child(tree.root(), 0); tree.childCount(body) > 0; body = tree.child(body, 1))
+		{
+			int node = tree.child(tree.child(body, 0), 0);
+			int kind = tree.kind(node);
+			if(kind == SyntaxTree.FUNCTION) continue;
+			boolean stores = kind == SyntaxTree.DECL || kind == SyntaxTree.INPUT || kind == SyntaxTree.ASMT;
+
+			// Everything the statement reads
+			nodes.clear();
+			if(kind == SyntaxTree.ASMT) collect(tree.child(node, 1), nodes);
+			else if(!stores) collect(node, nodes);
+			for(int i = 0; i < nodes.size(); i++)
+			{
+				int next = nodes.get(i);
+				if(tree.kind(next) == SyntaxTree.ID)
+				{
+					if(first[tree.symbol(next)] == 0) first[tree.symbol(next)] = -1;
+				}
+				else if(tree.kind(next) == SyntaxTree.CALL && !called)
+				{
+					called = true;
+					for(int slot = 0; slot < size; slot++)
+						if(inFunctions[slot] && first[slot] == 0) first[slot] = -1;
+				}
+			}
+
+			if(stores)
+			{
+				int slot = tree.symbol(tree.child(node, 0));
+				if(first[slot] == 0) first[slot] = kind;
+			}
+		}
+		return first;
+	}
+
+	/**
+	 * Adds every node of a subtree to nodes, leaving out what is inside function definitions
+	 * @param node
+	 * @param nodes
+	 */
+	private void collect(int node, IntStack nodes)
+	{
+		int from = nodes.size();
+		nodes.push(node);
+		for(int i = from; i < nodes.size(); i++)
+		{
+			int next = nodes.get(i);
+			if(tree.kind(next) == SyntaxTree.FUNCTION) continue;
+			for(int child = 0; child < tree.childCount(next); child++) nodes.push(tree.child(next, child));
+		}
+	}
+
+	/**
+	 * One pass of joining the types of assigned and passed values into variables and parameters
+	 * @param body
+	 * @param scope
+	 */
+	private void infer(int body, int scope)
+	{
+		for(; tree.childCount(body) > 0; body = tree.child(body, 1))
+		{
+			int node = tree.child(tree.child(body, 0), 0);
+			switch(tree.kind(node))
+			{
+				case SyntaxTree.ASMT:
+					assign(tree.symbol(tree.child(node, 0)), scope, exprType(tree.child(node, 1), scope));
+					break;
+
+				case SyntaxTree.CALL:
+					int function = tree.symbol(tree.child(node, 0));
+					int args = tree.child(node, 1);
+					if(functions[function] < 0 || count(args) != params[function].length) break;
+					for(int i = 0; i < params[function].length; i++, args = tree.child(args, 1))
+						if(local[params[function][i]]) joinParam(function, i, leafType(argSlot(args), scope));
+					break;
+
+				case SyntaxTree.LOOP:
+					infer(tree.child(node, 2), scope);
+					break;
+
+				case SyntaxTree.IF:
+					infer(tree.child(node, 1), scope);
+					infer(tree.child(node, 2), scope);
+					break;
+
+				case SyntaxTree.CASE:
+					for(int omgs = tree.child(node, 1); tree.childCount(omgs) > 0; omgs = tree.child(omgs, 1))
+						infer(tree.child(tree.child(omgs, 0), 1), scope);
+					break;
+			}
+		}
+	}
+
+	/**
+	 * Joins the type of a value stored in a variable or parameter
+	 * @param slot
+	 * @param scope
+	 * @param type
+	 */
+	private void assign(int slot, int scope, byte type)
+	{
+		int param = localIndex(scope, slot);
+		if(param >= 0)
+		{
+			joinParam(scope, param, type);
+			return;
+		}
+		if(fixed[slot]) return;
+
+		byte joined = join(types[slot], type);
+		if(joined != types[slot])
+		{
+			types[slot] = joined;
+			changed = true;
+		}
+	}
+
+	/**
+	 * Joins the type of a value passed to a parameter that is a local
+	 * @param function
+	 * @param param
+	 * @param type
+	 */
+	private void joinParam(int function, int param, byte type)
+	{
+		byte joined = join(paramTypes[function][param], type);
+		if(joined != paramTypes[function][param])
+		{
+			paramTypes[function][param] = joined;
+			changed = true;
+		}
+	}
+
+	/**
+	 * Returns the type that holds values of both types, ANY if they differ
+	 * @param a
+	 * @param b
+	 * @return
+	 */
+	private static byte join(byte a, byte b)
+	{
+		if(a == NOOB || a == b) return b;
+		if(b == NOOB) return a;
+		return ANY;
+	}
+
+	/**
+	 * Returns the static type of an <expr>
+	 * @param expr
+	 * @param scope
+	 * @return
+	 */
+	private byte exprType(int expr, int scope)
+	{
+		int node = tree.child(expr, 0);
+		if(tree.kind(node) == SyntaxTree.BOOL) return TROOF;
+		// A variable on its own keeps its type, a TROOF is only read as 1 or 0 by arithmetic
+		return tree.rule(node) == 'e' ? leafType(tree.symbol(tree.child(node, 0)), scope) : arithType(node, scope);
+	}
+
+	/**
+	 * Returns the static type of an <arith>, NUMBR, NUMBAR or ANY
+	 * @param node
+	 * @param scope
+	 * @return
+	 */
+	private byte arithType(int node, int scope)
+	{
+		switch(tree.rule(node))
+		{
+			case 'e':
+			case 'f':
+				// A TROOF counts as 1 or 0
+				byte type = leafType(tree.symbol(tree.child(node, 0)), scope);
+				return type == TROOF ? NUMBR : type;
+		}
+		byte left = arithType(tree.child(node, 0), scope);
+		byte right = arithType(tree.child(node, 1), scope);
+		if(left == ANY || right == ANY) return ANY;
+		return left == NUMBR && right == NUMBR ? NUMBR : NUMBAR;
+	}
+
+	/**
+	 * Returns the type of a variable, parameter or constant in a scope
+	 * @param slot
+	 * @param scope
+	 * @return
+	 */
+	private byte leafType(int slot, int scope)
+	{
+		int param = localIndex(scope, slot);
+		return param >= 0 ? paramTypes[scope][param] : types[slot];
+	}
+
+	///////////////////////////
+	// Methods
+	///////////////////////////
+
+	/**
+	 * Generates main(String[]). Output is flushed however the program ends.
+	 */
+	private void generateMain()
+	{
+		code = new Code(1);
+		scope = MAIN;
+		paramLocals = new int[0];
+		savedLocals = new int[0];
+
+		int start = code.newLabel();
+		int end = code.newLabel();
+		int handler = code.newLabel();
+
+		code.place(start);
+
+		// Tagged variables start out with no value
+		for(int slot = 0; slot < types.length; slot++)
+		{
+			if(constant[slot] || local[slot] || types[slot] != ANY) continue;
+			pushLong(LolRuntime.NOOB_VALUE);
+			code.poolOp(Code.PUTSTATIC, field(slot), -2);
+		}
+
+		genBody(tree.child(tree.root(), 0));
+		invoke(RUNTIME, "flush", "()V", 0);
+		code.place(end);
+		code.op(Code.RETURN, 0);
+
+		// An error is thrown on after flushing what the program printed
+		code.setStack(1);
+		code.place(handler);
+		invoke(RUNTIME, "flush", "()V", 0);
+		code.op(Code.ATHROW, -1);
+		code.catchAll(start, end, handler);
+
+		classWriter.addMethod(ClassWriter.ACC_PUBLIC | ClassWriter.ACC_STATIC, "main", "([Ljava/lang/String;)V", code);
+	}
+
+	/**
+	 * Generates the static method of a function. A parameter that is not a local is bound like the Interpreter binds it:
+	 * the variable is saved, takes the argument and has no declared type until the function returns.
+	 * @param function
+	 */
+	private void generateFunction(int function)
+	{
+		byte[] typesOfParams = paramTypes[function];
+		int[] slotsOfParams = params[function];
+		paramLocals = new int[typesOfParams.length];
+		int slots = 0;
+		for(int i = 0; i < typesOfParams.length; i++)
+		{
+			paramLocals[i] = slots;
+			slots += size(typesOfParams[i]);
+		}
+
+		code = new Code(slots);
+		scope = function;
+		breakLabels.clear();
+
+		savedLocals = new int[slotsOfParams.length];
+		for(int i = 0; i < slotsOfParams.length; i++)
+		{
+			int slot = slotsOfParams[i];
+			savedLocals[i] = -1;
+			if(local[slot]) continue;
+
+			savedLocals[i] = code.newLocal(hasTypeField(slot) ? 3 : 2);
+			code.poolOp(Code.GETSTATIC, field(slot), 2);
+			code.localOp(Code.LSTORE, savedLocals[i], -2);
+			if(hasTypeField(slot))
+			{
+				code.poolOp(Code.GETSTATIC, typeField(slot), 1);
+				code.localOp(Code.ISTORE, savedLocals[i] + 2, -1);
+			}
+		}
+		for(int i = 0; i < slotsOfParams.length; i++)
+		{
+			int slot = slotsOfParams[i];
+			if(local[slot]) continue;
+
+			code.localOp(Code.LLOAD, paramLocals[i], 2);
+			code.poolOp(Code.PUTSTATIC, field(slot), -2);
+			if(hasTypeField(slot))
+			{
+				code.pushInt(NOOB, classWriter);
+				code.poolOp(Code.PUTSTATIC, typeField(slot), -1);
+			}
+		}
+
+		genBody(tree.child(functions[function], 2));
+		genReturn();
+
+		classWriter.addMethod(ClassWriter.ACC_PRIVATE | ClassWriter.ACC_STATIC, name(function), methodDescriptor(function), code);
+	}
+
+	///////////////////////////
+	// Statements
+	///////////////////////////
+
+	/**
+	 * Generates every statement of a <body> chain
+	 * @param body
+	 */
+	private void genBody(int body)
+	{
+		for(; tree.childCount(body) > 0; body = tree.child(body, 1))
+			genStmt(tree.child(body, 0));
+	}
+
+	/**
+	 * Generates one <stmt>. The operand stack is empty before and after every statement.
+	 * @param stmt
+	 */
+	private void genStmt(int stmt)
+	{
+		int node = tree.child(stmt, 0);
+		switch(tree.kind(node))
+		{
+			case SyntaxTree.INPUT:
+				genInput(tree.child(node, 0));
+				break;
+
+			case SyntaxTree.OUTPUT:
+				byte type = genExpr(tree.child(node, 0));
+				invoke(RUNTIME, type == NUMBR ? "printNumbr" : type == NUMBAR ? "printNumbar" : type == TROOF ? "printTroof" : "print",
+						"(" + descriptor(type) + ")V", -size(type));
+				break;
+
+			case SyntaxTree.DECL:
+				int slot = tree.symbol(tree.child(node, 0));
+				genDecl(slot, declaredType(node));
+				break;
+
+			case SyntaxTree.ASMT:
+				slot = tree.symbol(tree.child(node, 0));
+				convert(genExpr(tree.child(node, 1)), targetType(slot));
+				store(slot);
+				break;
+
+			case SyntaxTree.LOOP:
+				genLoop(node);
+				break;
+
+			case SyntaxTree.IF:
+				int otherwise = code.newLabel();
+				int end = code.newLabel();
+				genBool(tree.child(node, 0));
+				code.jump(Code.IFEQ, otherwise, -1);
+				genBody(tree.child(node, 1));
+				code.jump(Code.GOTO, end, 0);
+				code.place(otherwise);
+				genBody(tree.child(node, 2));
+				code.place(end);
+				break;
+
+			case SyntaxTree.CASE:
+				genCase(node);
+				break;
+
+			case SyntaxTree.RETURN:
+				if(tree.rule(node) == 'a')
+				{
+					// FOUND YR, a call is a statement so the value is not used
+					type = genExpr(tree.child(node, 0));
+					code.op(size(type) == 2 ? Code.POP2 : Code.POP, -size(type));
+					genReturn();
+				}
+				else if(!breakLabels.isEmpty()) code.jump(Code.GOTO, breakLabels.peek(), 0);	// GTFO
+				else genReturn();
+				break;
+
+			case SyntaxTree.FUNCTION:
+				break; // generated as its own method
+
+			case SyntaxTree.CALL:
+				genCall(node);
+				break;
+		}
+	}
+
+	/**
+	 * I HAS A [id] ITZ A <type>. The variable starts out as 0, 0.0 or FAIL, a tagged one also takes the declared type.
+	 * @param slot
+	 * @param type
+	 */
+	private void genDecl(int slot, byte type)
+	{
+		if(targetType(slot) != ANY)
+		{
+			pushDefault(targetType(slot));
+			store(slot);
+			return;
+		}
+
+		code.pushInt(type, classWriter);
+		code.poolOp(Code.PUTSTATIC, typeField(slot), -1);
+		pushLong(LolRuntime.cast(LolRuntime.numbr(0), type));
+		code.poolOp(Code.PUTSTATIC, field(slot), -2);
+	}
+
+	/**
+	 * IM IN YR label WILE <bool> <body> IM OUTTA YR label
+	 * @param node
+	 */
+	private void genLoop(int node)
+	{
+		int top = code.newLabel();
+		int end = code.newLabel();
+
+		code.place(top);
+		genBool(tree.child(node, 1));
+		code.jump(Code.IFEQ, end, -1);
+
+		breakLabels.push(end);
+		genBody(tree.child(node, 2));
+		breakLabels.pop();
+
+		code.jump(Code.GOTO, top, 0);
+		code.place(end);
+	}
+
+	/**
+	 * WTF? <expr> <omgs> OIC. Every OMG value is tested first, the bodies follow each other so a matching arm
+	 * falls through into the next one, GTFO jumps past the last one.
+	 * @param node
+	 */
+	private void genCase(int node)
+	{
+		byte type = genExpr(tree.child(node, 0));
+		int local = code.newLocal(size(type));
+		code.localOp(storeOp(type), local, -size(type));
+
+		int arms = 0;
+		for(int omgs = tree.child(node, 1); tree.childCount(omgs) > 0; omgs = tree.child(omgs, 1)) arms++;
+
+		int end = code.newLabel();
+		int[] labels = new int[arms];
+		int i = 0;
+		for(int omgs = tree.child(node, 1); tree.childCount(omgs) > 0; omgs = tree.child(omgs, 1), i++)
+		{
+			labels[i] = code.newLabel();
+			genArmTest(type, local, tree.child(tree.child(omgs, 0), 0), labels[i]);
+		}
+		code.jump(Code.GOTO, end, 0);
+
+		breakLabels.push(end);
+		i = 0;
+		for(int omgs = tree.child(node, 1); tree.childCount(omgs) > 0; omgs = tree.child(omgs, 1), i++)
+		{
+			code.place(labels[i]);
+			genBody(tree.child(tree.child(omgs, 0), 1));
+		}
+		breakLabels.pop();
+		code.place(end);
+	}
+
+	/**
+	 * Jumps to an arm if its <value> is the same as the value of the WTF?.
+	 * A TROOF is never the same as a number, so such an arm gets no test at all unless the value is tagged.
+	 * @param type
+	 * @param local
+	 * @param value
+	 * @param label
+	 */
+	private void genArmTest(byte type, int local, int value, int label)
+	{
+		int slot = tree.rule(value) == 'a' ? tree.symbol(tree.child(value, 0)) : -1;
+		byte valueType = slot >= 0 ? types[slot] : TROOF;
+
+		if(type == ANY)
+		{
+			code.localOp(Code.LLOAD, local, 2);
+			if(slot < 0) pushLong(LolRuntime.troof(tree.rule(value) == 'b'));
+			else pushLong(valueType == NUMBR ? LolRuntime.numbr(numbrs[slot]) : LolRuntime.numbar(numbars[slot]));
+			invoke(RUNTIME, "same", "(JJ)Z", -3);
+			code.jump(Code.IFNE, label, -1);
+		}
+		else if(type == TROOF && valueType == TROOF)
+		{
+			code.localOp(Code.ILOAD, local, 1);
+			code.pushInt(tree.rule(value) == 'b' ? 1 : 0, classWriter);
+			code.jump(Code.IF_ICMPEQ, label, -2);
+		}
+		else if(type == NUMBR && valueType == NUMBR)
+		{
+			code.localOp(Code.ILOAD, local, 1);
+			code.pushInt(numbrs[slot], classWriter);
+			code.jump(Code.IF_ICMPEQ, label, -2);
+		}
+		else if(type != TROOF && valueType != TROOF)
+		{
+			if(type == NUMBAR) code.localOp(Code.DLOAD, local, 2);
+			else
+			{
+				code.localOp(Code.ILOAD, local, 1);
+				code.op(Code.I2D, 1);
+			}
+			pushDouble(valueType == NUMBAR ? numbars[slot] : numbrs[slot]);
+			code.op(Code.DCMPL, -3);
+			code.jump(Code.IFEQ, label, -1);
+		}
+	}
+
+	/**
+	 * GIMMEH [id]
+	 * @param id
+	 */
+	private void genInput(int id)
+	{
+		int slot = tree.symbol(id);
+		byte type = targetType(slot);
+		code.pushInt(tree.line(id), classWriter);
+		code.poolOp(Code.LDC, classWriter.string(name(slot)), 1);
+
+		if(type == ANY)
+		{
+			// Read as the type the variable is declared with when it runs, if any
+			if(hasTypeField(slot)) code.poolOp(Code.GETSTATIC, typeField(slot), 1);
+			else code.pushInt(NOOB, classWriter);
+			invoke(RUNTIME, "read", "(ILjava/lang/String;I)J", -1);
+			code.poolOp(Code.PUTSTATIC, field(slot), -2);
+			return;
+		}
+
+		invoke(RUNTIME, type == NUMBR ? "readNumbr" : type == NUMBAR ? "readNumbar" : "readTroof",
+				"(ILjava/lang/String;)" + descriptor(type), size(type) - 2);
+		store(slot);
+	}
+
+	/**
+	 * I IZ name <args> MKAY. A missing function or a wrong number of arguments fails when the call runs.
+	 * Arguments are passed as they are, one that has no value only fails once the function reads it.
+	 * @param node
+	 */
+	private void genCall(int node)
+	{
+		int function = tree.symbol(tree.child(node, 0));
+		int args = tree.child(node, 1);
+
+		if(functions[function] < 0)
+		{
+			genFail(tree.line(node), "no function named " + name(function));
+			return;
+		}
+		if(count(args) != params[function].length)
+		{
+			genFail(tree.line(node), name(function) + " takes " + params[function].length + " arguments, got " + count(args));
+			return;
+		}
+
+		int slots = 0;
+		for(int i = 0; i < params[function].length; i++, args = tree.child(args, 1))
+		{
+			convert(loadLeaf(tree.child(tree.child(args, 0), 0), false), paramTypes[function][i]);
+			slots += size(paramTypes[function][i]);
+		}
+		invoke(className, name(function), methodDescriptor(function), -slots);
+	}
+
+	/**
+	 * Returns from the method, main flushes the output first and a function puts back the old values of its parameters
+	 */
+	private void genReturn()
+	{
+		if(scope == MAIN) invoke(RUNTIME, "flush", "()V", 0);
+
+		int[] slotsOfParams = scope == MAIN ? new int[0] : params[scope];
+		for(int i = 0; i < slotsOfParams.length; i++)
+		{
+			if(savedLocals[i] < 0) continue;
+			int slot = slotsOfParams[i];
+			code.localOp(Code.LLOAD, savedLocals[i], 2);
+			code.poolOp(Code.PUTSTATIC, field(slot), -2);
+			if(hasTypeField(slot))
+			{
+				code.localOp(Code.ILOAD, savedLocals[i] + 2, 1);
+				code.poolOp(Code.PUTSTATIC, typeField(slot), -1);
+			}
+		}
+		code.op(Code.RETURN, 0);
+	}
+
+	/**
+	 * Calls LolRuntime.fail, which throws
+	 * @param line
+	 * @param message
+	 */
+	private void genFail(int line, String message)
+	{
+		code.pushInt(line, classWriter);
+		code.poolOp(Code.LDC, classWriter.string(message), 1);
+		invoke(RUNTIME, "fail", "(ILjava/lang/String;)V", -2);
+	}
+
+	///////////////////////////
+	// Expressions
+	///////////////////////////
+
+	/**
+	 * Generates an <expr>, its value is left on the stack
+	 * @param expr
+	 * @return the type of the value
+	 */
+	private byte genExpr(int expr)
+	{
+		int node = tree.child(expr, 0);
+		if(tree.kind(node) == SyntaxTree.BOOL)
+		{
+			genBool(node);
+			return TROOF;
+		}
+		return tree.rule(node) == 'e' ? loadLeaf(tree.child(node, 0), true) : genArith(node);
+	}
+
+	/**
+	 * Generates an <arith>
+	 * @param node
+	 * @return NUMBR, NUMBAR or ANY
+	 */
+	private byte genArith(int node)
+	{
+		switch(tree.rule(node))
+		{
+			case 'e':
+			case 'f':
+				byte type = loadLeaf(tree.child(node, 0), true);
+				return type == TROOF ? NUMBR : type;
+		}
+
+		byte result = arithType(node, scope);
+		if(result == ANY)
+		{
+			convert(genArith(tree.child(node, 0)), ANY);
+			convert(genArith(tree.child(node, 1)), ANY);
+			code.pushInt(tree.rule(node) - 'a', classWriter);
+			code.pushInt(tree.line(node), classWriter);
+			invoke(RUNTIME, "arith", "(JJII)J", -4);
+			return ANY;
+		}
+
+		convert(genArith(tree.child(node, 0)), result);
+		convert(genArith(tree.child(node, 1)), result);
+
+		boolean numbr = result == NUMBR;
+		switch(tree.rule(node))
+		{
+			case 'a': code.op(numbr ? Code.IADD : Code.DADD, -size(result)); break;
+			case 'b': code.op(numbr ? Code.ISUB : Code.DSUB, -size(result)); break;
+			case 'c': code.op(numbr ? Code.IMUL : Code.DMUL, -size(result)); break;
+			default:
+				if(numbr)
+				{
+					// Fails on 0 the way the Interpreter does
+					code.pushInt(tree.line(node), classWriter);
+					invoke(RUNTIME, "quoshunt", "(III)I", -2);
+				}
+				else code.op(Code.DDIV, -2);
+				break;
+		}
+		return result;
+	}
+
+	/**
+	 * Generates a <bool>, leaves 1 or 0 on the stack
+	 * @param node
+	 */
+	private void genBool(int node)
+	{
+		switch(tree.rule(node))
+		{
+			case 'a':	// BOTH OF
+				genBool(tree.child(node, 0));
+				genBool(tree.child(node, 1));
+				code.op(Code.IAND, -1);
+				break;
+			case 'b':	// EITHER OF
+				genBool(tree.child(node, 0));
+				genBool(tree.child(node, 1));
+				code.op(Code.IOR, -1);
+				break;
+			case 'c':	// NOT
+				genBool(tree.child(node, 0));
+				code.pushInt(1, classWriter);
+				code.op(Code.IXOR, -1);
+				break;
+			case 'd':	// <comp>
+				genComp(tree.child(node, 0));
+				break;
+			case 'e':	// WIN
+				code.pushInt(1, classWriter);
+				break;
+			default:	// FAIL
+				code.pushInt(0, classWriter);
+				break;
+		}
+	}
+
+	/**
+	 * Generates a <comp>, BOTH SAEM (rule a) or DIFFRINT (rule b)
+	 * @param node
+	 */
+	private void genComp(int node)
+	{
+		int left = tree.child(node, 0);
+		int right = tree.child(node, 1);
+		byte leftType = exprType(left, scope);
+		byte rightType = exprType(right, scope);
+
+		if(leftType == ANY || rightType == ANY)
+		{
+			convert(genExpr(left), ANY);
+			convert(genExpr(right), ANY);
+			invoke(RUNTIME, "same", "(JJ)Z", -3);
+		}
+		else if((leftType == TROOF) != (rightType == TROOF))
+		{
+			// A TROOF is never the same as a number, both sides still run
+			genExpr(left);
+			code.op(size(leftType) == 2 ? Code.POP2 : Code.POP, -size(leftType));
+			genExpr(right);
+			code.op(size(rightType) == 2 ? Code.POP2 : Code.POP, -size(rightType));
+			code.pushInt(0, classWriter);
+		}
+		else if(leftType == NUMBAR || rightType == NUMBAR)
+		{
+			convert(genExpr(left), NUMBAR);
+			convert(genExpr(right), NUMBAR);
+			code.op(Code.DCMPL, -3);
+			condition(Code.IFEQ, 1);
+		}
+		else
+		{
+			genExpr(left);
+			genExpr(right);
+			condition(Code.IF_ICMPEQ, 2);
+		}
+
+		if(tree.rule(node) == 'b')
+		{
+			code.pushInt(1, classWriter);
+			code.op(Code.IXOR, -1);
+		}
+	}
+
+	/**
+	 * Turns a conditional branch into a 1 or 0 on the stack
+	 * @param opcode
+	 * @param operands stack slots the branch pops
+	 */
+	private void condition(int opcode, int operands)
+	{
+		int yes = code.newLabel();
+		int end = code.newLabel();
+		code.jump(opcode, yes, -operands);
+		code.pushInt(0, classWriter);
+		code.jump(Code.GOTO, end, 0);
+		code.setStack(code.stack() - 1);	// depth at the branch target
+		code.place(yes);
+		code.pushInt(1, classWriter);
+		code.place(end);
+	}
+
+	///////////////////////////
+	// Values
+	///////////////////////////
+
+	/**
+	 * Pushes the value of an identifier or constant leaf
+	 * @param leaf
+	 * @param check fail if a tagged variable has no value, as reading one does
+	 * @return its type
+	 */
+	private byte loadLeaf(int leaf, boolean check)
+	{
+		int slot = tree.symbol(leaf);
+		if(constant[slot])
+		{
+			if(types[slot] == NUMBR) code.pushInt(numbrs[slot], classWriter);
+			else pushDouble(numbars[slot]);
+			return types[slot];
+		}
+
+		int param = localIndex(scope, slot);
+		if(param >= 0)
+		{
+			byte type = paramTypes[scope][param];
+			code.localOp(loadOp(type), paramLocals[param], size(type));
+			return type;
+		}
+
+		byte type = types[slot];
+		code.poolOp(Code.GETSTATIC, field(slot), size(type));
+		if(type == ANY && check)
+		{
+			code.pushInt(tree.line(leaf), classWriter);
+			code.poolOp(Code.LDC, classWriter.string(name(slot)), 1);
+			invoke(RUNTIME, "value", "(JILjava/lang/String;)J", -2);
+		}
+		return type;
+	}
+
+	/**
+	 * Stores the value on the stack in a variable or parameter, a tagged one is cast to its declared type first
+	 * @param slot
+	 */
+	private void store(int slot)
+	{
+		int param = localIndex(scope, slot);
+		if(param >= 0)
+		{
+			byte type = paramTypes[scope][param];
+			code.localOp(storeOp(type), paramLocals[param], -size(type));
+			return;
+		}
+		if(hasTypeField(slot))
+		{
+			code.poolOp(Code.GETSTATIC, typeField(slot), 1);
+			invoke(RUNTIME, "cast", "(JI)J", -1);
+		}
+		code.poolOp(Code.PUTSTATIC, field(slot), -size(types[slot]));
+	}
+
+	/**
+	 * Returns the type of the variable or parameter a value is stored in
+	 * @param slot
+	 * @return
+	 */
+	private byte targetType(int slot)
+	{
+		return leafType(slot, scope);
+	}
+
+	/**
+	 * Casts the value on the stack, the same way the Interpreter casts on assignment
+	 * @param from
+	 * @param to
+	 */
+	private void convert(byte from, byte to)
+	{
+		if(from == to) return;
+		if(to == ANY)
+		{
+			switch(from)
+			{
+				case NUMBR: invoke(RUNTIME, "numbr", "(I)J", 1); break;
+				case NUMBAR: invoke(RUNTIME, "numbar", "(D)J", 0); break;
+				default: invoke(RUNTIME, "troof", "(Z)J", 1); break;
+			}
+			return;
+		}
+		if(from == ANY)
+		{
+			switch(to)
+			{
+				case NUMBR: invoke(RUNTIME, "toNumbr", "(J)I", -1); break;
+				case NUMBAR: invoke(RUNTIME, "toNumbar", "(J)D", 0); break;
+				default: invoke(RUNTIME, "toTroof", "(J)Z", -1); break;
+			}
+			return;
+		}
+		switch(to)
+		{
+			case NUMBR:
+				if(from == NUMBAR) code.op(Code.D2I, -1);
+				break;
+			case NUMBAR:
+				code.op(Code.I2D, 1);
+				break;
+			case TROOF:
+				if(from == NUMBAR)
+				{
+					pushDouble(0);
+					code.op(Code.DCMPL, -3);
+				}
+				condition(Code.IFNE, 1);
+				break;
+		}
+	}
+
+	/**
+	 * Pushes 0, 0.0 or FAIL
+	 * @param type
+	 */
+	private void pushDefault(byte type)
+	{
+		if(type == NUMBAR) pushDouble(0);
+		else code.pushInt(0, classWriter);
+	}
+
+	/**
+	 * Pushes a double constant
+	 * @param value
+	 */
+	private void pushDouble(double value)
+	{
+		if(Double.doubleToRawLongBits(value) == 0) code.op(Code.DCONST_0, 2);
+		else if(value == 1) code.op(Code.DCONST_1, 2);
+		else code.poolOp(Code.LDC2_W, classWriter.doubleConstant(value), 2);
+	}
+
+	/**
+	 * Pushes a long constant, a tagged value
+	 * @param value
+	 */
+	private void pushLong(long value)
+	{
+		code.poolOp(Code.LDC2_W, classWriter.longConstant(value), 2);
+	}
+
+	/**
+	 * Calls a static method
+	 * @param owner
+	 * @param method
+	 * @param descriptor
+	 * @param stackChange
+	 */
+	private void invoke(String owner, String method, String descriptor, int stackChange)
+	{
+		code.poolOp(Code.INVOKESTATIC, classWriter.methodRef(owner, method, descriptor), stackChange);
+	}
+
+	/**
+	 * Returns the pool index of the static field of a variable
+	 * @param slot
+	 * @return
+	 */
+	private int field(int slot)
+	{
+		return classWriter.fieldRef(className, name(slot), descriptor(types[slot]));
+	}
+
+	/**
+	 * Returns the pool index of the field that holds the declared type of a tagged variable
+	 * @param slot
+	 * @return
+	 */
+	private int typeField(int slot)
+	{
+		return classWriter.fieldRef(className, typeFieldName(slot), "I");
+	}
+
+	///////////////////////////
+	// Private - Utilities
+	///////////////////////////
+
+	/**
+	 * Returns the index of a slot in the parameters of a function, -1 if it is not one of them.
+	 * If a name is used twice the last parameter wins, as it does in the Interpreter.
+	 * @param function
+	 * @param slot
+	 * @return
+	 */
+	private int paramIndex(int function, int slot)
+	{
+		if(function == MAIN) return -1;
+		int[] slots = params[function];
+		for(int i = slots.length - 1; i >= 0; i--)
+			if(slots[i] == slot) return i;
+		return -1;
+	}
+
+	/**
+	 * Returns the index of a slot in the parameters of a function if it is one of them and a local, -1 otherwise
+	 * @param function
+	 * @param slot
+	 * @return
+	 */
+	private int localIndex(int function, int slot)
+	{
+		return local[slot] ? paramIndex(function, slot) : -1;
+	}
+
+	/**
+	 * Returns true if a variable has a name$type field
+	 * @param slot
+	 * @return
+	 */
+	private boolean hasTypeField(int slot)
+	{
+		return types[slot] == ANY && declared[slot] && !constant[slot] && !local[slot];
+	}
+
+	/**
+	 * Returns the name of the field that holds the declared type of a tagged variable
+	 * @param slot
+	 * @return
+	 */
+	private String typeFieldName(int slot)
+	{
+		return name(slot) + "$type";
+	}
+
+	/**
+	 * Returns the declared type of an I HAS A node
+	 * @param decl
+	 * @return
+	 */
+	private byte declaredType(int decl)
+	{
+		char rule = tree.rule(tree.child(decl, 1));
+		return rule == 'a' ? NUMBR : rule == 'b' ? NUMBAR : TROOF;
+	}
+
+	/**
+	 * Returns the slot of the identifier in the first <arg> of an <args> chain
+	 * @param args
+	 * @return
+	 */
+	private int argSlot(int args)
+	{
+		return tree.symbol(tree.child(tree.child(args, 0), 0));
+	}
+
+	/**
+	 * Returns the number of items in an <args> chain
+	 * @param args
+	 * @return
+	 */
+	private int count(int args)
+	{
+		int count = 0;
+		for(; tree.childCount(args) > 0; args = tree.child(args, 1)) count++;
+		return count;
+	}
+
+	/**
+	 * Returns the JVM descriptor of a function
+	 * @param function
+	 * @return
+	 */
+	private String methodDescriptor(int function)
+	{
+		StringBuilder descriptor = new StringBuilder("(");
+		for(byte type : paramTypes[function]) descriptor.append(descriptor(type));
+		return descriptor.append(")V").toString();
+	}
+
+	/**
+	 * Returns the JVM descriptor of a type
+	 * @param type
+	 * @return
+	 */
+	private static String descriptor(byte type)
+	{
+		return type == NUMBAR ? "D" : type == TROOF ? "Z" : type == ANY ? "J" : "I";
+	}
+
+	/**
+	 * Returns the opcode that loads a local of a type
+	 * @param type
+	 * @return
+	 */
+	private static int loadOp(byte type)
+	{
+		return type == NUMBAR ? Code.DLOAD : type == ANY ? Code.LLOAD : Code.ILOAD;
+	}
+
+	/**
+	 * Returns the opcode that stores a local of a type
+	 * @param type
+	 * @return
+	 */
+	private static int storeOp(byte type)
+	{
+		return type == NUMBAR ? Code.DSTORE : type == ANY ? Code.LSTORE : Code.ISTORE;
+	}
+
+	/**
+	 * Returns the number of stack or local slots a type takes
+	 * @param type
+	 * @return
+	 */
+	private static int size(byte type)
+	{
+		return type == NUMBAR || type == ANY ? 2 : 1;
+	}
+
+	/**
+	 * Returns the name of a slot
+	 * @param slot
+	 * @return
+	 */
+	private String name(int slot)
+	{
+		return symbols.get(slot).getName();
+	}
+}
@@ -0,0 +1,401 @@
+package Backend;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.HashMap;
+
+/**
+ * Writes a JVM class file. Only what the BytecodeGenerator needs: a constant pool, static fields and static methods.
+ * Classes are written as version 49 (Java 5), which the JVM verifies by type inference,
+ * so no stack map frames have to be computed for the methods.
+ * @author kobypascual
+ *
+ */
+public final class ClassWriter
+{
+	////////////////////
+	// Access Flags
+	////////////////////
+
+	public static final int ACC_PUBLIC = 0x0001;
+	public static final int ACC_PRIVATE = 0x0002;
+	public static final int ACC_STATIC = 0x0008;
+	public static final int ACC_FINAL = 0x0010;
+	public static final int ACC_SUPER = 0x0020;
+
+	////////////////////
+	// Constant Pool Tags
+	////////////////////
+
+	private static final int CONSTANT_UTF8 = 1;
+	private static final int CONSTANT_INTEGER = 3;
+	private static final int CONSTANT_LONG = 5;
+	private static final int CONSTANT_DOUBLE = 6;
+	private static final int CONSTANT_CLASS = 7;
+	private static final int CONSTANT_STRING = 8;
+	private static final int CONSTANT_FIELDREF = 9;
+	private static final int CONSTANT_METHODREF = 10;
+	private static final int CONSTANT_NAME_AND_TYPE = 12;
+
+	/**
+	 * Internal name of the class being written (a/b/C)
+	 */
+	private final String name;
+
+	/**
+	 * Constant pool entries, already encoded
+	 */
+	private final ByteArrayOutputStream pool = new ByteArrayOutputStream();
+	private final DataOutputStream poolData = new DataOutputStream(pool);
+
+	/**
+	 * Index of each constant pool entry by a key of its tag and contents, so every constant is only added once
+	 */
+	private final HashMap<String, Integer> poolIndex = new HashMap<String, Integer>();
+
+	/**
+	 * Next free constant pool index. Index 0 is never used.
+	 */
+	private int poolCount = 1;
+
+	/**
+	 * Encoded fields and methods
+	 */
+	private final ByteArrayOutputStream fields = new ByteArrayOutputStream();
+	private final DataOutputStream fieldData = new DataOutputStream(fields);
+	private int fieldCount = 0;
+
+	private final ByteArrayOutputStream methods = new ByteArrayOutputStream();
+	private final DataOutputStream methodData = new DataOutputStream(methods);
+	private int methodCount = 0;
+
+	/**
+	 * ClassWriter Constructor.
+	 * @param name internal name of the class
+	 */
+	public ClassWriter(String name)
+	{
+		this.name = name;
+	}
+
+	///////////////////////////
+	// Public - Constant Pool
+	///////////////////////////
+
+	/**
+	 * Returns the pool index of a Utf8 constant
+	 * @param value
+	 * @return
+	 */
+	public int utf8(String value)
+	{
+		Integer index = poolIndex.get("U" + value);
+		if(index != null) return index;
+		try
+		{
+			poolData.writeByte(CONSTANT_UTF8);
+			poolData.writeUTF(value);
+		}
+		catch (IOException e)
+		{
+			throw new UncheckedIOException(e);
+		}
+		return newEntry("U" + value, 1);
+	}
+
+	/**
+	 * Returns the pool index of an Integer constant
+	 * @param value
+	 * @return
+	 */
+	public int integer(int value)
+	{
+		Integer index = poolIndex.get("I" + value);
+		if(index != null) return index;
+		write(CONSTANT_INTEGER, value);
+		return newEntry("I" + value, 1);
+	}
+
+	/**
+	 * Returns the pool index of a Long constant
+	 * @param value
+	 * @return
+	 */
+	public int longConstant(long value)
+	{
+		Integer index = poolIndex.get("J" + value);
+		if(index != null) return index;
+		write(CONSTANT_LONG, (int) (value >>> 32));
+		try
+		{
+			poolData.writeInt((int) value);
+		}
+		catch (IOException e)
+		{
+			throw new UncheckedIOException(e);
+		}
+		// Longs take two pool entries
+		return newEntry("J" + value, 2);
+	}
+
+	/**
+	 * Returns the pool index of a Double constant
+	 * @param value
+	 * @return
+	 */
+	public int doubleConstant(double value)
+	{
+		long bits = Double.doubleToRawLongBits(value);
+		Integer index = poolIndex.get("D" + bits);
+		if(index != null) return index;
+		write(CONSTANT_DOUBLE, (int) (bits >>> 32));
+		try
+		{
+			poolData.writeInt((int) bits);
+		}
+		catch (IOException e)
+		{
+			throw new UncheckedIOException(e);
+		}
+		// Doubles take two pool entries
+		return newEntry("D" + bits, 2);
+	}
+
+	/**
+	 * Returns the pool index of a Class constant
+	 * @param internalName
+	 * @return
+	 */
+	public int classConstant(String internalName)
+	{
+		Integer index = poolIndex.get("C" + internalName);
+		if(index != null) return index;
+		int nameIndex = utf8(internalName);
+		writeShort(CONSTANT_CLASS, nameIndex);
+		return newEntry("C" + internalName, 1);
+	}
+
+	/**
+	 * Returns the pool index of a String constant
+	 * @param value
+	 * @return
+	 */
+	public int string(String value)
+	{
+		Integer index = poolIndex.get("S" + value);
+		if(index != null) return index;
+		int valueIndex = utf8(value);
+		writeShort(CONSTANT_STRING, valueIndex);
+		return newEntry("S" + value, 1);
+	}
+
+	/**
+	 * Returns the pool index of a field reference
+	 * @param owner
+	 * @param field
+	 * @param descriptor
+	 * @return
+	 */
+	public int fieldRef(String owner, String field, String descriptor)
+	{
+		return memberRef(CONSTANT_FIELDREF, owner, field, descriptor);
+	}
+
+	/**
+	 * Returns the pool index of a method reference
+	 * @param owner
+	 * @param method
+	 * @param descriptor
+	 * @return
+	 */
+	public int methodRef(String owner, String method, String descriptor)
+	{
+		return memberRef(CONSTANT_METHODREF, owner, method, descriptor);
+	}
+
+	///////////////////////////
+	// Public - Members
+	///////////////////////////
+
+	/**
+	 * Adds a field
+	 * @param access
+	 * @param field
+	 * @param descriptor
+	 */
+	public void addField(int access, String field, String descriptor)
+	{
+		try
+		{
+			fieldData.writeShort(access);
+			fieldData.writeShort(utf8(field));
+			fieldData.writeShort(utf8(descriptor));
+			fieldData.writeShort(0); // no attributes
+		}
+		catch (IOException e)
+		{
+			throw new UncheckedIOException(e);
+		}
+		fieldCount++;
+	}
+
+	/**
+	 * Adds a method with the given finished code
+	 * @param access
+	 * @param method
+	 * @param descriptor
+	 * @param code
+	 */
+	public void addMethod(int access, String method, String descriptor, Code code)
+	{
+		byte[] bytes = code.toByteArray();
+		int[] handlers = code.handlers();
+		try
+		{
+			methodData.writeShort(access);
+			methodData.writeShort(utf8(method));
+			methodData.writeShort(utf8(descriptor));
+			methodData.writeShort(1); // one attribute, Code
+
+			methodData.writeShort(utf8("Code"));
+			methodData.writeInt(12 + bytes.length + handlers.length * 2);
+			methodData.writeShort(code.maxStack());
+			methodData.writeShort(code.maxLocals());
+			methodData.writeInt(bytes.length);
+			methodData.write(bytes);
+			methodData.writeShort(handlers.length / 4);
+			for(int handler : handlers) methodData.writeShort(handler);
+			methodData.writeShort(0); // no attributes of the code
+		}
+		catch (IOException e)
+		{
+			throw new UncheckedIOException(e);
+		}
+		methodCount++;
+	}
+
+	///////////////////////////
+	// Public - Utilities
+	///////////////////////////
+
+	/**
+	 * Returns the finished class file
+	 * @return
+	 */
+	public byte[] toByteArray()
+	{
+		int thisIndex = classConstant(name);
+		int superIndex = classConstant("java/lang/Object");
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		try
+		{
+			out.writeInt(0xCAFEBABE);
+			out.writeShort(0);	// minor version
+			out.writeShort(49);	// major version, Java 5
+			out.writeShort(poolCount);
+			pool.writeTo(out);
+			out.writeShort(ACC_PUBLIC | ACC_FINAL | ACC_SUPER);
+			out.writeShort(thisIndex);
+			out.writeShort(superIndex);
+			out.writeShort(0); // no interfaces
+			out.writeShort(fieldCount);
+			fields.writeTo(out);
+			out.writeShort(methodCount);
+			methods.writeTo(out);
+			out.writeShort(0); // no attributes
+		}
+		catch (IOException e)
+		{
+			throw new UncheckedIOException(e);
+		}
+		return bytes.toByteArray();
+	}
+
+	///////////////////////////
+	// Private - Utilities
+	///////////////////////////
+
+	/**
+	 * Returns the pool index of a field or method reference
+	 * @param tag
+	 * @param owner
+	 * @param member
+	 * @param descriptor
+	 * @return
+	 */
+	private int memberRef(int tag, String owner, String member, String descriptor)
+	{
+		String key = tag + owner + "." + member + ":" + descriptor;
+		Integer index = poolIndex.get(key);
+		if(index != null) return index;
+
+		int classIndex = classConstant(owner);
+		String typeKey = "N" + member + ":" + descriptor;
+		Integer nameAndType = poolIndex.get(typeKey);
+		if(nameAndType == null)
+		{
+			int nameIndex = utf8(member);
+			int descriptorIndex = utf8(descriptor);
+			write(CONSTANT_NAME_AND_TYPE, (nameIndex << 16) | descriptorIndex);
+			nameAndType = newEntry(typeKey, 1);
+		}
+
+		write(tag, (classIndex << 16) | nameAndType);
+		return newEntry(key, 1);
+	}
+
+	/**
+	 * Registers the entry that was just written and returns its index
+	 * @param key
+	 * @param size number of pool slots the entry takes
+	 * @return
+	 */
+	private int newEntry(String key, int size)
+	{
+		int index = poolCount;
+		poolCount += size;
+		if(poolCount > 0xFFFF) throw new IllegalStateException("constant pool of " + name + " is full");
+		poolIndex.put(key, index);
+		return index;
+	}
+
+	/**
+	 * Writes a tag followed by a four byte value
+	 * @param tag
+	 * @param value
+	 */
+	private void write(int tag, int value)
+	{
+		try
+		{
+			poolData.writeByte(tag);
+			poolData.writeInt(value);
+		}
+		catch (IOException e)
+		{
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Writes a tag followed by a two byte value
+	 * @param tag
+	 * @param value
+	 */
+	private void writeShort(int tag, int value)
+	{
+		try
+		{
+			poolData.writeByte(tag);
+			poolData.writeShort(value);
+		}
+		catch (IOException e)
+		{
+			throw new UncheckedIOException(e);
+		}
+	}
+}
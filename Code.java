@@ -0,0 +1,362 @@
+package Backend;
+
+import java.util.Arrays;
+
+/**
+ * Bytecode of one method. Keeps track of the operand stack depth to find max_stack,
+ * and of labels, whose branch offsets are filled in once the label is placed.
+ * Doubles and longs take two stack and local slots, every stack change below is counted in slots.
+ * @author kobypascual
+ *
+ */
+public final class Code
+{
+	////////////////////
+	// Opcodes
+	////////////////////
+
+	public static final int ICONST_0 = 0x03;
+	public static final int DCONST_0 = 0x0E;
+	public static final int DCONST_1 = 0x0F;
+	public static final int BIPUSH = 0x10;
+	public static final int SIPUSH = 0x11;
+	public static final int LDC = 0x12;
+	public static final int LDC_W = 0x13;
+	public static final int LDC2_W = 0x14;
+	public static final int ILOAD = 0x15;
+	public static final int LLOAD = 0x16;
+	public static final int DLOAD = 0x18;
+	public static final int ISTORE = 0x36;
+	public static final int LSTORE = 0x37;
+	public static final int DSTORE = 0x39;
+	public static final int POP = 0x57;
+	public static final int POP2 = 0x58;
+	public static final int IADD = 0x60;
+	public static final int DADD = 0x63;
+	public static final int ISUB = 0x64;
+	public static final int DSUB = 0x67;
+	public static final int IMUL = 0x68;
+	public static final int DMUL = 0x6B;
+	public static final int IDIV = 0x6C;
+	public static final int DDIV = 0x6F;
+	public static final int IAND = 0x7E;
+	public static final int IOR = 0x80;
+	public static final int IXOR = 0x82;
+	public static final int I2D = 0x87;
+	public static final int D2I = 0x8E;
+	public static final int DCMPL = 0x97;
+	public static final int IFEQ = 0x99;
+	public static final int IFNE = 0x9A;
+	public static final int IF_ICMPEQ = 0x9F;
+	public static final int IF_ICMPNE = 0xA0;
+	public static final int GOTO = 0xA7;
+	public static final int RETURN = 0xB1;
+	public static final int GETSTATIC = 0xB2;
+	public static final int PUTSTATIC = 0xB3;
+	public static final int INVOKESTATIC = 0xB8;
+	public static final int ATHROW = 0xBF;
+	public static final int WIDE = 0xC4;
+
+	/**
+	 * Bytecode written so far
+	 */
+	private byte[] code = new byte[256];
+	private int length = 0;
+
+	/**
+	 * Current and largest operand stack depth
+	 */
+	private int stack = 0;
+	private int maxStack = 0;
+
+	/**
+	 * Number of local variable slots used
+	 */
+	private int maxLocals;
+
+	/**
+	 * Position of each placed label, -1 if it is not placed yet
+	 */
+	private int[] labels = new int[16];
+	private int labelCount = 0;
+
+	/**
+	 * Branches to patch: pairs of (position of the branch opcode, label)
+	 */
+	private int[] branches = new int[32];
+	private int branchCount = 0;
+
+	/**
+	 * Exception handlers: (start, end, handler, catch type) for each one
+	 */
+	private int[] handlers = new int[0];
+
+	/**
+	 * Code Constructor.
+	 * @param parameterSlots number of local slots the parameters take
+	 */
+	public Code(int parameterSlots)
+	{
+		this.maxLocals = parameterSlots;
+	}
+
+	///////////////////////////
+	// Public - Locals
+	///////////////////////////
+
+	/**
+	 * Reserves local variable slots and returns the first one
+	 * @param size 1, or 2 for a double or a long
+	 * @return
+	 */
+	public int newLocal(int size)
+	{
+		int local = maxLocals;
+		maxLocals += size;
+		return local;
+	}
+
+	///////////////////////////
+	// Public - Instructions
+	///////////////////////////
+
+	/**
+	 * Adds an instruction without operands
+	 * @param opcode
+	 * @param stackChange
+	 */
+	public void op(int opcode, int stackChange)
+	{
+		byte1(opcode);
+		adjust(stackChange);
+	}
+
+	/**
+	 * Adds an instruction with a constant pool operand
+	 * @param opcode
+	 * @param index
+	 * @param stackChange
+	 */
+	public void poolOp(int opcode, int index, int stackChange)
+	{
+		if(opcode == LDC && index > 0xFF) opcode = LDC_W;
+		byte1(opcode);
+		if(opcode == LDC) byte1(index);
+		else byte2(index);
+		adjust(stackChange);
+	}
+
+	/**
+	 * Adds a load or store of a local variable
+	 * @param opcode
+	 * @param local
+	 * @param stackChange
+	 */
+	public void localOp(int opcode, int local, int stackChange)
+	{
+		if(local > 0xFF)
+		{
+			byte1(WIDE);
+			byte1(opcode);
+			byte2(local);
+		}
+		else
+		{
+			byte1(opcode);
+			byte1(local);
+		}
+		adjust(stackChange);
+	}
+
+	/**
+	 * Pushes an int constant with the shortest instruction
+	 * @param value
+	 * @param pool
+	 */
+	public void pushInt(int value, ClassWriter pool)
+	{
+		if(value >= -1 && value <= 5) op(ICONST_0 + value, 1);
+		else if(value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE)
+		{
+			byte1(BIPUSH);
+			byte1(value);
+			adjust(1);
+		}
+		else if(value >= Short.MIN_VALUE && value <= Short.MAX_VALUE)
+		{
+			byte1(SIPUSH);
+			byte2(value);
+			adjust(1);
+		}
+		else poolOp(LDC, pool.integer(value), 1);
+	}
+
+	/**
+	 * Adds a branch to a label
+	 * @param opcode
+	 * @param label
+	 * @param stackChange
+	 */
+	public void jump(int opcode, int label, int stackChange)
+	{
+		if(branchCount + 2 > branches.length) branches = Arrays.copyOf(branches, branches.length * 2);
+		branches[branchCount++] = length;
+		branches[branchCount++] = label;
+		byte1(opcode);
+		byte2(0); // patched in toByteArray
+		adjust(stackChange);
+	}
+
+	///////////////////////////
+	// Public - Labels
+	///////////////////////////
+
+	/**
+	 * Returns a new label that is not placed yet
+	 * @return
+	 */
+	public int newLabel()
+	{
+		if(labelCount == labels.length) labels = Arrays.copyOf(labels, labels.length * 2);
+		labels[labelCount] = -1;
+		return labelCount++;
+	}
+
+	/**
+	 * Places a label at the current position
+	 * @param label
+	 */
+	public void place(int label)
+	{
+		labels[label] = length;
+	}
+
+	/**
+	 * Sets the stack depth, used after an instruction that does not fall through (goto, return)
+	 * where the depth at the next instruction comes from a branch instead
+	 * @param depth
+	 */
+	public void setStack(int depth)
+	{
+		stack = depth;
+	}
+
+	/**
+	 * Catches every exception thrown between two labels in a handler at a third label
+	 * @param start
+	 * @param end
+	 * @param handler
+	 */
+	public void catchAll(int start, int end, int handler)
+	{
+		handlers = Arrays.copyOf(handlers, handlers.length + 4);
+		handlers[handlers.length - 4] = start;
+		handlers[handlers.length - 3] = end;
+		handlers[handlers.length - 2] = handler;
+		handlers[handlers.length - 1] = -1;
+	}
+
+	///////////////////////////
+	// Public - Accessors
+	///////////////////////////
+
+	/**
+	 * Returns the current operand stack depth
+	 * @return
+	 */
+	public int stack()
+	{
+		return stack;
+	}
+
+	/**
+	 * Returns the deepest the operand stack gets
+	 * @return
+	 */
+	public int maxStack()
+	{
+		return maxStack;
+	}
+
+	/**
+	 * Returns the number of local variable slots, parameters included
+	 * @return
+	 */
+	public int maxLocals()
+	{
+		return maxLocals;
+	}
+
+	/**
+	 * Returns the exception table, four entries per handler, labels replaced by their positions
+	 * @return
+	 */
+	public int[] handlers()
+	{
+		int[] table = new int[handlers.length];
+		for(int i = 0; i < handlers.length; i += 4)
+		{
+			table[i] = labels[handlers[i]];
+			table[i + 1] = labels[handlers[i + 1]];
+			table[i + 2] = labels[handlers[i + 2]];
+			table[i + 3] = 0; // any exception
+		}
+		return table;
+	}
+
+	/**
+	 * Returns the finished bytecode with every branch offset filled in
+	 * @return
+	 */
+	public byte[] toByteArray()
+	{
+		if(length > 0xFFFF) throw new IllegalStateException("method is larger than 64K of bytecode");
+
+		for(int i = 0; i < branchCount; i += 2)
+		{
+			int position = branches[i];
+			int target = labels[branches[i + 1]];
+			if(target < 0) throw new IllegalStateException("branch to a label that was never placed");
+
+			int offset = target - position;
+			if(offset < Short.MIN_VALUE || offset > Short.MAX_VALUE) throw new IllegalStateException("branch is too far for a 16 bit offset");
+			code[position + 1] = (byte) (offset >> 8);
+			code[position + 2] = (byte) offset;
+		}
+		return Arrays.copyOf(code, length);
+	}
+
+	///////////////////////////
+	// Private - Utilities
+	///////////////////////////
+
+	/**
+	 * Changes the stack depth and remembers the deepest it gets
+	 * @param change
+	 */
+	private void adjust(int change)
+	{
+		stack += change;
+		if(stack > maxStack) maxStack = stack;
+	}
+
+	/**
+	 * Adds one byte
+	 * @param value
+	 */
+	private void byte1(int value)
+	{
+		if(length == code.length) code = Arrays.copyOf(code, code.length * 2);
+		code[length++] = (byte) value;
+	}
+
+	/**
+	 * Adds two bytes, high byte first
+	 * @param value
+	 */
+	private void byte2(int value)
+	{
+		byte1(value >> 8);
+		byte1(value);
+	}
+}
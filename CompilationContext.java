@@ -0,0 +1,120 @@
+package Driver;
+
+import java.io.PrintStream;
+
+import Parser.Parser;
+import Scanner.Scanner;
+import Utilities.Metrics;
+import Utilities.SourceFile;
+import Utilities.SymbolTable;
+import Utilities.TextTrace;
+import Utilities.Trace;
+
+/**
+ * Holds everything that belongs to one compilation: the source file, the output, the print settings, the trace,
+ * the metrics, the current line number and this compilation's scanner, parser and symbol table.
+ * The grammar tables (IntegerCodes, Rules, ScannerDFA) are shared by every compilation and never change once built,
+ * so any number of contexts can compile at the same time on different threads.
+ * @author kobypascual
+ *
+ */
+public final class CompilationContext
+{
+	/**
+	 * Name of the file being compiled
+	 */
+	public final String fileName;
+
+	/**
+	 * Source program being compiled
+	 */
+	public final SourceFile file;
+
+	/**
+	 * Where all output of this compilation goes
+	 */
+	public final PrintStream out;
+
+	/**
+	 * If we want to print input file
+	 */
+	public boolean printInput = true;
+
+	/**
+	 * Where parser steps, scanner findings and symbol table additions are traced.
+	 * Parser steps are traced as text by default, Trace.NONE turns tracing off.
+	 */
+	public Trace trace;
+
+	/**
+	 * If we want to print symbol table
+	 */
+	public boolean printSymtab = true;
+
+	/**
+	 * If we want to print the syntax tree
+	 */
+	public boolean printTree = false;
+
+	/**
+	 * If the parser builds a syntax tree. The scanner then keeps every token, the tree refers to them.
+	 * Off unless something reads the tree (the backends, the optimizer, printTree), so the scanner only keeps the lookahead.
+	 */
+	public boolean buildTree = false;
+
+	/**
+	 * If the scanner is timed apart from the parser, this slows the scanner down (see Metrics)
+	 */
+	public boolean timeScanner = false;
+
+	/**
+	 * Holds the current line number
+	 */
+	public int linenumber = 0;
+
+	/**
+	 * Time, allocations and counters of each phase of this compilation
+	 */
+	public Metrics metrics = new Metrics();
+
+	/**
+	 * Symbol table of this compilation
+	 */
+	public final SymbolTable symbolTable;
+
+	/**
+	 * Scanner of this compilation
+	 */
+	public final Scanner scanner;
+
+	/**
+	 * Parser of this compilation
+	 */
+	public final Parser parser;
+
+	/**
+	 * CompilationContext Constructor.
+	 * @param fileName
+	 * @param file
+	 * @param out
+	 */
+	public CompilationContext(String fileName, SourceFile file, PrintStream out)
+	{
+		this.fileName = fileName;
+		this.file = file;
+		this.out = out;
+		this.trace = new TextTrace(this, Trace.STEPS);
+		this.symbolTable = new SymbolTable(this);
+		this.scanner = new Scanner(this);
+		this.parser = new Parser(this);
+	}
+
+	/**
+	 * Returns the current linenumber
+	 * @return
+	 */
+	public int getLineNumber()
+	{
+		return linenumber;
+	}
+}
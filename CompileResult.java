@@ -0,0 +1,83 @@
+package Driver;
+
+/**
+ * Summary of one compilation in a batch: whether it was accepted and how much work it took.
+ * @author kobypascual
+ *
+ */
+public final class CompileResult
+{
+	/**
+	 * Name of the compiled file
+	 */
+	public final String fileName;
+
+	/**
+	 * True if the parser accepted the program
+	 */
+	public final boolean accepted;
+
+	/**
+	 * Why the compilation stopped if it was not accepted, null otherwise
+	 */
+	public final String error;
+
+	/**
+	 * Number of tokens the scanner produced
+	 */
+	public final int tokens;
+
+	/**
+	 * Number of steps the parser took
+	 */
+	public final int steps;
+
+	/**
+	 * Number of symbols in the symbol table
+	 */
+	public final int symbols;
+
+	/**
+	 * Time the compilation took in nanoseconds
+	 */
+	public final long nanos;
+
+	/**
+	 * Everything the compilation printed, null if the output was not kept
+	 */
+	public final String output;
+
+	/**
+	 * CompileResult Constructor.
+	 * @param fileName
+	 * @param accepted
+	 * @param error
+	 * @param tokens
+	 * @param steps
+	 * @param symbols
+	 * @param nanos
+	 * @param output
+	 */
+	public CompileResult(String fileName, boolean accepted, String error, int tokens, int steps, int symbols, long nanos, String output)
+	{
+		this.fileName = fileName;
+		this.accepted = accepted;
+		this.error = error;
+		this.tokens = tokens;
+		this.steps = steps;
+		this.symbols = symbols;
+		this.nanos = nanos;
+		this.output = output;
+	}
+
+	/**
+	 * Returns this result as one summary line
+	 * @return
+	 */
+	public String summary()
+	{
+		return fileName + ": " + (accepted ? "accepted" : "FAILED - " + error)
+				+ " tokens: " + tokens + " steps: " + steps + " symbols: " + symbols
+				+ " time: " + (nanos / 1000000.0) + " ms";
+	}
+}
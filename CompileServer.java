@@ -0,0 +1,283 @@
+package Driver;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import Parser.Parser;
+import Utilities.Metrics;
+import Utilities.MetricsRegistry;
+import Utilities.SourceFile;
+
+/**
+ * Long running compile server. Listens on a loopback port or a unix domain socket and compiles every request it gets,
+ * so the grammar tables are built once and the JIT stays warm between compilations.
+ * Every connection is handled on a worker thread and every request gets its own CompilationContext.
+ * There are at most WORKERS per core, connections beyond that wait for one to finish, up to WAITING of them,
+ * and any more are answered with "failed 0 server busy" and closed.
+ *
+ * Requests are one line each:
+ *   COMPILE path   compile the file at path (as seen by the server)
+ *   SOURCE n       compile the n bytes of source that follow the line
+ *   METRICS        answer with the totals of every compilation so far (see MetricsRegistry) as one line of JSON
+ *   QUIT           close the connection
+ * The totals are also registered over JMX as LOLCompiler:type=Metrics.
+ * Every compile request is answered with one header line followed by the output of the compilation:
+ *   accepted n
+ *   failed n reason
+ * where n is the number of bytes of output (UTF-8) that follow the header. The output is the syntax errors of the program,
+ * nothing is traced. A verbose server answers with everything the print settings turn on instead, the PDA steps included.
+ * @author kobypascual
+ *
+ */
+public final class CompileServer
+{
+	/**
+	 * Port used when no port or socket path is given
+	 */
+	public static final String DEFAULT_PORT = "4323";
+
+	/**
+	 * Longest request line accepted, in bytes
+	 */
+	private static final int MAX_LINE = 4096;
+
+	/**
+	 * Largest inline source accepted, in bytes
+	 */
+	private static final int MAX_SOURCE = 64 * 1024 * 1024;
+
+	/**
+	 * Worker threads per core, each one serves one connection at a time
+	 */
+	private static final int WORKERS = 4;
+
+	/**
+	 * Most connections waiting for a worker
+	 */
+	private static final int WAITING = 64;
+
+	/**
+	 * Empty constructor for CompileServer. Private since this class is static.
+	 * Constructor will never be called.
+	 */
+	private CompileServer() {}
+
+	///////////////////////////
+	// Public - Utilities
+	///////////////////////////
+
+	/**
+	 * Runs the server until the process is stopped.
+	 * A number is taken as a port on the loopback address, anything else as the path of a unix domain socket.
+	 * @param address
+	 * @param verbose true to answer with the full output of every compilation, not only its syntax errors
+	 * @throws IOException if the server can not listen on the address or stops accepting connections
+	 */
+	public static void serve(String address, boolean verbose) throws IOException
+	{
+		// Build the shared grammar tables before the first request needs them
+		Parser.setGrammar();
+		MetricsRegistry.register();
+
+		int output = verbose ? Compiler.FULL : Compiler.DIAGNOSTICS;
+		int threads = WORKERS * Runtime.getRuntime().availableProcessors();
+		ThreadPoolExecutor workers = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, new ArrayBlockingQueue<Runnable>(WAITING));
+		workers.allowCoreThreadTimeOut(true);
+		try(ServerSocketChannel server = open(address))
+		{
+			System.out.println("Compile server listening on " + server.getLocalAddress());
+			while(true)
+			{
+				SocketChannel client = server.accept();
+				try
+				{
+					workers.execute(() -> handle(client, output));
+				}
+				catch (RejectedExecutionException e)
+				{
+					busy(client);
+				}
+			}
+		}
+		finally
+		{
+			workers.shutdown();
+		}
+	}
+
+	///////////////////////////
+	// Private - Utilities
+	///////////////////////////
+
+	/**
+	 * Binds a server channel to a loopback port or a unix domain socket path
+	 * @param address
+	 * @return
+	 * @throws IOException
+	 */
+	private static ServerSocketChannel open(String address) throws IOException
+	{
+		SocketAddress local;
+		ServerSocketChannel server;
+		if(address.chars().allMatch(Character::isDigit))
+		{
+			local = new InetSocketAddress(InetAddress.getLoopbackAddress(), Integer.parseInt(address));
+			server = ServerSocketChannel.open();
+		}
+		else
+		{
+			// A socket file left behind by a server that was killed would make bind fail
+			Path path = Path.of(address);
+			Files.deleteIfExists(path);
+			path.toFile().deleteOnExit();
+			local = UnixDomainSocketAddress.of(path);
+			server = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+		}
+		server.bind(local);
+		return server;
+	}
+
+	/**
+	 * Answers requests on one connection until the client quits or disconnects
+	 * @param client
+	 * @param output how much of the output of each compilation is sent back, see Compiler.compileSource
+	 */
+	private static void handle(SocketChannel client, int output)
+	{
+		try(SocketChannel channel = client)
+		{
+			InputStream in = new BufferedInputStream(Channels.newInputStream(channel));
+			OutputStream out = Channels.newOutputStream(channel);
+
+			String request;
+			while((request = readLine(in)) != null)
+			{
+				CompileResult result;
+				if(request.startsWith("COMPILE "))
+				{
+					String fileName = request.substring(8);
+					result = Compiler.compileFile(fileName, output, false, false);
+				}
+				else if(request.startsWith("SOURCE "))
+				{
+					int length = parseLength(request.substring(7));
+					if(length < 0)
+					{
+						reply(out, "failed 0 bad source length", "");
+						return;
+					}
+					byte[] source = in.readNBytes(length);
+					if(source.length < length) return;
+					result = Compiler.compileSource("<source>", SourceFile.wrap(source), output, null, new Metrics(), false);
+				}
+				else if(request.equals("METRICS"))
+				{
+					String summary = MetricsRegistry.get().getSummary() + "\n";
+					reply(out, "metrics " + summary.getBytes(StandardCharsets.UTF_8).length, summary);
+					continue;
+				}
+				else if(request.equals("QUIT")) return;
+				else
+				{
+					reply(out, "failed 0 unknown request", "");
+					continue;
+				}
+
+				int length = result.output.getBytes(StandardCharsets.UTF_8).length;
+				String header = result.accepted ? "accepted " + length : "failed " + length + " " + result.error;
+				reply(out, header, result.output);
+			}
+		}
+		catch (IOException e)
+		{
+			// Client went away, nothing left to answer
+		}
+	}
+
+	/**
+	 * Turns away a connection no worker can take
+	 * @param client
+	 */
+	private static void busy(SocketChannel client)
+	{
+		try(SocketChannel channel = client)
+		{
+			reply(Channels.newOutputStream(channel), "failed 0 server busy", "");
+		}
+		catch (IOException e)
+		{
+			// Client went away, nothing left to answer
+		}
+	}
+
+	/**
+	 * Writes a header line followed by the output
+	 * @param out
+	 * @param header
+	 * @param output
+	 * @throws IOException
+	 */
+	private static void reply(OutputStream out, String header, String output) throws IOException
+	{
+		// Errors can hold line breaks, the header has to stay one line
+		header = header.replace('\n', ' ').replace('\r', ' ');
+		out.write((header + "\n").getBytes(StandardCharsets.UTF_8));
+		out.write(output.getBytes(StandardCharsets.UTF_8));
+		out.flush();
+	}
+
+	/**
+	 * Reads one request line, without its line terminator. Returns null at end of stream.
+	 * @param in
+	 * @return
+	 * @throws IOException
+	 */
+	private static String readLine(InputStream in) throws IOException
+	{
+		ByteArrayOutputStream line = new ByteArrayOutputStream();
+		int c;
+		while((c = in.read()) != '\n')
+		{
+			if(c == -1) return line.size() == 0 ? null : line.toString(StandardCharsets.UTF_8);
+			if(line.size() == MAX_LINE) throw new IOException("request line too long");
+			if(c != '\r') line.write(c);
+		}
+		return line.toString(StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Parses the length of an inline source, -1 if it is not a valid length
+	 * @param text
+	 * @return
+	 */
+	private static int parseLength(String text)
+	{
+		try
+		{
+			int length = Integer.parseInt(text.trim());
+			return length >= 0 && length <= MAX_SOURCE ? length : -1;
+		}
+		catch (NumberFormatException e)
+		{
+			return -1;
+		}
+	}
+}
@@ -1,11 +1,44 @@
 package Driver;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.BufferedReader;
-import java.io.FileReader;
+import java.io.ByteArrayOutputStream;
+import java.io.FileInputStream;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.reflect.InvocationTargetException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+import Backend.BytecodeGenerator;
+import Backend.ProgramLoader;
+import Interpreter.ExecutionError;
+import Interpreter.Interpreter;
+import Optimizer.ConstantFolder;
+import Optimizer.DeadCodeEliminator;
 import Parser.Parser;
-import Utilities.SymbolTable;
+import Utilities.BinaryTrace;
+import Utilities.Metrics;
+import Utilities.MetricsRegistry;
+import Utilities.ProgramGenerator;
+import Utilities.SourceFile;
+import Utilities.TextTrace;
+import Utilities.Trace;
+import VM.RegisterCompiler;
+import VM.RegisterMachine;
+import VM.RegisterProgram;
 
 
 /**
@@ -17,10 +50,7 @@ import Utilities.SymbolTable;
  */
 public class Compiler
 {
-	/**
-	 * Holds the current line number
-	 */
-	public static int linenumber = 0;
+	// Print settings every compilation starts with
 
 	/**
 	 * If we want to print input file
@@ -48,106 +78,837 @@ public class Compiler
 	private static boolean printSymtab = true;
 
 	/**
-	 * List of strings that holds each line of the input file
+	 * If we want to print the syntax tree
+	 */
+	private static boolean printTree = false;
+
+	/**
+	 * If we want to simplify the syntax tree (see ConstantFolder, DeadCodeEliminator) before running it or generating code
+	 */
+	private static boolean optimize = true;
+
+	/**
+	 * If we want to print the code the optimizer removed, to standard error
+	 */
+	private static boolean printRemovedCode = true;
+
+	/**
+	 * If we want to print the metrics of the compilation as one line of JSON at the end (see Metrics)
+	 */
+	private static boolean printMetrics = false;
+
+	/**
+	 * If we want to time the scanner apart from the parser, this slows the scanner down (see Metrics)
+	 */
+	private static boolean timeScanner = false;
+
+	////////////////////
+	// Output Levels - how much of its output a batch or server compilation keeps
+	////////////////////
+
+	/**
+	 * Nothing is printed or traced
 	 */
-	public static ArrayList<String> file = null;
+	static final int QUIET = 0;
+
+	/**
+	 * Only the syntax errors are printed, nothing is traced
+	 */
+	static final int DIAGNOSTICS = 1;
+
+	/**
+	 * Everything the print settings turn on
+	 */
+	static final int FULL = 2;
 
 	/**
 	 * Main method. Driver.
+	 * With no arguments input.txt is compiled.
+	 * --server port|socket-path [-v] runs the compile server (see CompileServer) until it is stopped,
+	 *   with -v it answers with the full output of every compilation instead of its syntax errors.
+	 * --run file compiles the file and runs it (see Interpreter), reading GIMMEH from standard input.
+	 * --jvm file compiles the file to a JVM class (see BytecodeGenerator) and runs that instead.
+	 * --emit file dir compiles the file to a JVM class and writes it to dir.
+	 * --vm file compiles the file for the RegisterMachine and runs it there, a file.lolv is loaded as compiled already.
+	 * --vm-emit file out compiles the file for the RegisterMachine and writes the program to out.
+	 * --generate out size [depth [identifiers [seed]]] writes a random program of about size bytes (K, M or G) to out (see ProgramGenerator).
+	 * Otherwise every argument is a file or a directory to compile in batch mode:
+	 *   -j n   compile on n threads (default: one per core)
+	 *   -v     print the full output of every file, not only its summary
+	 *   -b     write a compact binary trace (see BinaryTrace) of every file to file.trace
+	 *   -m     print the metrics of the whole batch (see MetricsRegistry) as one line of JSON at the end
+	 *   -t     time the scanner apart from the parser
 	 * @param args
 	 */
 	public static void main(String[] args)
 	{
+		if(args.length > 0 && args[0].equals("--server"))
+		{
+			String address = args.length > 1 ? args[1] : CompileServer.DEFAULT_PORT;
+			try
+			{
+				CompileServer.serve(address, args.length > 2 && args[2].equals("-v"));
+			}
+			catch (IOException e)
+			{
+				// The server only returns when it can not listen or accept any more, that ends the process with an error
+				System.err.println(address + ": " + e);
+				System.exit(1);
+			}
+			return;
+		}
+		else if(args.length > 1 && args[0].equals("--run"))
+		{
+			execute(args[1]);
+			return;
+		}
+		else if(args.length > 1 && args[0].equals("--jvm"))
+		{
+			executeClass(args[1]);
+			return;
+		}
+		else if(args.length > 2 && args[0].equals("--emit"))
+		{
+			emit(args[1], args[2]);
+			return;
+		}
+		else if(args.length > 1 && args[0].equals("--vm"))
+		{
+			executeRegisters(args[1]);
+			return;
+		}
+		else if(args.length > 2 && args[0].equals("--vm-emit"))
+		{
+			emitRegisters(args[1], args[2]);
+			return;
+		}
+		else if(args.length > 2 && args[0].equals("--generate"))
+		{
+			generate(args);
+			return;
+		}
+		else if(args.length > 0)
+		{
+			batch(args);
+			return;
+		}
+
 		// Delete if I don't want to use non-static methods in this class
 		Compiler driver = new Compiler();
 
 		// Open this file
 		String fileName = "input.txt";
 
-		// Store one line at a time
-		file = driver.readFile(fileName);
+		// Map the file, the scanner reads straight from it
+		Metrics metrics = new Metrics();
+		metrics.begin(Metrics.READ);
+		SourceFile file = driver.readFile(fileName);
+		metrics.end(Metrics.READ);
+		if(file == null) return;
+
+		CompilationContext context = compile(fileName, file, System.out, metrics);
+		if(printMetrics)
+		{
+			System.out.println("");
+			System.out.println(context.metrics.toJson());
+		}
+	}
+
+	/**
+	 * Compiles one source file and writes all of its output to out.
+	 * Every call gets its own CompilationContext, so calls on different threads share nothing but the grammar tables.
+	 * @param fileName
+	 * @param file
+	 * @param out
+	 * @return the context of the finished compilation
+	 */
+	public static CompilationContext compile(String fileName, SourceFile file, PrintStream out)
+	{
+		return compile(fileName, file, out, new Metrics());
+	}
+
+	/**
+	 * Compiles one source file and writes all of its output to out, adding to metrics that may already hold the read
+	 * @param fileName
+	 * @param file
+	 * @param out
+	 * @param metrics
+	 * @return the context of the finished compilation
+	 */
+	private static CompilationContext compile(String fileName, SourceFile file, PrintStream out, Metrics metrics)
+	{
+		CompilationContext context = newContext(fileName, file, out, metrics);
+		try
+		{
+			run(context);
+		}
+		finally
+		{
+			finish(context);
+		}
+		return context;
+	}
+
+	/**
+	 * Creates a context with the default print settings
+	 * @param fileName
+	 * @param file
+	 * @param out
+	 * @param metrics
+	 * @return
+	 */
+	private static CompilationContext newContext(String fileName, SourceFile file, PrintStream out, Metrics metrics)
+	{
+		CompilationContext context = new CompilationContext(fileName, file, out);
+		context.metrics = metrics;
+		context.timeScanner = timeScanner;
+		context.printInput = printInput;
+		context.printSymtab = printSymtab;
+		context.printTree = printTree;
+		context.buildTree = printTree;
+		context.trace = new TextTrace(context, traceLevels());
+		return context;
+	}
+
+	/**
+	 * Returns the trace levels turned on by the print settings
+	 * @return
+	 */
+	private static int traceLevels()
+	{
+		int levels = 0;
+		if(printParserFindings) levels |= Trace.STEPS;
+		if(printScannerFindings) levels |= Trace.FINDINGS;
+		if(printAdditions) levels |= Trace.SYMBOLS;
+		return levels;
+	}
+
+	/**
+	 * Runs every phase of a compilation
+	 * @param context
+	 */
+	private static void run(CompilationContext context)
+	{
+		SourceFile file = context.file;
+		PrintStream out = context.out;
 
 		// 0. Compiler output
-		System.out.println("COMPILER OUTPUT:");
-		System.out.println("");
+		out.println("COMPILER OUTPUT:");
+		out.println("");
 
 		// 1. Print the input file
-		if(printInput)
+		if(context.printInput)
 		{
-			System.out.println("Input File:");
-			for(int currentLine = 0; currentLine < file.size(); currentLine++)
+			out.println("Input File:");
+			for(int currentLine = 0; currentLine < file.lineCount(); currentLine++)
 			{
-				System.out.println(file.get(currentLine));
+				out.println(file.line(currentLine));
 			}
-			System.out.println("");
+			out.println("");
+		}
+
+		// 2. Call Parser to begin parsing. Whatever was traced is written out before anything else is printed.
+		context.metrics.begin(Metrics.PARSE);
+		try
+		{
+			context.parser.parse();
+		}
+		finally
+		{
+			context.metrics.end(Metrics.PARSE);
+			context.trace.flush();
 		}
 
-		// 2. Call Parser to begin parsing
-		Parser.parse();
+		// Every syntax error the parser recovered from
+		if(!context.parser.getErrors().isEmpty())
+		{
+			out.println("");
+			out.println("Syntax Errors:");
+			for(String error : context.parser.getErrors())
+				out.println(error);
+		}
 
 		// 3. Print table
-		if(printSymtab)
+		if(context.printSymtab)
+		{
+			out.println(""); // white space for cleanliness
+			context.symbolTable.printTable();
+		}
+
+		// 4. Print syntax tree
+		if(context.printTree && context.parser.getTree() != null && context.parser.isAccepted())
+		{
+			out.println("");
+			out.println("Syntax Tree:");
+			context.parser.getTree().print(out, file);
+		}
+	}
+
+	/**
+	 * Adds the metrics of a finished or failed compilation to the MetricsRegistry
+	 * @param context
+	 */
+	private static void finish(CompilationContext context)
+	{
+		context.metrics.collect(context);
+		MetricsRegistry.get().record(context.metrics, context.parser.isAccepted());
+	}
+
+	////////////////////
+	// Run Mode
+	////////////////////
+
+	/**
+	 * Runs a file on the RegisterMachine, compiling it first unless it is a .lolv program.
+	 * The program writes to standard output, errors and the time it took go to standard error.
+	 * @param fileName
+	 */
+	private static void executeRegisters(String fileName)
+	{
+		RegisterProgram program;
+		if(fileName.endsWith(".lolv"))
+		{
+			try (InputStream in = new BufferedInputStream(new FileInputStream(fileName)))
+			{
+				program = RegisterProgram.read(in);
+			}
+			catch (IOException e)
+			{
+				System.err.println(fileName + ": " + e.getMessage());
+				return;
+			}
+		}
+		else
+		{
+			CompilationContext context = compileSilently(fileName);
+			if(context == null) return;
+			program = new RegisterCompiler(context.parser.getTree(), context.symbolTable).compile();
+		}
+
+		PrintStream out = new PrintStream(new BufferedOutputStream(new FileOutputStream(FileDescriptor.out), 1 << 16), false);
+		RegisterMachine machine = new RegisterMachine(program, new BufferedReader(new InputStreamReader(System.in)), out);
+
+		long start = System.nanoTime();
+		try
+		{
+			machine.run();
+		}
+		catch (ExecutionError e)
+		{
+			System.err.println(e.getMessage());
+		}
+		long nanos = System.nanoTime() - start;
+
+		System.err.println("Executed " + machine.getInstructions() + " instructions in " + (nanos / 1000000.0) + " ms"
+				+ " instructions/s: " + (long) (machine.getInstructions() / (nanos / 1e9)));
+	}
+
+	/**
+	 * Compiles a file for the RegisterMachine and writes the program, it runs later with --vm out
+	 * @param fileName
+	 * @param outName
+	 */
+	private static void emitRegisters(String fileName, String outName)
+	{
+		CompilationContext context = compileSilently(fileName);
+		if(context == null) return;
+
+		RegisterProgram program = new RegisterCompiler(context.parser.getTree(), context.symbolTable).compile();
+		try (OutputStream out = new BufferedOutputStream(new FileOutputStream(outName)))
+		{
+			program.write(out);
+		}
+		catch (IOException e)
+		{
+			System.err.println(outName + ": " + e.getMessage());
+			return;
+		}
+		System.err.println("Wrote " + outName + " (" + program.size() + " code words, " + program.registers() + " registers)");
+	}
+
+	/**
+	 * Compiles a file without printing anything and runs it if it is accepted.
+	 * The program writes to standard output, errors and the time it took go to standard error.
+	 * @param fileName
+	 */
+	private static void execute(String fileName)
+	{
+		CompilationContext context = compileSilently(fileName);
+		if(context == null) return;
+
+		PrintStream out = new PrintStream(new BufferedOutputStream(new FileOutputStream(FileDescriptor.out), 1 << 16), false);
+		Interpreter interpreter = new Interpreter(context.parser.getTree(), context.symbolTable, new BufferedReader(new InputStreamReader(System.in)), out);
+
+		long start = System.nanoTime();
+		try
+		{
+			interpreter.run();
+		}
+		catch (ExecutionError e)
+		{
+			System.err.println(e.getMessage());
+		}
+		long nanos = System.nanoTime() - start;
+
+		System.err.println("Executed " + interpreter.getStatements() + " statements in " + (nanos / 1000000.0) + " ms"
+				+ " statements/s: " + (long) (interpreter.getStatements() / (nanos / 1e9)));
+	}
+
+	/**
+	 * Compiles a file to a JVM class, loads it and runs its main method.
+	 * The program writes to standard output, errors and the time it took go to standard error.
+	 * @param fileName
+	 */
+	private static void executeClass(String fileName)
+	{
+		CompilationContext context = compileSilently(fileName);
+		if(context == null) return;
+
+		String className = className(fileName);
+		byte[] bytes;
+		try
+		{
+			bytes = new BytecodeGenerator(className, context.parser.getTree(), context.symbolTable).generate();
+		}
+		catch (RuntimeException e)
+		{
+			System.err.println(fileName + ": " + e.getMessage());
+			return;
+		}
+
+		long start = System.nanoTime();
+		try
+		{
+			new ProgramLoader().define(className, bytes).getMethod("main", String[].class).invoke(null, (Object) new String[0]);
+		}
+		catch (InvocationTargetException e)
+		{
+			// ExecutionError from LolRuntime, anything else (a StackOverflowError from deep recursion) is shown as it is
+			Throwable cause = e.getCause();
+			System.err.println(cause instanceof ExecutionError ? cause.getMessage() : fileName + ": " + cause);
+		}
+		catch (ReflectiveOperationException | LinkageError e)
 		{
-			System.out.println(""); // white space for cleanliness
-			SymbolTable.printTable();
+			System.err.println(fileName + ": " + e);
+			return;
 		}
+		long nanos = System.nanoTime() - start;
+
+		System.err.println("Ran " + className + " (" + bytes.length + " bytes) in " + (nanos / 1000000.0) + " ms");
 	}
 
 	/**
-	 * Reads the file and stores each line of the file into an ArrayList<String>
+	 * Compiles a file to a JVM class and writes it to directory/Name.class.
+	 * It runs with java -cp directory:compiler-classes Name.
+	 * @param fileName
+	 * @param directory
+	 */
+	private static void emit(String fileName, String directory)
+	{
+		CompilationContext context = compileSilently(fileName);
+		if(context == null) return;
+
+		String className = className(fileName);
+		try
+		{
+			byte[] bytes = new BytecodeGenerator(className, context.parser.getTree(), context.symbolTable).generate();
+			Path path = Paths.get(directory, className + ".class");
+			Files.write(path, bytes);
+			System.err.println("Wrote " + path + " (" + bytes.length + " bytes)");
+		}
+		catch (IOException | RuntimeException e)
+		{
+			System.err.println(fileName + ": " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Compiles a file without printing anything, then optimizes its syntax tree
+	 * @param fileName
+	 * @return the context of the compilation, null if the file could not be read or was not accepted
+	 */
+	private static CompilationContext compileSilently(String fileName)
+	{
+		Metrics metrics = new Metrics();
+		SourceFile file;
+		try
+		{
+			metrics.begin(Metrics.READ);
+			file = SourceFile.map(fileName);
+			metrics.end(Metrics.READ);
+		}
+		catch (IOException e)
+		{
+			System.err.println(fileName + ": " + e.getMessage());
+			return null;
+		}
+
+		CompilationContext context = new CompilationContext(fileName, file, new PrintStream(OutputStream.nullOutputStream()));
+		context.printInput = false;
+		context.printSymtab = false;
+		context.buildTree = true;
+		context.trace = Trace.NONE;
+		context.metrics = metrics;
+		context.timeScanner = timeScanner;
+		try
+		{
+			run(context);
+		}
+		catch (RuntimeException e)
+		{
+			finish(context);
+			System.err.println(fileName + ": " + e);
+			return null;
+		}
+		if(!context.parser.isAccepted())
+		{
+			finish(context);
+			for(String error : context.parser.getErrors()) System.err.println(fileName + ": " + error);
+			System.err.println(fileName + ": not accepted");
+			return null;
+		}
+
+		if(optimize)
+		{
+			metrics.begin(Metrics.OPTIMIZE);
+			new ConstantFolder(context.parser.getTree(), context.symbolTable).run();
+
+			DeadCodeEliminator eliminator = new DeadCodeEliminator(context.parser.getTree(), context.symbolTable);
+			eliminator.run();
+			metrics.end(Metrics.OPTIMIZE);
+
+			if(printRemovedCode)
+				for(String removal : eliminator.getReport()) System.err.println(fileName + ": " + removal);
+		}
+		finish(context);
+		return context;
+	}
+
+	/**
+	 * Returns the name of the class generated for a file: its base name, with anything that can not be in a name replaced
 	 * @param fileName
 	 * @return
 	 */
-	private ArrayList<String> readFile(String fileName)
+	private static String className(String fileName)
+	{
+		String name = Paths.get(fileName).getFileName().toString();
+		int dot = name.indexOf('.');
+		if(dot > 0) name = name.substring(0, dot);
+
+		StringBuilder className = new StringBuilder();
+		for(char c : name.toCharArray()) className.append(Character.isJavaIdentifierPart(c) ? c : '_');
+		if(className.length() == 0 || !Character.isJavaIdentifierStart(className.charAt(0))) className.insert(0, 'L');
+		return className.toString();
+	}
+
+	////////////////////
+	// Generate Mode
+	////////////////////
+
+	/**
+	 * Writes a random program: --generate out size [depth [identifiers [seed]]]
+	 * Depth is 8, identifiers 1000 and seed 1 unless they are given.
+	 * @param args
+	 */
+	private static void generate(String[] args)
 	{
-		ArrayList<String> file = new ArrayList<String>();
-		String line;
+		String outName = args[1];
+		ProgramGenerator generator;
+		long size;
 		try
 		{
-		FileReader fileReader = new FileReader(fileName);
+			size = byteCount(args[2]);
+			int depth = args.length > 3 ? Integer.parseInt(args[3]) : 8;
+			int identifiers = args.length > 4 ? Integer.parseInt(args[4]) : 1000;
+			long seed = args.length > 5 ? Long.parseLong(args[5]) : 1;
+			generator = new ProgramGenerator(depth, identifiers, seed);
+		}
+		catch (IllegalArgumentException e)
+		{
+			System.err.println("--generate: " + e.getMessage());
+			return;
+		}
+
+		long start = System.nanoTime();
+		long written;
+		try (OutputStream out = new BufferedOutputStream(new FileOutputStream(outName), 1 << 16))
+		{
+			written = generator.write(out, size);
+		}
+		catch (IOException e)
+		{
+			System.err.println(outName + ": " + e.getMessage());
+			return;
+		}
+		System.err.println("Wrote " + outName + " (" + written + " bytes) in " + ((System.nanoTime() - start) / 1000000) + " ms");
+	}
+
+	/**
+	 * Reads a number of bytes with an optional K, M or G suffix
+	 * @param text
+	 * @return
+	 */
+	private static long byteCount(String text)
+	{
+		long unit = 1;
+		switch(Character.toUpperCase(text.charAt(text.length() - 1)))
+		{
+			case 'K': unit = 1L << 10; break;
+			case 'M': unit = 1L << 20; break;
+			case 'G': unit = 1L << 30; break;
+		}
+		if(unit > 1) text = text.substring(0, text.length() - 1);
+		return Long.parseLong(text) * unit;
+	}
 
-		BufferedReader bufferedReader = new BufferedReader(fileReader);
+	////////////////////
+	// Batch Mode
+	////////////////////
 
+	/**
+	 * Compiles every file named by args on a fork-join pool and prints a summary line per file.
+	 * The grammar tables are built once up front and shared by every compilation.
+	 * @param args
+	 */
+	private static void batch(String[] args)
+	{
+		int threads = Runtime.getRuntime().availableProcessors();
+		boolean verbose = false;
+		boolean binaryTrace = false;
+		boolean summary = false;
+		boolean timed = false;
+		ArrayList<String> fileNames = new ArrayList<String>();
 
-			while((line = bufferedReader.readLine()) != null)
+		for(int i = 0; i < args.length; i++)
+		{
+			if(args[i].equals("-j"))
 			{
-				file.add(line);
+				threads = i + 1 < args.length ? threadCount(args[++i]) : 0;
+				if(threads < 1)
+				{
+					usage();
+					return;
+				}
 			}
+			else if(args[i].equals("-v")) verbose = true;
+			else if(args[i].equals("-b")) binaryTrace = true;
+			else if(args[i].equals("-m")) summary = true;
+			else if(args[i].equals("-t")) timed = true;
+			else addFiles(args[i], fileNames);
+		}
+
+		final int output = verbose ? FULL : QUIET;
+		final boolean keepTrace = binaryTrace;
+		final boolean timeScanner = timed;
 
-			bufferedReader.close();
+		// Build the shared grammar tables before any worker needs them
+		Parser.setGrammar();
+
+		long start = System.nanoTime();
+		ForkJoinPool pool = new ForkJoinPool(threads);
+		List<CompileResult> results;
+		try
+		{
+			// A parallel stream submitted to a pool runs on that pool's threads and keeps the file order
+			results = pool.submit(() -> fileNames.parallelStream()
+					.map(fileName -> compileFile(fileName, output, keepTrace, timeScanner))
+					.collect(Collectors.toList())).get();
+		}
+		catch (InterruptedException | ExecutionException e)
+		{
+			System.err.println("batch: " + e.getMessage());
+			return;
+		}
+		finally
+		{
+			pool.shutdown();
+		}
+		long nanos = System.nanoTime() - start;
+
+		// Print the output of each file in order, then the summary
+		int accepted = 0;
+		long tokens = 0;
+		long steps = 0;
+		for(CompileResult result : results)
+		{
+			if(result.output != null) System.out.print(result.output);
+			if(result.accepted) accepted++;
+			tokens += result.tokens;
+			steps += result.steps;
+		}
+
+		System.out.println("Batch Summary:");
+		for(CompileResult result : results)
+			System.out.println(result.summary());
+
+		double seconds = nanos / 1e9;
+		System.out.println("Files: " + results.size() + " accepted: " + accepted + " failed: " + (results.size() - accepted)
+				+ " threads: " + threads + " time: " + (nanos / 1000000.0) + " ms"
+				+ " files/s: " + (long) (results.size() / seconds) + " tokens/s: " + (long) (tokens / seconds) + " steps/s: " + (long) (steps / seconds));
+		if(summary) System.out.println(MetricsRegistry.get().getSummary());
+	}
+
+	/**
+	 * Adds a file, or every regular file under a directory, to the list of files to compile
+	 * @param name
+	 * @param fileNames
+	 */
+	private static void addFiles(String name, ArrayList<String> fileNames)
+	{
+		Path path = Paths.get(name);
+		if(!Files.isDirectory(path))
+		{
+			fileNames.add(name);
+			return;
+		}
+
+		try(Stream<Path> walk = Files.walk(path))
+		{
+			walk.filter(Files::isRegularFile).map(Path::toString).sorted().forEach(fileNames::add);
 		}
 		catch (IOException e)
 		{
-			e.printStackTrace();
+			System.err.println(name + ": " + e.getMessage());
 		}
-		return file;
 	}
 
 	/**
-	 * Returns the current linenumber
+	 * Reads the number of threads given with -j, 0 if it is not a number
+	 * @param text
 	 * @return
 	 */
-	public static int getLineNumber()
+	private static int threadCount(String text)
 	{
-		return linenumber;
+		try
+		{
+			return Integer.parseInt(text);
+		}
+		catch (NumberFormatException e)
+		{
+			return 0;
+		}
 	}
 
 	/**
-	 * Returns printFindings - used by error handler on whether or not to print errors to console
+	 * Prints how the driver is used, to standard error
+	 */
+	private static void usage()
+	{
+		System.err.println("Usage: Compiler                              compile input.txt");
+		System.err.println("       Compiler --server port|socket-path    run the compile server");
+		System.err.println("       Compiler --run|--jvm|--vm file        compile a file and run it");
+		System.err.println("       Compiler --emit file dir              write the JVM class of a file to dir");
+		System.err.println("       Compiler --vm-emit file out           write the RegisterMachine program of a file to out");
+		System.err.println("       Compiler --generate out size [depth [identifiers [seed]]]");
+		System.err.println("       Compiler [-j threads] [-v] [-b] [-m] [-t] file|directory...");
+		System.err.println("  -j n   compile on n threads, n at least 1 (default: one per core)");
+		System.err.println("  -v     print the full output of every file, not only its summary");
+		System.err.println("  -b     write a binary trace of every file to file.trace");
+		System.err.println("  -m     print the metrics of the whole batch as one line of JSON");
+		System.err.println("  -t     time the scanner apart from the parser");
+	}
+
+	/**
+	 * Compiles one file of a batch. Never throws, a failed compilation is reported in its result.
+	 * @param fileName
+	 * @param output QUIET, DIAGNOSTICS or FULL
+	 * @param binaryTrace
+	 * @param timeScanner if the scanner is timed apart from the parser
 	 * @return
 	 */
-	public static boolean getScannerPrintFindings()
+	static CompileResult compileFile(String fileName, int output, boolean binaryTrace, boolean timeScanner)
 	{
-		return printScannerFindings;
+		Metrics metrics = new Metrics();
+		SourceFile file;
+		try
+		{
+			metrics.begin(Metrics.READ);
+			file = SourceFile.map(fileName);
+			metrics.end(Metrics.READ);
+		}
+		catch (IOException e)
+		{
+			MetricsRegistry.get().record(metrics, false);
+			return new CompileResult(fileName, false, e.toString(), 0, 0, 0, 0, output != QUIET ? "" : null);
+		}
+		return compileSource(fileName, file, output, binaryTrace ? fileName + ".trace" : null, metrics, timeScanner);
 	}
 
 	/**
-	 * Returns printAdditions - used by symbol table on whether or not to print when additions to the table occur
+	 * Compiles one source program into a result. Never throws, a failed compilation is reported in its result.
+	 * QUIET prints nothing at all, DIAGNOSTICS only the syntax errors, neither traces anything as text.
+	 * If a trace file is given every level is traced to it in binary instead.
+	 * Used by batch mode and by the compile server.
+	 * @param fileName
+	 * @param file
+	 * @param output QUIET, DIAGNOSTICS or FULL
+	 * @param traceFile
+	 * @param metrics metrics of the compilation, they may already hold the read
+	 * @param timeScanner if the scanner is timed apart from the parser
 	 * @return
 	 */
-	public static boolean getPrintAdditions()
+	static CompileResult compileSource(String fileName, SourceFile file, int output, String traceFile, Metrics metrics, boolean timeScanner)
+	{
+		long start = System.nanoTime();
+		ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+		PrintStream out = output != QUIET ? new PrintStream(buffer) : new PrintStream(OutputStream.nullOutputStream());
+
+		CompilationContext context = newContext(fileName, file, out, metrics);
+		context.timeScanner = timeScanner;
+		if(output != FULL)
+		{
+			context.printInput = false;
+			context.printSymtab = false;
+			context.printTree = false;
+			context.buildTree = false;
+			context.trace = Trace.NONE;
+		}
+
+		String error = null;
+		try
+		{
+			if(traceFile != null) context.trace = new BinaryTrace(context, new FileOutputStream(traceFile), Trace.ALL);
+			run(context);
+		}
+		catch (IOException | RuntimeException e)
+		{
+			error = e.toString();
+		}
+		finally
+		{
+			if(traceFile != null) context.trace.close();
+		}
+		out.flush();
+		finish(context);
+
+		boolean accepted = error == null && context.parser.isAccepted();
+		if(error == null && !accepted)
+		{
+			int syntaxErrors = context.parser.getErrors().size();
+			error = syntaxErrors > 0 ? syntaxErrors + " syntax error(s), first " + context.parser.getErrors().get(0) : "not accepted";
+		}
+
+		return new CompileResult(fileName, accepted, error,
+				context.scanner.getTokenCount(), context.parser.getSteps(), context.symbolTable.size(),
+				System.nanoTime() - start, output != QUIET ? buffer.toString() : null);
+	}
+
+	/**
+	 * Memory maps the file so the scanner can run directly over its bytes
+	 * @param fileName
+	 * @return the mapped file, null if it could not be read (the error is printed)
+	 */
+	private SourceFile readFile(String fileName)
 	{
-		return printAdditions;
+		try
+		{
+			return SourceFile.map(fileName);
+		}
+		catch (IOException e)
+		{
+			System.err.println(fileName + ": " + e);
+			return null;
+		}
 	}
 
 }
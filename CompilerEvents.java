@@ -0,0 +1,102 @@
+package Utilities;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Java Flight Recorder events of the compiler, so CPU samples, allocations and GC pauses in a recording can be tied
+ * to the phase and the input they happened in. Every event has the file name of its compilation.
+ *   Read                a source file is memory mapped
+ *   OpenScanner         the parser hands the source file to the scanner
+ *   Parse               the parse loop, scanning included, with the tokens and steps it took
+ *   SymbolTableGrowth   the symbol table grows its arrays and rehashes
+ * Events cost next to nothing while no recording has them enabled. All of them are enabled by the default and profile
+ * settings of JFR, a recording can be started with -XX:StartFlightRecording or jcmd pid JFR.start.
+ * @author kobypascual
+ *
+ */
+public final class CompilerEvents
+{
+	/**
+	 * Empty constructor for CompilerEvents. Private since this class only holds the events.
+	 * Constructor will never be called.
+	 */
+	private CompilerEvents() {}
+
+	@Name("lol.compiler.Read")
+	@Label("Read Source File")
+	@Category({"LOL Compiler"})
+	@Description("A source file is memory mapped")
+	public static final class Read extends Event
+	{
+		@Label("File Name")
+		public String fileName;
+
+		@Label("Size")
+		@DataAmount
+		public long size;
+	}
+
+	@Name("lol.compiler.OpenScanner")
+	@Label("Open Scanner")
+	@Category({"LOL Compiler"})
+	@Description("The parser hands the source file to the scanner")
+	public static final class OpenScanner extends Event
+	{
+		@Label("File Name")
+		public String fileName;
+
+		@Label("Size")
+		@DataAmount
+		public long size;
+	}
+
+	@Name("lol.compiler.Parse")
+	@Label("Parse")
+	@Category({"LOL Compiler"})
+	@Description("The parse loop, the scanner runs inside it")
+	public static final class Parse extends Event
+	{
+		@Label("File Name")
+		public String fileName;
+
+		@Label("Size")
+		@DataAmount
+		public long size;
+
+		@Label("Tokens")
+		public long tokens;
+
+		@Label("Steps")
+		@Description("Steps taken by the PDA")
+		public long steps;
+
+		@Label("Accepted")
+		public boolean accepted;
+	}
+
+	@Name("lol.compiler.SymbolTableGrowth")
+	@Label("Symbol Table Growth")
+	@Category({"LOL Compiler"})
+	@Description("The symbol table grows its arrays and rehashes every symbol")
+	public static final class SymbolTableGrowth extends Event
+	{
+		@Label("File Name")
+		public String fileName;
+
+		@Label("Symbols")
+		public long symbols;
+
+		@Label("Old Capacity")
+		@Description("Hash slots before growing")
+		public long oldCapacity;
+
+		@Label("New Capacity")
+		@Description("Hash slots after growing")
+		public long newCapacity;
+	}
+}
@@ -0,0 +1,407 @@
+package Optimizer;
+
+import Interpreter.Interpreter;
+import Parser.SyntaxTree;
+import Utilities.SymbolTable;
+
+/**
+ * Optimization pass over the expressions of a syntax tree, rewriting nodes in place:
+ *   constant folding   SUM OF 2 AN 3 becomes 5, NOT WIN becomes FAIL, BOTH SAEM 1 AN 1.0 becomes WIN
+ *   identities         x + 0, 0 + x, x - 0, x * 1, 1 * x, x / 1 become x, NOT NOT b becomes b,
+ *                      BOTH OF WIN AN b and EITHER OF FAIL AN b become b
+ * Folding follows the Interpreter exactly: NUMBR op NUMBR is a NUMBR with int overflow, anything with a NUMBAR is a NUMBAR,
+ * a NUMBR QUOSHUNT by 0 is left alone so it still fails when it runs. Identities only use NUMBR 0 and 1, so they never change
+ * the type of a result, and nothing that can fail (a variable with no value) is ever dropped. An operator that is a whole <expr>
+ * is not reduced to a variable, on its own a TROOF variable would stay a TROOF where the operator made it 1 or 0.
+ * The one difference: x + 0 keeps a NUMBAR -0.0 as -0.0, where adding 0 would have made it 0.0.
+ * Folded values are new constants in the SymbolTable.
+ *
+ * Children always come after their parent in the tree, so visiting nodes from the last one to the first
+ * simplifies every subtree before the expression it is part of, without recursion.
+ * @author kobypascual
+ *
+ */
+public final class ConstantFolder
+{
+	private static final byte NUMBR = Interpreter.NUMBR;
+	private static final byte NUMBAR = Interpreter.NUMBAR;
+	private static final byte TROOF = Interpreter.TROOF;
+
+	/**
+	 * Tree being rewritten
+	 */
+	private final SyntaxTree tree;
+
+	/**
+	 * Symbols of the program, folded constants are added here
+	 */
+	private final SymbolTable symbols;
+
+	/**
+	 * True for the nodes that are the whole of an <expr>
+	 */
+	private boolean[] whole;
+
+	/**
+	 * Number of operators replaced by their value
+	 */
+	private int folded = 0;
+
+	/**
+	 * Number of operators removed by an identity
+	 */
+	private int simplified = 0;
+
+	////////////////////
+	// Value of the last constant looked at
+	////////////////////
+
+	private byte valueType;
+	private int numbr;
+	private double numbar;
+	private boolean troof;
+
+	/**
+	 * ConstantFolder Constructor.
+	 * @param tree
+	 * @param symbols
+	 */
+	public ConstantFolder(SyntaxTree tree, SymbolTable symbols)
+	{
+		this.tree = tree;
+		this.symbols = symbols;
+	}
+
+	///////////////////////////
+	// Public - Utilities
+	///////////////////////////
+
+	/**
+	 * Simplifies every expression of the tree
+	 */
+	public void run()
+	{
+		whole = new boolean[tree.size()];
+		for(int node = 0; node < tree.size(); node++)
+			if(tree.kind(node) == SyntaxTree.EXPR) whole[tree.child(node, 0)] = true;
+
+		for(int node = tree.size() - 1; node >= 0; node--)
+		{
+			switch(tree.kind(node))
+			{
+				case SyntaxTree.ARITH:
+					arith(node);
+					break;
+				case SyntaxTree.BOOL:
+					bool(node);
+					break;
+			}
+		}
+	}
+
+	/**
+	 * Returns the number of operators replaced by their value
+	 * @return
+	 */
+	public int getFolded()
+	{
+		return folded;
+	}
+
+	/**
+	 * Returns the number of operators removed by an identity
+	 * @return
+	 */
+	public int getSimplified()
+	{
+		return simplified;
+	}
+
+	///////////////////////////
+	// Arithmetic
+	///////////////////////////
+
+	/**
+	 * Folds or simplifies an <arith>
+	 * @param node
+	 */
+	private void arith(int node)
+	{
+		char rule = tree.rule(node);
+		if(rule < 'a' || rule > 'd') return;
+
+		int left = tree.child(node, 0);
+		int right = tree.child(node, 1);
+		if(isConstant(left) && isConstant(right))
+		{
+			fold(node, rule);
+			return;
+		}
+
+		// Identities, only with NUMBR 0 and 1 so the type of the result stays the same
+		switch(rule)
+		{
+			case 'a':	// SUM OF
+				if(isNumbr(right, 0)) identity(node, left);
+				else if(isNumbr(left, 0)) identity(node, right);
+				break;
+			case 'b':	// DIFF OF
+				if(isNumbr(right, 0)) identity(node, left);
+				break;
+			case 'c':	// PRODUKT OF
+				if(isNumbr(right, 1)) identity(node, left);
+				else if(isNumbr(left, 1)) identity(node, right);
+				break;
+			case 'd':	// QUOSHUNT OF
+				if(isNumbr(right, 1)) identity(node, left);
+				break;
+		}
+	}
+
+	/**
+	 * Replaces an arithmetic operator by its other operand, unless that leaves a variable on its own as a whole <expr>
+	 * @param node
+	 * @param operand
+	 */
+	private void identity(int node, int operand)
+	{
+		if(whole[node] && tree.rule(operand) == 'e') return;
+		simplify(node, operand);
+	}
+
+	/**
+	 * Replaces an operator on two constants by its value
+	 * @param node
+	 * @param rule
+	 */
+	private void fold(int node, char rule)
+	{
+		load(tree.child(node, 0));
+		byte leftType = valueType;
+		int leftNumbr = numbr;
+		double leftNumbar = valueType == NUMBAR ? numbar : numbr;
+
+		load(tree.child(node, 1));
+		if(leftType == NUMBR && valueType == NUMBR)
+		{
+			int value;
+			switch(rule)
+			{
+				case 'a': value = leftNumbr + numbr; break;
+				case 'b': value = leftNumbr - numbr; break;
+				case 'c': value = leftNumbr * numbr; break;
+				default:
+					if(numbr == 0) return; // fails when it runs
+					value = leftNumbr / numbr;
+					break;
+			}
+			constant(node, Integer.toString(value));
+			return;
+		}
+
+		double right = valueType == NUMBAR ? numbar : numbr;
+		double value;
+		switch(rule)
+		{
+			case 'a': value = leftNumbar + right; break;
+			case 'b': value = leftNumbar - right; break;
+			case 'c': value = leftNumbar * right; break;
+			default: value = leftNumbar / right; break;
+		}
+		// Always has a '.', an exponent, or is Infinity / NaN, so it reads back as a NUMBAR
+		constant(node, Double.toString(value));
+	}
+
+	/**
+	 * Turns an <arith> into a constant leaf
+	 * @param node
+	 * @param text
+	 */
+	private void constant(int node, String text)
+	{
+		int symbol = symbols.find(text, "constant");
+		if(symbol < 0) symbol = symbols.add(text, "constant");
+		tree.rewrite(node, 'f', tree.addLeaf(SyntaxTree.CONST, symbol, text, node), 1);
+		folded++;
+	}
+
+	///////////////////////////
+	// Booleans
+	///////////////////////////
+
+	/**
+	 * Folds or simplifies a <bool>
+	 * @param node
+	 */
+	private void bool(int node)
+	{
+		switch(tree.rule(node))
+		{
+			case 'a':	// BOTH OF
+			case 'b':	// EITHER OF
+			{
+				int left = tree.child(node, 0);
+				int right = tree.child(node, 1);
+				boolean both = tree.rule(node) == 'a';
+				if(isTroof(left) && isTroof(right))
+				{
+					boolean value = both ? isWin(left) & isWin(right) : isWin(left) | isWin(right);
+					troof(node, value);
+				}
+				// WIN is the identity of BOTH OF, FAIL of EITHER OF
+				else if(isTroof(left) && isWin(left) == both) simplify(node, right);
+				else if(isTroof(right) && isWin(right) == both) simplify(node, left);
+				break;
+			}
+
+			case 'c':	// NOT
+			{
+				int operand = tree.child(node, 0);
+				if(isTroof(operand)) troof(node, !isWin(operand));
+				else if(tree.rule(operand) == 'c') simplify(node, tree.child(operand, 0));
+				break;
+			}
+
+			case 'd':	// <comp>
+			{
+				int comp = tree.child(node, 0);
+				int left = tree.child(comp, 0);
+				int right = tree.child(comp, 1);
+				if(!isConstantExpr(left) || !isConstantExpr(right)) break;
+
+				loadExpr(left);
+				byte leftType = valueType;
+				double leftNumber = valueType == NUMBAR ? numbar : numbr;
+				boolean leftTroof = troof;
+
+				loadExpr(right);
+				boolean same;
+				if(leftType == TROOF || valueType == TROOF) same = leftType == valueType && leftTroof == troof;
+				else same = leftNumber == (valueType == NUMBAR ? numbar : numbr);
+				troof(node, tree.rule(comp) == 'a' ? same : !same);
+				break;
+			}
+		}
+	}
+
+	/**
+	 * Turns a <bool> into WIN or FAIL
+	 * @param node
+	 * @param value
+	 */
+	private void troof(int node, boolean value)
+	{
+		tree.rewrite(node, value ? 'e' : 'f', 0, 0);
+		folded++;
+	}
+
+	///////////////////////////
+	// Private - Utilities
+	///////////////////////////
+
+	/**
+	 * Replaces an operator by one of its operands
+	 * @param node
+	 * @param operand
+	 */
+	private void simplify(int node, int operand)
+	{
+		tree.replace(node, operand);
+		simplified++;
+	}
+
+	/**
+	 * Returns true if an <arith> is a constant leaf
+	 * @param arith
+	 * @return
+	 */
+	private boolean isConstant(int arith)
+	{
+		return tree.rule(arith) == 'f';
+	}
+
+	/**
+	 * Returns true if an <arith> is the given NUMBR constant
+	 * @param arith
+	 * @param value
+	 * @return
+	 */
+	private boolean isNumbr(int arith, int value)
+	{
+		if(!isConstant(arith)) return false;
+		load(arith);
+		return valueType == NUMBR && numbr == value;
+	}
+
+	/**
+	 * Returns true if a <bool> is WIN or FAIL
+	 * @param bool
+	 * @return
+	 */
+	private boolean isTroof(int bool)
+	{
+		char rule = tree.rule(bool);
+		return rule == 'e' || rule == 'f';
+	}
+
+	/**
+	 * Returns true if a constant <bool> is WIN
+	 * @param bool
+	 * @return
+	 */
+	private boolean isWin(int bool)
+	{
+		return tree.rule(bool) == 'e';
+	}
+
+	/**
+	 * Returns true if an <expr> is a constant number, WIN or FAIL
+	 * @param expr
+	 * @return
+	 */
+	private boolean isConstantExpr(int expr)
+	{
+		int node = tree.child(expr, 0);
+		return tree.kind(node) == SyntaxTree.ARITH ? isConstant(node) : isTroof(node);
+	}
+
+	/**
+	 * Loads the value of a constant <expr>
+	 * @param expr
+	 */
+	private void loadExpr(int expr)
+	{
+		int node = tree.child(expr, 0);
+		if(tree.kind(node) == SyntaxTree.ARITH) load(node);
+		else
+		{
+			valueType = TROOF;
+			troof = isWin(node);
+		}
+	}
+
+	/**
+	 * Loads the value of a constant <arith> leaf. Whole numbers are NUMBRs unless they do not fit in one,
+	 * the same as in the Interpreter.
+	 * @param arith
+	 */
+	private void load(int arith)
+	{
+		String text = symbols.get(tree.symbol(tree.child(arith, 0))).getName();
+		if(text.indexOf('.') < 0)
+		{
+			try
+			{
+				numbr = Integer.parseInt(text);
+				valueType = NUMBR;
+				return;
+			}
+			catch (NumberFormatException e)
+			{
+				// Too large for a NUMBR
+			}
+		}
+		numbar = Double.parseDouble(text);
+		valueType = NUMBAR;
+	}
+}
@@ -0,0 +1,339 @@
+package Optimizer;
+
+import java.util.ArrayList;
+
+import Interpreter.Interpreter;
+import Parser.SyntaxTree;
+import Utilities.SymbolTable;
+
+/**
+ * Optimization pass that removes statements which can never run, rewriting the syntax tree in place:
+ *   O RLY? on WIN or FAIL              replaced by the branch that runs, its statements take the place of the O RLY?
+ *   IM IN YR .. WILE FAIL              removed, its body never runs
+ *   WTF? on a constant                 OMG arms before the first matching one are removed, and so are the arms after
+ *                                      one that ends in GTFO or FOUND YR. A WTF? no arm matches is removed.
+ *   statements after GTFO / FOUND YR   removed from their block
+ * Run it after the ConstantFolder, which turns constant conditions into WIN and FAIL.
+ * Every removal is reported with its line. Function definitions in removed code are still known,
+ * backends find functions anywhere in the tree.
+ * @author kobypascual
+ *
+ */
+public final class DeadCodeEliminator
+{
+	private static final byte NUMBR = Interpreter.NUMBR;
+	private static final byte NUMBAR = Interpreter.NUMBAR;
+	private static final byte TROOF = Interpreter.TROOF;
+
+	/**
+	 * Tree being rewritten
+	 */
+	private final SyntaxTree tree;
+
+	/**
+	 * Symbols of the program, values of constants come from here
+	 */
+	private final SymbolTable symbols;
+
+	/**
+	 * One line per removal
+	 */
+	private final ArrayList<String> report = new ArrayList<String>();
+
+	////////////////////
+	// Value of the last constant looked at
+	////////////////////
+
+	private byte valueType;
+	private double number;
+	private boolean troof;
+
+	/**
+	 * DeadCodeEliminator Constructor.
+	 * @param tree
+	 * @param symbols
+	 */
+	public DeadCodeEliminator(SyntaxTree tree, SymbolTable symbols)
+	{
+		this.tree = tree;
+		this.symbols = symbols;
+	}
+
+	///////////////////////////
+	// Public - Utilities
+	///////////////////////////
+
+	/**
+	 * Removes the dead code of the whole program
+	 */
+	public void run()
+	{
+		int root = tree.root();
+		if(tree.childCount(root) > 0) body(tree.child(root, 0));
+	}
+
+	/**
+	 * Returns what was removed, one line per removal
+	 * @return
+	 */
+	public ArrayList<String> getReport()
+	{
+		return report;
+	}
+
+	///////////////////////////
+	// Statements
+	///////////////////////////
+
+	/**
+	 * Removes the dead code of a <body> chain and every block nested in it
+	 * @param body
+	 */
+	private void body(int body)
+	{
+		while(tree.childCount(body) > 0)
+		{
+			int node = tree.child(tree.child(body, 0), 0);
+			switch(tree.kind(node))
+			{
+				case SyntaxTree.IF:
+				{
+					int condition = tree.child(node, 0);
+					if(isTroof(condition))
+					{
+						boolean win = tree.rule(condition) == 'e';
+						removed(node, (win ? "NO WAI" : "YA RLY") + " of O RLY?, its condition is always " + (win ? "WIN" : "FAIL"));
+						splice(body, tree.child(node, win ? 1 : 2));
+						continue; // the statements of the branch are looked at next
+					}
+					body(tree.child(node, 1));
+					body(tree.child(node, 2));
+					break;
+				}
+
+				case SyntaxTree.LOOP:
+					if(tree.rule(tree.child(node, 1)) == 'f')
+					{
+						removed(node, "IM IN YR loop, its condition is always FAIL");
+						splice(body, -1);
+						continue;
+					}
+					body(tree.child(node, 2));
+					break;
+
+				case SyntaxTree.CASE:
+					if(!switchCase(node))
+					{
+						splice(body, -1);
+						continue;
+					}
+					for(int omgs = tree.child(node, 1); tree.childCount(omgs) > 0; omgs = tree.child(omgs, 1))
+						body(tree.child(tree.child(omgs, 0), 1));
+					break;
+
+				case SyntaxTree.FUNCTION:
+					if(tree.childCount(node) > 0) body(tree.child(node, 2));
+					break;
+
+				case SyntaxTree.RETURN:
+					int rest = tree.child(body, 1);
+					if(tree.childCount(rest) > 0)
+					{
+						removed(tree.child(rest, 0), count(rest) + " statement(s) after " + (tree.rule(node) == 'a' ? "FOUND YR" : "GTFO"));
+						tree.rewrite(rest, 'b', 0, 0);
+					}
+					break;
+			}
+			body = tree.child(body, 1);
+		}
+	}
+
+	/**
+	 * Prunes the arms of a WTF? on a constant
+	 * @param node
+	 * @return false if no arm can run and the whole WTF? can go
+	 */
+	private boolean switchCase(int node)
+	{
+		int subject = tree.child(node, 0);
+		if(!isConstantExpr(subject)) return true;
+
+		loadExpr(subject);
+		byte type = valueType;
+		double value = number;
+		boolean troofValue = troof;
+
+		// First arm that matches
+		int omgs = tree.child(node, 1);
+		int skipped = 0;
+		for(; tree.childCount(omgs) > 0; omgs = tree.child(omgs, 1), skipped++)
+		{
+			loadValue(tree.child(tree.child(omgs, 0), 0));
+			boolean same = type == TROOF || valueType == TROOF ? type == valueType && troofValue == troof : value == number;
+			if(same) break;
+		}
+
+		if(tree.childCount(omgs) == 0)
+		{
+			removed(node, "WTF?, no OMG matches its value");
+			return false;
+		}
+		if(skipped > 0)
+		{
+			removed(tree.child(tree.child(node, 1), 0), skipped + " OMG arm(s) before the one that matches");
+			tree.replace(tree.child(node, 1), omgs);
+		}
+
+		// Falling through stops at the first arm that ends in GTFO or FOUND YR
+		for(omgs = tree.child(node, 1); tree.childCount(omgs) > 0; omgs = tree.child(omgs, 1))
+		{
+			int rest = tree.child(omgs, 1);
+			if(leaves(tree.child(tree.child(omgs, 0), 1)) && tree.childCount(rest) > 0)
+			{
+				removed(tree.child(rest, 0), count(rest) + " OMG arm(s) after GTFO");
+				tree.rewrite(rest, 'b', 0, 0);
+				break;
+			}
+		}
+		return true;
+	}
+
+	///////////////////////////
+	// Private - Rewriting
+	///////////////////////////
+
+	/**
+	 * Replaces the first statement of a <body> chain by the statements of another <body>, or by nothing
+	 * @param body
+	 * @param with a <body> chain, -1 to only remove the statement
+	 */
+	private void splice(int body, int with)
+	{
+		int rest = tree.child(body, 1);
+		if(with < 0 || tree.childCount(with) == 0)
+		{
+			tree.replace(body, rest);
+			return;
+		}
+
+		// The end of the inserted chain continues with the rest
+		int last = with;
+		while(tree.childCount(last) > 0) last = tree.child(last, 1);
+		tree.replace(last, rest);
+		tree.replace(body, with);
+	}
+
+	/**
+	 * Reports a removal
+	 * @param node where the removed code starts
+	 * @param what
+	 */
+	private void removed(int node, String what)
+	{
+		report.add("Line#: " + tree.line(node) + " - Removed: " + what);
+	}
+
+	///////////////////////////
+	// Private - Utilities
+	///////////////////////////
+
+	/**
+	 * Returns true if a <body> chain has a GTFO or FOUND YR of its own, one that is not inside a nested block
+	 * @param body
+	 * @return
+	 */
+	private boolean leaves(int body)
+	{
+		for(; tree.childCount(body) > 0; body = tree.child(body, 1))
+			if(tree.kind(tree.child(tree.child(body, 0), 0)) == SyntaxTree.RETURN) return true;
+		return false;
+	}
+
+	/**
+	 * Returns the number of items in a chain
+	 * @param chain
+	 * @return
+	 */
+	private int count(int chain)
+	{
+		int count = 0;
+		for(; tree.childCount(chain) > 0; chain = tree.child(chain, 1)) count++;
+		return count;
+	}
+
+	/**
+	 * Returns true if a <bool> is WIN or FAIL
+	 * @param bool
+	 * @return
+	 */
+	private boolean isTroof(int bool)
+	{
+		char rule = tree.rule(bool);
+		return rule == 'e' || rule == 'f';
+	}
+
+	/**
+	 * Returns true if an <expr> is a constant number, WIN or FAIL
+	 * @param expr
+	 * @return
+	 */
+	private boolean isConstantExpr(int expr)
+	{
+		int node = tree.child(expr, 0);
+		return tree.kind(node) == SyntaxTree.ARITH ? tree.rule(node) == 'f' : isTroof(node);
+	}
+
+	/**
+	 * Loads the value of a constant <expr>
+	 * @param expr
+	 */
+	private void loadExpr(int expr)
+	{
+		int node = tree.child(expr, 0);
+		if(tree.kind(node) == SyntaxTree.ARITH) loadConstant(tree.child(node, 0));
+		else
+		{
+			valueType = TROOF;
+			troof = tree.rule(node) == 'e';
+		}
+	}
+
+	/**
+	 * Loads the value of an OMG <value>
+	 * @param value
+	 */
+	private void loadValue(int value)
+	{
+		if(tree.rule(value) == 'a') loadConstant(tree.child(value, 0));
+		else
+		{
+			valueType = TROOF;
+			troof = tree.rule(value) == 'b';
+		}
+	}
+
+	/**
+	 * Loads the value of a constant leaf. Whole numbers are NUMBRs unless they do not fit in one,
+	 * the same as in the Interpreter.
+	 * @param leaf
+	 */
+	private void loadConstant(int leaf)
+	{
+		String text = symbols.get(tree.symbol(leaf)).getName();
+		if(text.indexOf('.') < 0)
+		{
+			try
+			{
+				number = Integer.parseInt(text);
+				valueType = NUMBR;
+				return;
+			}
+			catch (NumberFormatException e)
+			{
+				// Too large for a NUMBR
+			}
+		}
+		number = Double.parseDouble(text);
+		valueType = NUMBAR;
+	}
+}
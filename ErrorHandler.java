@@ -1,6 +1,6 @@
 package Utilities;
 
-import Driver.Compiler;
+import Driver.CompilationContext;
 
 /**
  * Error Handler prints messages according to which error occurs.
@@ -26,42 +26,42 @@ public final class ErrorHandler
 	}
 
 	////////////////////
-	// Lexical Errors - Print out lexical errors with the line number and which error
+	// Lexical Errors - Trace lexical errors with the line number and which error
 	////////////////////
 
 	/**
-	 * Print lexical error message for invalid keyword if findings are wanted to be printed
+	 * Trace lexical error for invalid keyword
+	 * @param context
 	 */
-	public static void keywordLexical()
+	public static void keywordLexical(CompilationContext context)
 	{
-		if(Compiler.getScannerPrintFindings()) System.out.print("Line#: " + Compiler.getLineNumber() + " - Lexical Error: Invalid Keyword");
+		context.trace.lexicalError(Trace.KEYWORD, context.getLineNumber());
 	}
 
 	/**
-	 * Print lexical error message for invalid identifier if findings are wanted to be printed
+	 * Trace lexical error for invalid identifier
+	 * @param context
 	 */
-	public static void idLexical()
+	public static void idLexical(CompilationContext context)
 	{
-		if(Compiler.getScannerPrintFindings()) System.out.print("Line#: " + Compiler.getLineNumber() + " - Lexical Error: Invalid Identifier");
+		context.trace.lexicalError(Trace.IDENTIFIER, context.getLineNumber());
 	}
 
 	/**
-	 * Print lexical error message for invalid constant if findings are wanted to be printed
+	 * Trace lexical error for invalid constant
+	 * @param context
 	 */
-	public static void constLexical()
+	public static void constLexical(CompilationContext context)
 	{
-		if(Compiler.getScannerPrintFindings()) System.out.print("Line#: " + Compiler.getLineNumber() + " - Lexical Error: Invalid Constant");
+		context.trace.lexicalError(Trace.CONSTANT, context.getLineNumber());
 	}
 
-	////////////////////
-	// Overflow Errors - Print out overflow error - table only has size 100
-	////////////////////
-
 	/**
-	 * Table has only size 100. Cannot add more constants or identifiers.
+	 * Trace lexical error for a character that can not start a token
+	 * @param context
 	 */
-	public static void tableFull()
+	public static void characterLexical(CompilationContext context)
 	{
-		if(Compiler.getScannerPrintFindings()) System.out.print("Table full. Cannot add more constants or identifiers");
+		context.trace.lexicalError(Trace.CHARACTER, context.getLineNumber());
 	}
 }
@@ -0,0 +1,22 @@
+package Interpreter;
+
+/**
+ * Thrown when a running Mini-LOL program does something it can not do,
+ * like reading a variable that has no value or dividing by zero.
+ * @author kobypascual
+ *
+ */
+public final class ExecutionError extends RuntimeException
+{
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * ExecutionError Constructor.
+	 * @param line
+	 * @param message
+	 */
+	public ExecutionError(int line, String message)
+	{
+		super("Line#: " + line + " - Runtime Error: " + message);
+	}
+}
@@ -0,0 +1,145 @@
+package Utilities;
+
+import java.util.Arrays;
+
+/**
+ * Growable stack of ints. Unsynchronized and never boxes, used by the parser's PDA.
+ * @author kobypascual
+ *
+ */
+public final class IntStack
+{
+	/**
+	 * Items on the stack, bottom first
+	 */
+	private int[] items;
+
+	/**
+	 * Number of items on the stack
+	 */
+	private int size = 0;
+
+	/**
+	 * IntStack Constructor.
+	 * @param capacity initial capacity
+	 */
+	public IntStack(int capacity)
+	{
+		this.items = new int[Math.max(capacity, 1)];
+	}
+
+	///////////////////////////
+	// Public - Mutators
+	///////////////////////////
+
+	/**
+	 * Pushes a value onto the stack
+	 * @param value
+	 */
+	public void push(int value)
+	{
+		if(size == items.length) grow(size + 1);
+		items[size++] = value;
+	}
+
+	/**
+	 * Pushes every value of an array onto the stack. values[0] is pushed first, so the last value ends up on top.
+	 * @param values
+	 */
+	public void pushAll(int[] values)
+	{
+		if(size + values.length > items.length) grow(size + values.length);
+		System.arraycopy(values, 0, items, size, values.length);
+		size += values.length;
+	}
+
+	/**
+	 * Pops and returns the top of the stack
+	 * @return
+	 */
+	public int pop()
+	{
+		return items[--size];
+	}
+
+	/**
+	 * Replaces the item at an index, 0 is the bottom of the stack
+	 * @param index
+	 * @param value
+	 */
+	public void set(int index, int value)
+	{
+		items[index] = value;
+	}
+
+	/**
+	 * Removes every item
+	 */
+	public void clear()
+	{
+		size = 0;
+	}
+
+	///////////////////////////
+	// Public - Accessors
+	///////////////////////////
+
+	/**
+	 * Returns the top of the stack without popping it
+	 * @return
+	 */
+	public int peek()
+	{
+		return items[size - 1];
+	}
+
+	/**
+	 * Returns the item at an index, 0 is the bottom of the stack
+	 * @param index
+	 * @return
+	 */
+	public int get(int index)
+	{
+		return items[index];
+	}
+
+	/**
+	 * Returns the items from the bottom of the stack up
+	 * @return
+	 */
+	public int[] toArray()
+	{
+		return Arrays.copyOf(items, size);
+	}
+
+	/**
+	 * Returns true if the stack is empty
+	 * @return
+	 */
+	public boolean isEmpty()
+	{
+		return size == 0;
+	}
+
+	/**
+	 * Returns the number of items on the stack
+	 * @return
+	 */
+	public int size()
+	{
+		return size;
+	}
+
+	///////////////////////////
+	// Private - Utilities
+	///////////////////////////
+
+	/**
+	 * Grows the array to hold at least the given number of items
+	 * @param needed
+	 */
+	private void grow(int needed)
+	{
+		items = Arrays.copyOf(items, Math.max(needed, items.length * 2));
+	}
+}
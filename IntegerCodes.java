@@ -1,13 +1,19 @@
 package Scanner;
 
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.Map;
 
 
 public class IntegerCodes
 {
-	public static HashMap<String, Integer> codes = new HashMap<String, Integer>();
+	/**
+	 * Integer code of each token, and the token of each code.
+	 * Filled once by Parser.setGrammar, read-only after freeze.
+	 */
+	private static Map<String, Integer> codes = new HashMap<String, Integer>();
 
-	public static HashMap<Integer, String> tokens = new HashMap<Integer, String>();
+	private static Map<Integer, String> tokens = new HashMap<Integer, String>();
 
 	public static void addCode(String token, int code)
 	{
@@ -15,6 +21,15 @@ public class IntegerCodes
 		tokens.put(code, token);
 	}
 
+	/**
+	 * Makes the codes read-only. Called once every code is added, addCode throws after this.
+	 */
+	public static void freeze()
+	{
+		codes = Collections.unmodifiableMap(codes);
+		tokens = Collections.unmodifiableMap(tokens);
+	}
+
 	public static int findCode(String token)
 	{
 		return codes.get(token);
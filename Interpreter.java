@@ -0,0 +1,742 @@
+package Interpreter;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.Arrays;
+
+import Parser.SyntaxTree;
+import Utilities.SymbolTable;
+import Utilities.Token;
+
+/**
+ * Runs a parsed Mini-LOL program by walking its syntax tree.
+ * Every identifier and constant has a slot, its symbol id in the SymbolTable. Values are kept in one primitive array
+ * per type (int for NUMBR, double for NUMBAR, boolean for TROOF) next to a type tag, nothing is ever boxed.
+ * Constants are parsed into their slots once, before the program starts.
+ * Expressions leave their value in result registers instead of returning an object.
+ *
+ * Semantics:
+ *   I HAS A x ITZ A type   declares x with a fixed type, assignments to it are cast to that type
+ *   x R expr               assigns, an undeclared x takes the type of the value
+ *   NUMBR op NUMBR is a NUMBR (QUOSHUNT truncates), any NUMBAR makes the result a NUMBAR, a TROOF operand counts as 1 or 0
+ *   a variable on its own is an <arith> too, but keeps its type: a TROOF variable is a TROOF and not 1 or 0
+ *   BOTH SAEM / DIFFRINT   compare numbers by value and TROOFs with TROOFs, a number never equals a TROOF
+ *   WTF? / OMG             run every arm from the first matching one on until GTFO (fall through)
+ *   GTFO                   leaves the loop, WTF? or function it is in
+ *   HOW IZ I / I IZ        functions are known before the program starts, arguments are passed by value into the
+ *                          parameter slots, which get their old values back when the function returns
+ * @author kobypascual
+ *
+ */
+public final class Interpreter
+{
+	////////////////////
+	// Types
+	////////////////////
+
+	public static final byte NOOB = 0;
+	public static final byte NUMBR = 1;
+	public static final byte NUMBAR = 2;
+	public static final byte TROOF = 3;
+
+	////////////////////
+	// Completions - how a statement finished
+	////////////////////
+
+	private static final int NORMAL = 0;
+	private static final int BREAK = 1;
+	private static final int RETURN = 2;
+
+	/**
+	 * Program being run
+	 */
+	private final SyntaxTree tree;
+
+	/**
+	 * Symbols of the program, slot names come from here
+	 */
+	private final SymbolTable symbols;
+
+	/**
+	 * Where GIMMEH reads from
+	 */
+	private final BufferedReader in;
+
+	/**
+	 * Where VISIBLE writes to
+	 */
+	private final PrintStream out;
+
+	////////////////////
+	// Slots - indexed by symbol id
+	////////////////////
+
+	/**
+	 * Type of the value in each slot, NOOB if it has none
+	 */
+	private final byte[] types;
+
+	/**
+	 * Declared type of each slot, NOOB if it was never declared
+	 */
+	private final byte[] declared;
+
+	/**
+	 * NUMBR values
+	 */
+	private final int[] numbrs;
+
+	/**
+	 * NUMBAR values
+	 */
+	private final double[] numbars;
+
+	/**
+	 * TROOF values
+	 */
+	private final boolean[] troofs;
+
+	/**
+	 * Function node of each slot, -1 if no function has that name
+	 */
+	private final int[] functions;
+
+	////////////////////
+	// Result Registers - value of the last expression
+	////////////////////
+
+	private byte resultType = NOOB;
+	private double resultNumber = 0;
+	private boolean resultTroof = false;
+
+	/**
+	 * Type of the last arithmetic result, NUMBR or NUMBAR
+	 */
+	private byte arithType = NUMBR;
+
+	////////////////////
+	// Call Frames - saved parameter slots, pushed and popped with each call
+	////////////////////
+
+	private byte[] frameTypes = new byte[64];
+	private byte[] frameDeclared = new byte[64];
+	private int[] frameNumbrs = new int[64];
+	private double[] frameNumbars = new double[64];
+	private boolean[] frameTroofs = new boolean[64];
+	private int frameTop = 0;
+
+	/**
+	 * Number of statements executed
+	 */
+	private long statements = 0;
+
+	/**
+	 * Interpreter Constructor.
+	 * @param tree
+	 * @param symbols
+	 * @param in
+	 * @param out
+	 */
+	public Interpreter(SyntaxTree tree, SymbolTable symbols, BufferedReader in, PrintStream out)
+	{
+		this.tree = tree;
+		this.symbols = symbols;
+		this.in = in;
+		this.out = out;
+
+		int size = symbols.size();
+		types = new byte[size];
+		declared = new byte[size];
+		numbrs = new int[size];
+		numbars = new double[size];
+		troofs = new boolean[size];
+		functions = new int[size];
+		Arrays.fill(functions, -1);
+
+		// Constants get their values once, up front
+		for(int id = 0; id < size; id++)
+		{
+			Token token = symbols.get(id);
+			if(token.getType().equals("constant")) setConstant(id, token.getName());
+		}
+
+		// Functions can be called before the statement that defines them
+		for(int node = 0; node < tree.size(); node++)
+		{
+			if(tree.kind(node) == SyntaxTree.FUNCTION && tree.childCount(node) > 0)
+				functions[tree.symbol(tree.child(node, 0))] = node;
+		}
+	}
+
+	///////////////////////////
+	// Public - Utilities
+	///////////////////////////
+
+	/**
+	 * Runs the program from HAI to KTHXBYE (or a top level GTFO / FOUND YR)
+	 */
+	public void run()
+	{
+		try
+		{
+			int root = tree.root();
+			if(tree.childCount(root) > 0) execBody(tree.child(root, 0));
+		}
+		finally
+		{
+			out.flush();
+		}
+	}
+
+	/**
+	 * Returns the number of statements executed
+	 * @return
+	 */
+	public long getStatements()
+	{
+		return statements;
+	}
+
+	/**
+	 * Returns the type of the value in a slot
+	 * @param slot
+	 * @return
+	 */
+	public byte typeOf(int slot)
+	{
+		return types[slot];
+	}
+
+	///////////////////////////
+	// Statements
+	///////////////////////////
+
+	/**
+	 * Runs every statement of a <body> chain
+	 * @param body
+	 * @return how the body finished
+	 */
+	private int execBody(int body)
+	{
+		while(tree.childCount(body) > 0)
+		{
+			int completion = execStmt(tree.child(body, 0));
+			if(completion != NORMAL) return completion;
+			body = tree.child(body, 1);
+		}
+		return NORMAL;
+	}
+
+	/**
+	 * Runs one <stmt>
+	 * @param stmt
+	 * @return how the statement finished
+	 */
+	private int execStmt(int stmt)
+	{
+		statements++;
+		int node = tree.child(stmt, 0);
+
+		switch(tree.kind(node))
+		{
+			case SyntaxTree.INPUT:
+				input(tree.child(node, 0));
+				return NORMAL;
+
+			case SyntaxTree.OUTPUT:
+				output(tree.child(node, 0));
+				return NORMAL;
+
+			case SyntaxTree.DECL:
+				declare(tree.symbol(tree.child(node, 0)), tree.rule(tree.child(node, 1)));
+				return NORMAL;
+
+			case SyntaxTree.ASMT:
+				evalExpr(tree.child(node, 1));
+				store(tree.symbol(tree.child(node, 0)));
+				return NORMAL;
+
+			case SyntaxTree.LOOP:
+				return loop(node);
+
+			case SyntaxTree.IF:
+				return execBody(evalBool(tree.child(node, 0)) ? tree.child(node, 1) : tree.child(node, 2));
+
+			case SyntaxTree.CASE:
+				return switchCase(node);
+
+			case SyntaxTree.RETURN:
+				if(tree.rule(node) == 'b') return BREAK;	// GTFO
+				evalExpr(tree.child(node, 0));				// FOUND YR
+				return RETURN;
+
+			case SyntaxTree.FUNCTION:
+				return NORMAL; // already known
+
+			case SyntaxTree.CALL:
+				call(node);
+				return NORMAL;
+		}
+		throw new ExecutionError(tree.line(node), "can not run " + tree.kind(node));
+	}
+
+	/**
+	 * IM IN YR label WILE <bool> <body> IM OUTTA YR label
+	 * @param loop
+	 * @return
+	 */
+	private int loop(int loop)
+	{
+		int condition = tree.child(loop, 1);
+		int body = tree.child(loop, 2);
+		while(evalBool(condition))
+		{
+			int completion = execBody(body);
+			if(completion == BREAK) break;
+			if(completion == RETURN) return RETURN;
+		}
+		return NORMAL;
+	}
+
+	/**
+	 * WTF? <expr> <omgs> OIC. Runs the arms from the first one equal to the value on, until GTFO.
+	 * @param node
+	 * @return
+	 */
+	private int switchCase(int node)
+	{
+		evalExpr(tree.child(node, 0));
+		byte type = resultType;
+		double number = resultNumber;
+		boolean troof = resultTroof;
+
+		boolean matched = false;
+		for(int omgs = tree.child(node, 1); tree.childCount(omgs) > 0; omgs = tree.child(omgs, 1))
+		{
+			int omg = tree.child(omgs, 0);
+			if(!matched)
+			{
+				evalValue(tree.child(omg, 0));
+				matched = same(type, number, troof);
+			}
+			if(matched)
+			{
+				int completion = execBody(tree.child(omg, 1));
+				if(completion == BREAK) return NORMAL;
+				if(completion == RETURN) return RETURN;
+			}
+		}
+		return NORMAL;
+	}
+
+	/**
+	 * I IZ name <args> MKAY. Arguments are copied into the parameter slots, which are restored afterwards.
+	 * @param node
+	 */
+	private void call(int node)
+	{
+		int nameSlot = tree.symbol(tree.child(node, 0));
+		int function = functions[nameSlot];
+		if(function < 0) throw new ExecutionError(tree.line(node), "no function named " + name(nameSlot));
+
+		int params = tree.child(function, 1);
+		int args = tree.child(node, 1);
+		int count = count(args);
+		if(count != count(params))
+			throw new ExecutionError(tree.line(node), name(nameSlot) + " takes " + count(params) + " arguments, got " + count);
+
+		// Frame holds the argument values first, then the old parameter values
+		int base = frameTop;
+		ensureFrame(base + 2 * count);
+		for(int arg = args; tree.childCount(arg) > 0; arg = tree.child(arg, 1))
+			save(tree.symbol(tree.child(tree.child(arg, 0), 0)));
+		for(int param = params; tree.childCount(param) > 0; param = tree.child(param, 1))
+			save(tree.symbol(tree.child(tree.child(param, 0), 0)));
+
+		// Bind, parameters take the type of their argument
+		int i = base;
+		for(int param = params; tree.childCount(param) > 0; param = tree.child(param, 1), i++)
+		{
+			int slot = tree.symbol(tree.child(tree.child(param, 0), 0));
+			restore(slot, i);
+			declared[slot] = NOOB;
+		}
+
+		try
+		{
+			execBody(tree.child(function, 2));
+		}
+		finally
+		{
+			// Parameters get their old values back
+			i = base + count;
+			for(int param = params; tree.childCount(param) > 0; param = tree.child(param, 1), i++)
+				restore(tree.symbol(tree.child(tree.child(param, 0), 0)), i);
+			frameTop = base;
+		}
+	}
+
+	/**
+	 * GIMMEH [id]. Reads one line and stores it as the declared type of the variable,
+	 * or as whatever it looks like if the variable has no type.
+	 * @param id
+	 */
+	private void input(int id)
+	{
+		int slot = tree.symbol(id);
+		out.flush();
+
+		String line;
+		try
+		{
+			line = in.readLine();
+		}
+		catch (IOException e)
+		{
+			throw new ExecutionError(tree.line(id), e.toString());
+		}
+		if(line == null) throw new ExecutionError(tree.line(id), "no input left for " + name(slot));
+		line = line.trim();
+
+		try
+		{
+			byte type = declared[slot];
+			if(type == NOOB) type = line.equals("WIN") || line.equals("FAIL") ? TROOF : line.indexOf('.') >= 0 ? NUMBAR : NUMBR;
+
+			if(type == TROOF)
+			{
+				resultType = TROOF;
+				resultTroof = line.equals("WIN");
+			}
+			else if(type == NUMBAR)
+			{
+				resultType = NUMBAR;
+				resultNumber = Double.parseDouble(line);
+			}
+			else
+			{
+				resultType = NUMBR;
+				resultNumber = Integer.parseInt(line);
+			}
+		}
+		catch (NumberFormatException e)
+		{
+			throw new ExecutionError(tree.line(id), "\"" + line + "\" is not a value for " + name(slot));
+		}
+		store(slot);
+	}
+
+	/**
+	 * VISIBLE <expr>
+	 * @param expr
+	 */
+	private void output(int expr)
+	{
+		switch(evalExpr(expr))
+		{
+			case NUMBR: out.println((int) resultNumber); break;
+			case NUMBAR: out.println(resultNumber); break;
+			default: out.println(resultTroof ? "WIN" : "FAIL"); break;
+		}
+	}
+
+	/**
+	 * I HAS A [id] ITZ A <type>. The variable starts out as 0, 0.0 or FAIL.
+	 * @param slot
+	 * @param rule
+	 */
+	private void declare(int slot, char rule)
+	{
+		byte type = rule == 'a' ? NUMBR : rule == 'b' ? NUMBAR : TROOF;
+		declared[slot] = type;
+		types[slot] = type;
+		numbrs[slot] = 0;
+		numbars[slot] = 0;
+		troofs[slot] = false;
+	}
+
+	///////////////////////////
+	// Expressions
+	///////////////////////////
+
+	/**
+	 * Evaluates an <expr> into the result registers
+	 * @param expr
+	 * @return the type of the result
+	 */
+	private byte evalExpr(int expr)
+	{
+		int node = tree.child(expr, 0);
+		if(tree.kind(node) == SyntaxTree.BOOL)
+		{
+			resultTroof = evalBool(node);
+			resultType = TROOF;
+		}
+		else if(tree.rule(node) == 'e' && types[tree.symbol(tree.child(node, 0))] == TROOF)
+		{
+			// A TROOF variable on its own stays a TROOF, only operators read it as 1 or 0
+			resultTroof = troofs[tree.symbol(tree.child(node, 0))];
+			resultType = TROOF;
+		}
+		else
+		{
+			resultNumber = evalArith(node);
+			resultType = arithType;
+		}
+		return resultType;
+	}
+
+	/**
+	 * Evaluates an <arith>. The type of the result is left in arithType.
+	 * @param node
+	 * @return
+	 */
+	private double evalArith(int node)
+	{
+		switch(tree.rule(node))
+		{
+			case 'e':	// [id]
+			case 'f':	// [const]
+				return load(tree.child(node, 0));
+		}
+
+		double left = evalArith(tree.child(node, 0));
+		byte leftType = arithType;
+		double right = evalArith(tree.child(node, 1));
+
+		// Two NUMBRs make a NUMBR, with int overflow like Java
+		if(leftType == NUMBR && arithType == NUMBR)
+		{
+			int a = (int) left;
+			int b = (int) right;
+			switch(tree.rule(node))
+			{
+				case 'a': return a + b;		// SUM OF
+				case 'b': return a - b;		// DIFF OF
+				case 'c': return a * b;		// PRODUKT OF
+				default:					// QUOSHUNT OF
+					if(b == 0) throw new ExecutionError(tree.line(node), "division by zero");
+					return a / b;
+			}
+		}
+
+		arithType = NUMBAR;
+		switch(tree.rule(node))
+		{
+			case 'a': return left + right;
+			case 'b': return left - right;
+			case 'c': return left * right;
+			default: return left / right;
+		}
+	}
+
+	/**
+	 * Loads a variable or constant as a number. The type is left in arithType.
+	 * @param leaf
+	 * @return
+	 */
+	private double load(int leaf)
+	{
+		int slot = tree.symbol(leaf);
+		switch(types[slot])
+		{
+			case NUMBR:
+				arithType = NUMBR;
+				return numbrs[slot];
+			case NUMBAR:
+				arithType = NUMBAR;
+				return numbars[slot];
+			case TROOF:
+				arithType = NUMBR;
+				return troofs[slot] ? 1 : 0;
+		}
+		throw new ExecutionError(tree.line(leaf), name(slot) + " has no value");
+	}
+
+	/**
+	 * Evaluates a <bool>
+	 * @param node
+	 * @return
+	 */
+	private boolean evalBool(int node)
+	{
+		switch(tree.rule(node))
+		{
+			case 'a': return evalBool(tree.child(node, 0)) & evalBool(tree.child(node, 1));	// BOTH OF
+			case 'b': return evalBool(tree.child(node, 0)) | evalBool(tree.child(node, 1));	// EITHER OF
+			case 'c': return !evalBool(tree.child(node, 0));									// NOT
+			case 'd': return evalComp(tree.child(node, 0));										// <comp>
+			case 'e': return true;																// WIN
+			default: return false;																// FAIL
+		}
+	}
+
+	/**
+	 * Evaluates a <comp>, BOTH SAEM (rule a) or DIFFRINT (rule b)
+	 * @param node
+	 * @return
+	 */
+	private boolean evalComp(int node)
+	{
+		evalExpr(tree.child(node, 0));
+		byte type = resultType;
+		double number = resultNumber;
+		boolean troof = resultTroof;
+
+		evalExpr(tree.child(node, 1));
+		boolean same = same(type, number, troof);
+		return tree.rule(node) == 'a' ? same : !same;
+	}
+
+	/**
+	 * Evaluates the <value> of an OMG arm into the result registers
+	 * @param node
+	 */
+	private void evalValue(int node)
+	{
+		switch(tree.rule(node))
+		{
+			case 'a':
+				resultNumber = load(tree.child(node, 0));
+				resultType = arithType;
+				break;
+			default:
+				resultType = TROOF;
+				resultTroof = tree.rule(node) == 'b'; // WIN, FAIL
+				break;
+		}
+	}
+
+	/**
+	 * Returns true if the given value equals the result registers
+	 * @param type
+	 * @param number
+	 * @param troof
+	 * @return
+	 */
+	private boolean same(byte type, double number, boolean troof)
+	{
+		if(type == TROOF || resultType == TROOF) return type == resultType && troof == resultTroof;
+		return number == resultNumber;
+	}
+
+	///////////////////////////
+	// Slots
+	///////////////////////////
+
+	/**
+	 * Stores the result registers in a slot, cast to the slot's declared type if it has one
+	 * @param slot
+	 */
+	private void store(int slot)
+	{
+		byte type = declared[slot] == NOOB ? resultType : declared[slot];
+		types[slot] = type;
+		switch(type)
+		{
+			case NUMBR:
+				numbrs[slot] = resultType == TROOF ? (resultTroof ? 1 : 0) : (int) resultNumber;
+				break;
+			case NUMBAR:
+				numbars[slot] = resultType == TROOF ? (resultTroof ? 1 : 0) : resultNumber;
+				break;
+			case TROOF:
+				troofs[slot] = resultType == TROOF ? resultTroof : resultNumber != 0;
+				break;
+		}
+	}
+
+	/**
+	 * Parses a constant into its slot. Whole numbers are NUMBRs unless they do not fit in one.
+	 * @param slot
+	 * @param text
+	 */
+	private void setConstant(int slot, String text)
+	{
+		if(text.indexOf('.') < 0)
+		{
+			try
+			{
+				numbrs[slot] = Integer.parseInt(text);
+				types[slot] = NUMBR;
+				return;
+			}
+			catch (NumberFormatException e)
+			{
+				// Too large for a NUMBR
+			}
+		}
+		numbars[slot] = Double.parseDouble(text);
+		types[slot] = NUMBAR;
+	}
+
+	/**
+	 * Pushes the value of a slot onto the call frames
+	 * @param slot
+	 */
+	private void save(int slot)
+	{
+		frameTypes[frameTop] = types[slot];
+		frameDeclared[frameTop] = declared[slot];
+		frameNumbrs[frameTop] = numbrs[slot];
+		frameNumbars[frameTop] = numbars[slot];
+		frameTroofs[frameTop] = troofs[slot];
+		frameTop++;
+	}
+
+	/**
+	 * Copies a saved value back into a slot
+	 * @param slot
+	 * @param index
+	 */
+	private void restore(int slot, int index)
+	{
+		types[slot] = frameTypes[index];
+		declared[slot] = frameDeclared[index];
+		numbrs[slot] = frameNumbrs[index];
+		numbars[slot] = frameNumbars[index];
+		troofs[slot] = frameTroofs[index];
+	}
+
+	/**
+	 * Makes room for the given number of saved values
+	 * @param size
+	 */
+	private void ensureFrame(int size)
+	{
+		if(size <= frameTypes.length) return;
+		int capacity = Math.max(size, frameTypes.length * 2);
+		frameTypes = Arrays.copyOf(frameTypes, capacity);
+		frameDeclared = Arrays.copyOf(frameDeclared, capacity);
+		frameNumbrs = Arrays.copyOf(frameNumbrs, capacity);
+		frameNumbars = Arrays.copyOf(frameNumbars, capacity);
+		frameTroofs = Arrays.copyOf(frameTroofs, capacity);
+	}
+
+	///////////////////////////
+	// Private - Utilities
+	///////////////////////////
+
+	/**
+	 * Returns the number of items in an <args> chain
+	 * @param args
+	 * @return
+	 */
+	private int count(int args)
+	{
+		int count = 0;
+		for(; tree.childCount(args) > 0; args = tree.child(args, 1)) count++;
+		return count;
+	}
+
+	/**
+	 * Returns the name of a slot
+	 * @param slot
+	 * @return
+	 */
+	private String name(int slot)
+	{
+		return symbols.get(slot).getName();
+	}
+}
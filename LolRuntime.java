@@ -0,0 +1,444 @@
+package Backend;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+
+import Interpreter.ExecutionError;
+import Interpreter.Interpreter;
+
+/**
+ * Support methods called by classes the BytecodeGenerator emits: reading GIMMEH input, printing VISIBLE output,
+ * reporting runtime errors and working on tagged values. Output is buffered and written out when the program ends or reads input.
+ * Same behaviour as the Interpreter.
+ *
+ * A tagged value is a value whose type is only known when the program runs, with its type in one long:
+ *   NUMBAR   the bits of the double, every NaN as the one Double.NaN
+ *   NUMBR    NUMBR_TAG with the int in the low 32 bits
+ *   TROOF    TROOF_TAG with 1 or 0 in the low bit
+ *   NOOB     NOOB_VALUE, a variable that has no value yet
+ * The tags are NaNs that doubleToLongBits never returns, so they can not be taken for a NUMBAR.
+ * Static class. Only one generated program runs at a time, the streams are shared.
+ * @author kobypascual
+ *
+ */
+public final class LolRuntime
+{
+	/**
+	 * Where GIMMEH reads from
+	 */
+	private static BufferedReader in = new BufferedReader(new InputStreamReader(System.in));
+
+	/**
+	 * Where VISIBLE writes to
+	 */
+	private static PrintStream out = new PrintStream(new BufferedOutputStream(new FileOutputStream(FileDescriptor.out), 1 << 16), false);
+
+	////////////////////
+	// Tagged Values
+	////////////////////
+
+	private static final long NUMBR_TAG = 0x7FF9000000000000L;
+	private static final long TROOF_TAG = 0x7FFA000000000000L;
+	private static final long TAG_MASK = 0xFFFF000000000000L;
+
+	/**
+	 * Tagged value of a variable that has no value
+	 */
+	public static final long NOOB_VALUE = 0x7FFB000000000000L;
+
+	////////////////////
+	// Operators of arith, in the order of the <arith> rules
+	////////////////////
+
+	public static final int SUM = 0;
+	public static final int DIFF = 1;
+	public static final int PRODUKT = 2;
+	public static final int QUOSHUNT = 3;
+
+	/**
+	 * Empty constructor for LolRuntime. Private since this class is static.
+	 * Constructor will never be called.
+	 */
+	private LolRuntime() {}
+
+	///////////////////////////
+	// Public - Setup
+	///////////////////////////
+
+	/**
+	 * Replaces the streams programs read from and write to
+	 * @param input
+	 * @param output
+	 */
+	public static void setStreams(BufferedReader input, PrintStream output)
+	{
+		in = input;
+		out = output;
+	}
+
+	///////////////////////////
+	// Public - Called By Generated Code
+	///////////////////////////
+
+	/**
+	 * Prints a NUMBR
+	 * @param value
+	 */
+	public static void printNumbr(int value)
+	{
+		out.println(value);
+	}
+
+	/**
+	 * Prints a NUMBAR
+	 * @param value
+	 */
+	public static void printNumbar(double value)
+	{
+		out.println(value);
+	}
+
+	/**
+	 * Prints a TROOF
+	 * @param value
+	 */
+	public static void printTroof(boolean value)
+	{
+		out.println(value ? "WIN" : "FAIL");
+	}
+
+	/**
+	 * Reads a NUMBR for GIMMEH
+	 * @param line
+	 * @param name
+	 * @return
+	 */
+	public static int readNumbr(int line, String name)
+	{
+		String text = readLine(line, name);
+		try
+		{
+			return Integer.parseInt(text);
+		}
+		catch (NumberFormatException e)
+		{
+			throw notAValue(line, text, name);
+		}
+	}
+
+	/**
+	 * Reads a NUMBAR for GIMMEH
+	 * @param line
+	 * @param name
+	 * @return
+	 */
+	public static double readNumbar(int line, String name)
+	{
+		String text = readLine(line, name);
+		try
+		{
+			return Double.parseDouble(text);
+		}
+		catch (NumberFormatException e)
+		{
+			throw notAValue(line, text, name);
+		}
+	}
+
+	/**
+	 * Reads a TROOF for GIMMEH
+	 * @param line
+	 * @param name
+	 * @return
+	 */
+	public static boolean readTroof(int line, String name)
+	{
+		return readLine(line, name).equals("WIN");
+	}
+
+	/**
+	 * Stops the program with a runtime error
+	 * @param line
+	 * @param message
+	 */
+	public static void fail(int line, String message)
+	{
+		throw new ExecutionError(line, message);
+	}
+
+	/**
+	 * QUOSHUNT OF two NUMBRs
+	 * @param a
+	 * @param b
+	 * @param line
+	 * @return
+	 */
+	public static int quoshunt(int a, int b, int line)
+	{
+		if(b == 0) throw new ExecutionError(line, "division by zero");
+		return a / b;
+	}
+
+	///////////////////////////
+	// Public - Tagged Values
+	///////////////////////////
+
+	/**
+	 * Tags a NUMBR
+	 * @param value
+	 * @return
+	 */
+	public static long numbr(int value)
+	{
+		return NUMBR_TAG | (value & 0xFFFFFFFFL);
+	}
+
+	/**
+	 * Tags a NUMBAR
+	 * @param value
+	 * @return
+	 */
+	public static long numbar(double value)
+	{
+		return Double.doubleToLongBits(value);
+	}
+
+	/**
+	 * Tags a TROOF
+	 * @param value
+	 * @return
+	 */
+	public static long troof(boolean value)
+	{
+		return value ? TROOF_TAG | 1 : TROOF_TAG;
+	}
+
+	/**
+	 * Returns the type of a tagged value, with the type codes of the Interpreter
+	 * @param value
+	 * @return
+	 */
+	public static byte type(long value)
+	{
+		long tag = value & TAG_MASK;
+		if(tag == NUMBR_TAG) return Interpreter.NUMBR;
+		if(tag == TROOF_TAG) return Interpreter.TROOF;
+		if(value == NOOB_VALUE) return Interpreter.NOOB;
+		return Interpreter.NUMBAR;
+	}
+
+	/**
+	 * Returns the value of a variable, fails if it has none
+	 * @param value
+	 * @param line
+	 * @param name
+	 * @return
+	 */
+	public static long value(long value, int line, String name)
+	{
+		if(value == NOOB_VALUE) throw new ExecutionError(line, name + " has no value");
+		return value;
+	}
+
+	/**
+	 * Casts a tagged value to a NUMBR, the same way the Interpreter casts on assignment
+	 * @param value
+	 * @return
+	 */
+	public static int toNumbr(long value)
+	{
+		switch(type(value))
+		{
+			case Interpreter.NUMBAR: return (int) Double.longBitsToDouble(value);
+			default: return (int) value;	// NUMBR, TROOF as 1 or 0
+		}
+	}
+
+	/**
+	 * Casts a tagged value to a NUMBAR
+	 * @param value
+	 * @return
+	 */
+	public static double toNumbar(long value)
+	{
+		switch(type(value))
+		{
+			case Interpreter.NUMBAR: return Double.longBitsToDouble(value);
+			default: return (int) value;
+		}
+	}
+
+	/**
+	 * Casts a tagged value to a TROOF
+	 * @param value
+	 * @return
+	 */
+	public static boolean toTroof(long value)
+	{
+		switch(type(value))
+		{
+			case Interpreter.NUMBAR: return Double.longBitsToDouble(value) != 0;
+			default: return (int) value != 0;
+		}
+	}
+
+	/**
+	 * Casts a tagged value to the declared type of the variable it is stored in, NOOB if it has none
+	 * @param value
+	 * @param declared
+	 * @return
+	 */
+	public static long cast(long value, int declared)
+	{
+		switch(declared)
+		{
+			case Interpreter.NUMBR: return numbr(toNumbr(value));
+			case Interpreter.NUMBAR: return numbar(toNumbar(value));
+			case Interpreter.TROOF: return troof(toTroof(value));
+			default: return value;
+		}
+	}
+
+	/**
+	 * SUM OF, DIFF OF, PRODUKT OF or QUOSHUNT OF two tagged values. A TROOF counts as 1 or 0,
+	 * two NUMBRs make a NUMBR with int overflow and anything with a NUMBAR makes a NUMBAR.
+	 * @param a
+	 * @param b
+	 * @param operator
+	 * @param line
+	 * @return
+	 */
+	public static long arith(long a, long b, int operator, int line)
+	{
+		if(type(a) != Interpreter.NUMBAR && type(b) != Interpreter.NUMBAR)
+		{
+			int x = (int) a;
+			int y = (int) b;
+			switch(operator)
+			{
+				case SUM: return numbr(x + y);
+				case DIFF: return numbr(x - y);
+				case PRODUKT: return numbr(x * y);
+				default: return numbr(quoshunt(x, y, line));
+			}
+		}
+
+		double x = toNumbar(a);
+		double y = toNumbar(b);
+		switch(operator)
+		{
+			case SUM: return numbar(x + y);
+			case DIFF: return numbar(x - y);
+			case PRODUKT: return numbar(x * y);
+			default: return numbar(x / y);
+		}
+	}
+
+	/**
+	 * BOTH SAEM of two tagged values: numbers by value, TROOFs with TROOFs, a number never equals a TROOF
+	 * @param a
+	 * @param b
+	 * @return
+	 */
+	public static boolean same(long a, long b)
+	{
+		boolean troofA = type(a) == Interpreter.TROOF;
+		boolean troofB = type(b) == Interpreter.TROOF;
+		if(troofA || troofB) return a == b;
+		return toNumbar(a) == toNumbar(b);
+	}
+
+	/**
+	 * Prints a tagged value
+	 * @param value
+	 */
+	public static void print(long value)
+	{
+		switch(type(value))
+		{
+			case Interpreter.NUMBR: printNumbr((int) value); break;
+			case Interpreter.NUMBAR: printNumbar(Double.longBitsToDouble(value)); break;
+			default: printTroof(toTroof(value)); break;
+		}
+	}
+
+	/**
+	 * Reads a value for GIMMEH as the declared type of the variable,
+	 * or as whatever it looks like if the variable has no type
+	 * @param line
+	 * @param name
+	 * @param declared
+	 * @return
+	 */
+	public static long read(int line, String name, int declared)
+	{
+		String text = readLine(line, name);
+		int type = declared;
+		if(type == Interpreter.NOOB)
+			type = text.equals("WIN") || text.equals("FAIL") ? Interpreter.TROOF : text.indexOf('.') >= 0 ? Interpreter.NUMBAR : Interpreter.NUMBR;
+
+		try
+		{
+			switch(type)
+			{
+				case Interpreter.TROOF: return troof(text.equals("WIN"));
+				case Interpreter.NUMBAR: return numbar(Double.parseDouble(text));
+				default: return numbr(Integer.parseInt(text));
+			}
+		}
+		catch (NumberFormatException e)
+		{
+			throw notAValue(line, text, name);
+		}
+	}
+
+	/**
+	 * Writes out everything that was printed
+	 */
+	public static void flush()
+	{
+		out.flush();
+	}
+
+	///////////////////////////
+	// Private - Utilities
+	///////////////////////////
+
+	/**
+	 * Reads one trimmed line of input
+	 * @param line
+	 * @param name
+	 * @return
+	 */
+	private static String readLine(int line, String name)
+	{
+		out.flush();
+		try
+		{
+			String text = in.readLine();
+			if(text == null) throw new ExecutionError(line, "no input left for " + name);
+			return text.trim();
+		}
+		catch (IOException e)
+		{
+			throw new ExecutionError(line, e.toString());
+		}
+	}
+
+	/**
+	 * Error for input that is not a value of the variable's type
+	 * @param line
+	 * @param text
+	 * @param name
+	 * @return
+	 */
+	private static ExecutionError notAValue(int line, String text, String name)
+	{
+		return new ExecutionError(line, "\"" + text + "\" is not a value for " + name);
+	}
+}
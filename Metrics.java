@@ -0,0 +1,224 @@
+package Utilities;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+import Driver.CompilationContext;
+
+/**
+ * Where the time and memory of one compilation went, phase by phase, and how much work it did.
+ * Phases:
+ *   READ       mapping the source file
+ *   SCAN       the scanner. It runs inside the parse loop once per token, so it is only timed on its own
+ *              if the context's timeScanner is set, timing every token costs about as much as scanning it. Otherwise it is part of PARSE.
+ *   PARSE      the parse loop, without SCAN when that is timed on its own
+ *   OPTIMIZE   ConstantFolder and DeadCodeEliminator
+ * Every phase has its wall time and the bytes the compiling thread allocated during it, 0 where the JVM can not
+ * count allocations. Counters: characters read, tokens, PDA steps, symbols, symbol table lookups and the hash slots they probed.
+ * Finished metrics are added to the MetricsRegistry.
+ * @author kobypascual
+ *
+ */
+public final class Metrics
+{
+	public static final int READ = 0;
+	public static final int SCAN = 1;
+	public static final int PARSE = 2;
+	public static final int OPTIMIZE = 3;
+
+	/**
+	 * Names of the phases, indexed by phase
+	 */
+	public static final String[] PHASES = {"read", "scan", "parse", "optimize"};
+
+	/**
+	 * Counts the bytes each thread allocates, null if this JVM can not
+	 */
+	private static final com.sun.management.ThreadMXBean THREADS = allocationCounter();
+
+	////////////////////
+	// Phases - totals, and where the phase started
+	////////////////////
+
+	private final long[] nanos = new long[PHASES.length];
+	private final long[] allocated = new long[PHASES.length];
+	private final long[] startNanos = new long[PHASES.length];
+	private final long[] startAllocated = new long[PHASES.length];
+
+	////////////////////
+	// Counters
+	////////////////////
+
+	private long chars;
+	private long tokens;
+	private long steps;
+	private long symbols;
+	private long lookups;
+	private long probes;
+
+	///////////////////////////
+	// Public - Mutators
+	///////////////////////////
+
+	/**
+	 * Starts timing a phase
+	 * @param phase
+	 */
+	public void begin(int phase)
+	{
+		startAllocated[phase] = allocatedBytes();
+		startNanos[phase] = System.nanoTime();
+	}
+
+	/**
+	 * Stops timing a phase, the time since begin is added to it
+	 * @param phase
+	 */
+	public void end(int phase)
+	{
+		nanos[phase] += System.nanoTime() - startNanos[phase];
+		allocated[phase] += allocatedBytes() - startAllocated[phase];
+	}
+
+	/**
+	 * Takes the counters from a finished compilation
+	 * @param context
+	 */
+	public void collect(CompilationContext context)
+	{
+		chars = context.file.length();
+		tokens = context.scanner.getTokenCount();
+		steps = context.parser.getSteps();
+		symbols = context.symbolTable.size();
+		lookups = context.symbolTable.getLookups();
+		probes = context.symbolTable.getProbes();
+	}
+
+	///////////////////////////
+	// Public - Accessors
+	///////////////////////////
+
+	/**
+	 * Returns the wall time of a phase in nanoseconds
+	 * @param phase
+	 * @return
+	 */
+	public long getNanos(int phase)
+	{
+		return phase == PARSE ? nanos[PARSE] - nanos[SCAN] : nanos[phase];
+	}
+
+	/**
+	 * Returns the bytes allocated during a phase
+	 * @param phase
+	 * @return
+	 */
+	public long getAllocated(int phase)
+	{
+		return phase == PARSE ? allocated[PARSE] - allocated[SCAN] : allocated[phase];
+	}
+
+	/**
+	 * Returns the number of characters read
+	 * @return
+	 */
+	public long getChars()
+	{
+		return chars;
+	}
+
+	/**
+	 * Returns the number of tokens scanned
+	 * @return
+	 */
+	public long getTokens()
+	{
+		return tokens;
+	}
+
+	/**
+	 * Returns the number of steps the PDA took
+	 * @return
+	 */
+	public long getSteps()
+	{
+		return steps;
+	}
+
+	/**
+	 * Returns the number of symbols in the symbol table
+	 * @return
+	 */
+	public long getSymbols()
+	{
+		return symbols;
+	}
+
+	/**
+	 * Returns the number of symbol table lookups
+	 * @return
+	 */
+	public long getLookups()
+	{
+		return lookups;
+	}
+
+	/**
+	 * Returns the number of hash slots the symbol table lookups probed
+	 * @return
+	 */
+	public long getProbes()
+	{
+		return probes;
+	}
+
+	/**
+	 * Returns the metrics as one line of JSON
+	 * @return
+	 */
+	public String toJson()
+	{
+		StringBuilder json = new StringBuilder("{");
+		json.append("\"chars\":").append(chars);
+		json.append(",\"tokens\":").append(tokens);
+		json.append(",\"steps\":").append(steps);
+		json.append(",\"symbols\":").append(symbols);
+		json.append(",\"symbolLookups\":").append(lookups);
+		json.append(",\"symbolProbes\":").append(probes);
+		json.append(",\"phases\":{");
+		for(int phase = 0; phase < PHASES.length; phase++)
+		{
+			if(phase > 0) json.append(',');
+			json.append('"').append(PHASES[phase]).append("\":{\"nanos\":").append(getNanos(phase))
+				.append(",\"allocatedBytes\":").append(getAllocated(phase)).append('}');
+		}
+		return json.append("}}").toString();
+	}
+
+	///////////////////////////
+	// Private - Utilities
+	///////////////////////////
+
+	/**
+	 * Returns the bytes the current thread allocated so far, 0 if they can not be counted
+	 * @return
+	 */
+	private static long allocatedBytes()
+	{
+		return THREADS == null ? 0 : THREADS.getCurrentThreadAllocatedBytes();
+	}
+
+	/**
+	 * Returns the HotSpot thread bean if it counts allocated bytes
+	 * @return
+	 */
+	private static com.sun.management.ThreadMXBean allocationCounter()
+	{
+		ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+		if(!(threads instanceof com.sun.management.ThreadMXBean)) return null;
+
+		com.sun.management.ThreadMXBean counter = (com.sun.management.ThreadMXBean) threads;
+		if(!counter.isThreadAllocatedMemorySupported() || !counter.isThreadAllocatedMemoryEnabled()) return null;
+		return counter;
+	}
+}
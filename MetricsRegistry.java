@@ -0,0 +1,254 @@
+package Utilities;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Totals of the Metrics of every compilation in this process. Compilations on any thread add to it,
+ * every total is a LongAdder so they never wait for each other. While compilations are running the totals
+ * are read one at a time, so they can be a compilation apart from each other.
+ * register() makes the totals visible over JMX as LOLCompiler:type=Metrics.
+ * @author kobypascual
+ *
+ */
+public final class MetricsRegistry implements MetricsRegistryMBean
+{
+	/**
+	 * Name of the MBean
+	 */
+	public static final String NAME = "LOLCompiler:type=Metrics";
+
+	/**
+	 * The registry of this process
+	 */
+	private static final MetricsRegistry REGISTRY = new MetricsRegistry();
+
+	private final LongAdder compilations = new LongAdder();
+	private final LongAdder accepted = new LongAdder();
+
+	////////////////////
+	// Counters
+	////////////////////
+
+	private final LongAdder chars = new LongAdder();
+	private final LongAdder tokens = new LongAdder();
+	private final LongAdder steps = new LongAdder();
+	private final LongAdder symbols = new LongAdder();
+	private final LongAdder lookups = new LongAdder();
+	private final LongAdder probes = new LongAdder();
+
+	////////////////////
+	// Phases, indexed by phase (see Metrics)
+	////////////////////
+
+	private final LongAdder[] nanos = adders(Metrics.PHASES.length);
+	private final LongAdder[] allocated = adders(Metrics.PHASES.length);
+
+	/**
+	 * Empty constructor for MetricsRegistry. Private, there is one registry per process.
+	 */
+	private MetricsRegistry() {}
+
+	///////////////////////////
+	// Public - Utilities
+	///////////////////////////
+
+	/**
+	 * Returns the registry of this process
+	 * @return
+	 */
+	public static MetricsRegistry get()
+	{
+		return REGISTRY;
+	}
+
+	/**
+	 * Registers the registry with the platform MBean server. Registering it again does nothing.
+	 */
+	public static void register()
+	{
+		try
+		{
+			ManagementFactory.getPlatformMBeanServer().registerMBean(REGISTRY, new ObjectName(NAME));
+		}
+		catch (InstanceAlreadyExistsException e)
+		{
+			// Registered already
+		}
+		catch (JMException e)
+		{
+			System.err.println("Metrics are not available over JMX: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Adds the metrics of a finished compilation
+	 * @param metrics
+	 * @param wasAccepted
+	 */
+	public void record(Metrics metrics, boolean wasAccepted)
+	{
+		compilations.increment();
+		if(wasAccepted) accepted.increment();
+
+		chars.add(metrics.getChars());
+		tokens.add(metrics.getTokens());
+		steps.add(metrics.getSteps());
+		symbols.add(metrics.getSymbols());
+		lookups.add(metrics.getLookups());
+		probes.add(metrics.getProbes());
+		for(int phase = 0; phase < Metrics.PHASES.length; phase++)
+		{
+			nanos[phase].add(metrics.getNanos(phase));
+			allocated[phase].add(metrics.getAllocated(phase));
+		}
+	}
+
+	///////////////////////////
+	// Public - MBean, see MetricsRegistryMBean
+	///////////////////////////
+
+	public long getCompilations()
+	{
+		return compilations.sum();
+	}
+
+	public long getAccepted()
+	{
+		return accepted.sum();
+	}
+
+	public long getFailed()
+	{
+		return compilations.sum() - accepted.sum();
+	}
+
+	public long getChars()
+	{
+		return chars.sum();
+	}
+
+	public long getTokens()
+	{
+		return tokens.sum();
+	}
+
+	public long getSteps()
+	{
+		return steps.sum();
+	}
+
+	public long getSymbols()
+	{
+		return symbols.sum();
+	}
+
+	public long getSymbolLookups()
+	{
+		return lookups.sum();
+	}
+
+	public long getSymbolProbes()
+	{
+		return probes.sum();
+	}
+
+	public long getReadNanos()
+	{
+		return nanos[Metrics.READ].sum();
+	}
+
+	public long getScanNanos()
+	{
+		return nanos[Metrics.SCAN].sum();
+	}
+
+	public long getParseNanos()
+	{
+		return nanos[Metrics.PARSE].sum();
+	}
+
+	public long getOptimizeNanos()
+	{
+		return nanos[Metrics.OPTIMIZE].sum();
+	}
+
+	public long getReadAllocatedBytes()
+	{
+		return allocated[Metrics.READ].sum();
+	}
+
+	public long getScanAllocatedBytes()
+	{
+		return allocated[Metrics.SCAN].sum();
+	}
+
+	public long getParseAllocatedBytes()
+	{
+		return allocated[Metrics.PARSE].sum();
+	}
+
+	public long getOptimizeAllocatedBytes()
+	{
+		return allocated[Metrics.OPTIMIZE].sum();
+	}
+
+	public String getSummary()
+	{
+		StringBuilder json = new StringBuilder("{");
+		json.append("\"compilations\":").append(getCompilations());
+		json.append(",\"accepted\":").append(getAccepted());
+		json.append(",\"failed\":").append(getFailed());
+		json.append(",\"chars\":").append(getChars());
+		json.append(",\"tokens\":").append(getTokens());
+		json.append(",\"steps\":").append(getSteps());
+		json.append(",\"symbols\":").append(getSymbols());
+		json.append(",\"symbolLookups\":").append(getSymbolLookups());
+		json.append(",\"symbolProbes\":").append(getSymbolProbes());
+		json.append(",\"phases\":{");
+		for(int phase = 0; phase < Metrics.PHASES.length; phase++)
+		{
+			if(phase > 0) json.append(',');
+			json.append('"').append(Metrics.PHASES[phase]).append("\":{\"nanos\":").append(nanos[phase].sum())
+				.append(",\"allocatedBytes\":").append(allocated[phase].sum()).append('}');
+		}
+		return json.append("}}").toString();
+	}
+
+	public void reset()
+	{
+		compilations.reset();
+		accepted.reset();
+		chars.reset();
+		tokens.reset();
+		steps.reset();
+		symbols.reset();
+		lookups.reset();
+		probes.reset();
+		for(int phase = 0; phase < Metrics.PHASES.length; phase++)
+		{
+			nanos[phase].reset();
+			allocated[phase].reset();
+		}
+	}
+
+	///////////////////////////
+	// Private - Utilities
+	///////////////////////////
+
+	/**
+	 * Returns count new adders
+	 * @param count
+	 * @return
+	 */
+	private static LongAdder[] adders(int count)
+	{
+		LongAdder[] adders = new LongAdder[count];
+		for(int i = 0; i < count; i++) adders[i] = new LongAdder();
+		return adders;
+	}
+}
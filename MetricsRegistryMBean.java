@@ -0,0 +1,42 @@
+package Utilities;
+
+/**
+ * JMX view of the MetricsRegistry. Times are in nanoseconds, allocations in bytes,
+ * all of them totals over every compilation since the process started or the last reset.
+ * @author kobypascual
+ *
+ */
+public interface MetricsRegistryMBean
+{
+	long getCompilations();
+	long getAccepted();
+	long getFailed();
+
+	long getChars();
+	long getTokens();
+	long getSteps();
+	long getSymbols();
+	long getSymbolLookups();
+	long getSymbolProbes();
+
+	long getReadNanos();
+	long getScanNanos();
+	long getParseNanos();
+	long getOptimizeNanos();
+
+	long getReadAllocatedBytes();
+	long getScanAllocatedBytes();
+	long getParseAllocatedBytes();
+	long getOptimizeAllocatedBytes();
+
+	/**
+	 * Returns the totals as one line of JSON
+	 * @return
+	 */
+	String getSummary();
+
+	/**
+	 * Sets every total back to 0
+	 */
+	void reset();
+}
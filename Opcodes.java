@@ -0,0 +1,144 @@
+package VM;
+
+/**
+ * Instruction set of the RegisterMachine.
+ * An instruction is one opcode word followed by its operand words. The opcode sits in the low 8 bits of the first word
+ * and the first operand (a register, a jump target, a function or a string) in its upper 24 bits, so most
+ * instructions take two or three ints.
+ *
+ *   HALT                         stop the program
+ *   DECL   reg, type             I HAS A: fix the type of reg and set it to 0, 0.0 or FAIL
+ *   STORE  dst, src              R: copy src into dst, cast to the declared type of dst if it has one
+ *   LOAD   dst, src              copy src, its type included, fails if src has no value
+ *   ADD    dst, a, b             SUM OF, and SUB (DIFF OF), MUL (PRODUKT OF), DIV (QUOSHUNT OF)
+ *   AND    dst, a, b             BOTH OF, and OR (EITHER OF)
+ *   NOT    dst, a
+ *   SAME   dst, a, b             BOTH SAEM, and DIFF (DIFFRINT)
+ *   JUMP   target
+ *   JUMPF  cond, target          jump if cond is FAIL
+ *   JSAME  a, b, target          jump if a and b are the same (WTF? arms)
+ *   PRINT  src                   VISIBLE
+ *   READ   dst                   GIMMEH
+ *   CALL   function, n, args..   I IZ: copy n argument registers into the parameters of the function and run it
+ *   RET                          back to the instruction after the CALL, parameters get their old values back
+ *   FAIL   string                runtime error with a message from the string table
+ * @author kobypascual
+ *
+ */
+public final class Opcodes
+{
+	public static final int HALT = 0;
+	public static final int DECL = 1;
+	public static final int STORE = 2;
+	public static final int LOAD = 3;
+	public static final int ADD = 4;
+	public static final int SUB = 5;
+	public static final int MUL = 6;
+	public static final int DIV = 7;
+	public static final int AND = 8;
+	public static final int OR = 9;
+	public static final int NOT = 10;
+	public static final int SAME = 11;
+	public static final int DIFF = 12;
+	public static final int JUMP = 13;
+	public static final int JUMPF = 14;
+	public static final int JSAME = 15;
+	public static final int PRINT = 16;
+	public static final int READ = 17;
+	public static final int CALL = 18;
+	public static final int RET = 19;
+	public static final int FAIL = 20;
+
+	/**
+	 * Largest value of the operand packed into the opcode word
+	 */
+	public static final int MAX_OPERAND = (1 << 24) - 1;
+
+	/**
+	 * Name of each opcode
+	 */
+	private static final String[] NAMES = {
+			"HALT", "DECL", "STORE", "LOAD", "ADD", "SUB", "MUL", "DIV", "AND", "OR", "NOT", "SAME", "DIFF",
+			"JUMP", "JUMPF", "JSAME", "PRINT", "READ", "CALL", "RET", "FAIL" };
+
+	/**
+	 * Number of words of each instruction, CALL adds one per argument
+	 */
+	private static final int[] LENGTHS = {
+			1, 2, 2, 2, 3, 3, 3, 3, 3, 3, 2, 3, 3,
+			1, 2, 3, 1, 1, 2, 1, 1 };
+
+	/**
+	 * Empty constructor for Opcodes. Private since this class is static.
+	 * Constructor will never be called.
+	 */
+	private Opcodes() {}
+
+	///////////////////////////
+	// Public - Utilities
+	///////////////////////////
+
+	/**
+	 * Builds the first word of an instruction
+	 * @param opcode
+	 * @param operand
+	 * @return
+	 */
+	public static int word(int opcode, int operand)
+	{
+		if(operand < 0 || operand > MAX_OPERAND) throw new IllegalStateException("operand " + operand + " does not fit in 24 bits");
+		return opcode | (operand << 8);
+	}
+
+	/**
+	 * Returns the opcode of an instruction word
+	 * @param word
+	 * @return
+	 */
+	public static int opcode(int word)
+	{
+		return word & 0xFF;
+	}
+
+	/**
+	 * Returns the operand packed into an instruction word
+	 * @param word
+	 * @return
+	 */
+	public static int operand(int word)
+	{
+		return word >>> 8;
+	}
+
+	/**
+	 * Returns true if the opcode exists
+	 * @param opcode
+	 * @return
+	 */
+	public static boolean isValid(int opcode)
+	{
+		return opcode >= 0 && opcode < NAMES.length;
+	}
+
+	/**
+	 * Returns the name of an opcode
+	 * @param opcode
+	 * @return
+	 */
+	public static String name(int opcode)
+	{
+		return NAMES[opcode];
+	}
+
+	/**
+	 * Returns the number of words of the instruction at pc
+	 * @param code
+	 * @param pc
+	 * @return
+	 */
+	public static int length(int[] code, int pc)
+	{
+		int opcode = opcode(code[pc]);
+		return opcode == CALL ? LENGTHS[CALL] + code[pc + 1] : LENGTHS[opcode];
+	}
+}
@@ -1,21 +1,49 @@
 package Parser;
 
 import java.util.ArrayList;
-import java.util.Stack;
 
-import Driver.Compiler;
+import Driver.CompilationContext;
 import Scanner.IntegerCodes;
 import Scanner.Scanner;
+import Utilities.CompilerEvents;
+import Utilities.IntStack;
 import Utilities.Rule;
 import Utilities.Rules;
+import Utilities.Trace;
 
 
+/**
+ * LL(1) parser of one compilation. Drives a PDA over the grammar tables, which are built once and shared by every parser.
+ * A syntax error does not stop it: the parser recovers in panic mode (see recover) and goes on, so one parse finds every error.
+ * @author kobypascual
+ *
+ */
 public final class Parser
 {
+	/**
+	 * True once the integer codes and the PDA are built
+	 */
+	private static boolean grammarSet = false;
+
+	/**
+	 * Compilation this parser belongs to
+	 */
+	private final CompilationContext context;
+
+	/**
+	 * Scanner that feeds this parser
+	 */
+	private Scanner scanner = null;
+
+	/**
+	 * Where the steps are traced, taken from the context when parsing starts
+	 */
+	private Trace trace = Trace.NONE;
+
 	/**
 	 * Stack that holds all the integer codes of terminal and non-terminals.
 	 */
-	private static Stack<Integer> stack = new Stack<Integer>();
+	private IntStack stack = new IntStack(64);
 
 	/**
 	 * Current state the compiler is in.
@@ -24,42 +52,139 @@ public final class Parser
 	 * 2 - accept
 	 * -1 - error
 	 */
-	private static int state = 0;
+	private int state = 0;
 
 	/**
 	 * Holds the amount of steps the parser has taken
 	 */
-	private static int steps = 0;
+	private int steps = 0;
+
+	/**
+	 * Syntax tree built while parsing, null if the context does not build one
+	 */
+	private SyntaxTree tree = null;
+
+	/**
+	 * Node of each symbol on the PDA stack, kept in step with the stack. -1 for symbols that get no node.
+	 */
+	private IntStack nodes = new IntStack(64);
+
+	/**
+	 * Kinds of the children of the node being expanded
+	 */
+	private int[] childKinds = new int[16];
+
+	/**
+	 * Syntax errors found, one line each
+	 */
+	private final ArrayList<String> errors = new ArrayList<String>();
 
 	/**
-	 * List that holds each token as they are consumed.
-	 * Not sure I need this, but use it for now.
+	 * True from a syntax error until the next terminal matches. Errors found meanwhile are caused by the first one
+	 * and are not reported.
 	 */
-	public static ArrayList<String> consumed = new ArrayList<String>();
+	private boolean recovering = false;
 
-	public static void parse()
+	////////////////////
+	// Error Recovery
+	////////////////////
+
+	private static final int KTHXBYE = 4;
+	private static final int SEMICOLON = 41;
+	private static final int LOL = 42;
+	private static final int BODY = 43;
+
+	/**
+	 * Terminals the parser synchronizes on after a syntax error, one bit per terminal: ';', the keywords that end
+	 * a block (OIC, KTHXBYE, NO WAI, IM OUTTA YR, OMG, IF U SAY SO) and the keywords that start a statement.
+	 */
+	private static final long SYNC = bits(SEMICOLON, 21, KTHXBYE, 20, 17, 23, 27, 5, 6, 7, 15, 18, 22, 24, 25, 26, 29);
+
+	/**
+	 * Parser Constructor.
+	 * @param context
+	 */
+	public Parser(CompilationContext context)
 	{
-		// First, create the integer codes for each terminal, non-terminal, start symbol, and special symbols
-		setIntegerCodes();
+		this.context = context;
+	}
 
-		// Second, turn the syntax rules into an equivalent PDA.
+	/**
+	 * Builds the shared grammar tables the first time any parser needs them.
+	 * First, create the integer codes for each terminal, non-terminal, start symbol, and special symbols.
+	 * Second, turn the syntax rules into an equivalent PDA.
+	 * Synchronized so a parser on any thread sees the finished tables, they are never changed afterwards.
+	 */
+	public static synchronized void setGrammar()
+	{
+		if(grammarSet) return;
+
+		setIntegerCodes();
 		setPDA();
+		grammarSet = true;
+	}
+
+	public void parse()
+	{
+		// First, make sure the integer codes and the PDA exist
+		setGrammar();
+		trace = context.trace;
 
 		// Next, push the start symbol onto the stack
 		stack.push(IntegerCodes.findCode("Z_o"));
 
-		if(Compiler.printParserFindings) System.out.println("Step: " + steps + " Stacktop: " + stack.peek() + " Lookahead: HAI use rule: " + 0 + " Action: Push <lol> (1)");
+		trace.start(steps, stack.peek());
 		steps++;
 
-		// Call the scanner so that it loads in the file to be scanned and parsed
+		// Call the scanner so that it loads in the file to be scanned and parsed while parsing
 		callScanner();
 
-		// Now begin parsing
+		// The tree refers to the scanner's tokens, Z_o gets no node
+		if(context.buildTree)
+		{
+			tree = new SyntaxTree(scanner.getTokens());
+			nodes.push(-1);
+		}
+
+		// Now begin parsing, recorded as a Parse event
+		CompilerEvents.Parse event = new CompilerEvents.Parse();
+		event.begin();
+		try
+		{
+			loop();
+		}
+		finally
+		{
+			if(event.shouldCommit())
+			{
+				event.fileName = context.fileName;
+				event.size = context.file.length();
+				event.tokens = scanner.getTokenCount();
+				event.steps = steps;
+				event.accepted = errors.isEmpty() && state == 2;
+				event.commit();
+			}
+		}
+
+		// The PDA always gets back to its start symbol, a program with syntax errors is not accepted
+		if(!errors.isEmpty())
+		{
+			updateState(-1);
+			return;
+		}
+		trace.accept(steps, stack.peek());
+	}
+
+	/**
+	 * Runs the PDA until it reaches its accept state
+	 */
+	private void loop()
+	{
 		// Do this loop at least once -- will start with start symbol on top -- end when it ses it on top again.
 		do
 		{
 			// Get stack top value
-			Integer peek = stack.peek();
+			int peek = stack.peek();
 
 			// We have a special situation if the peek value is the start symbol, 'Z_o'
 			if(peek == 0)
@@ -71,402 +196,77 @@ public final class Parser
 			// Get deterministic rule corresponding to this stack top symbol
 			Rule rule = getRule(peek);
 
+			// No rule means a syntax error
+			if(rule == null)
+			{
+				recover(peek);
+				continue;
+			}
+
 			// Execute the PDA transition given by the rule
 			executeRule(rule);
 
 		} while(state != 2);
+	}
+
+	/**
+	 * Returns the amount of steps the parser has taken
+	 * @return
+	 */
+	public int getSteps()
+	{
+		return steps;
+	}
+
+	/**
+	 * Returns the syntax errors found, one line each with its line number. Empty if there were none.
+	 * @return
+	 */
+	public ArrayList<String> getErrors()
+	{
+		return errors;
+	}
 
-		if(Compiler.printParserFindings) System.out.println("Step: " + steps + " Stacktop: " + stack.peek() + " Lookahead: null use rule: " + 0 + " Action: Accept");
+	/**
+	 * Returns the syntax tree, null if the context does not build one. It is incomplete if there were syntax errors.
+	 * @return
+	 */
+	public SyntaxTree getTree()
+	{
+		return tree;
+	}
+
+	/**
+	 * Returns true if the parser reached its accept state
+	 * @return
+	 */
+	public boolean isAccepted()
+	{
+		return state == 2;
 	}
 
 	////////////////////
 	// Scanner Call Functions
 	////////////////////
 
-	private static void callScanner()
+	/**
+	 * Hands the input file to the scanner. Nothing is scanned yet, the scanner produces
+	 * the next token only when the parser asks for the lookahead.
+	 */
+	private void callScanner()
 	{
-		// 2. Run the file through the scanner, one character at a time
-				//    Print each token as it is recognized, with its type and its line number.
-				//    If illegal token is found, print error message and line number (this happens in error handler)
-				String currentToken = "";
-				outerloop:
-				for(int currentLine = 0; currentLine < Compiler.file.size(); currentLine++)	// loop through each line in the input file
-				{
-					Compiler.linenumber = currentLine + 1; // update the current line number
-					for(int currentChar = 0; currentChar < Compiler.file.get(currentLine).length(); currentChar++)	// loop through each char in the current line
-					{
-						int status = Scanner.scan(Compiler.file.get(currentLine).charAt(currentChar)); // Call scanner, send it the current character
-
-						if(Scanner.whiteSpaceStatus())	// Current char is a whitespace
-							Scanner.resetToken();	// reset the Scanners current token
-						else if(Scanner.keywordStatus()) // Current char is a part of a keyword
-						{
-							if(status == 0)
-							{
-								// If 0, append current char to current token then continue
-								currentToken = currentToken + Compiler.file.get(currentLine).charAt(currentChar);
-								continue;
-							}
-							else if(status == 1)
-							{
-								// If 1, check if the current character is the last character in the line
-								// Else if, check if the next character is either whitespace or a special symbol
-								// Else, continue feeding the scanner characters for this current token
-								if(currentChar == Compiler.file.get(currentLine).length()-1)
-								{
-									// Append current char to current token then continue
-									currentToken = currentToken + Compiler.file.get(currentLine).charAt(currentChar);
-
-									// Print findings of this keyword
-									if(Compiler.printScannerFindings) System.out.println("Line#: " + Compiler.linenumber + " - Keyword found: - " + currentToken);
-
-									// Add current token to scanned list
-									Scanner.scanned.add(currentToken);
-
-									// complier - Reset current Token to empty
-									currentToken = "";
-
-									// Scanner - reset current token to empty
-									Scanner.resetToken();
-								}
-								else if((Compiler.file.get(currentLine).charAt(currentChar+1) == ' ' || Compiler.file.get(currentLine).charAt(currentChar+1) == ';'))
-								{
-									// Append current char to current token then continue
-									currentToken = currentToken + Compiler.file.get(currentLine).charAt(currentChar);
-
-									// Print findings of this keyword
-									if(Compiler.printScannerFindings) System.out.println("Line#: " + Compiler.linenumber + " - Keyword found: - " + currentToken);
-
-									// Add current token to scanned list
-									Scanner.scanned.add(currentToken);
-
-									// complier - Reset current Token to empty
-									currentToken = "";
-
-									// Scanner - Reset current Token to empty
-									Scanner.resetToken();
-								}
-								else
-								{
-									// Append current char to current token then continue
-									currentToken = currentToken + Compiler.file.get(currentLine).charAt(currentChar);
-									continue;
-								}
-							}
-							else if(status == 2)
-							{
-								// If status is 2, it is a comment.
-
-								// Append current char to current token
-								currentToken = currentToken + Compiler.file.get(currentLine).charAt(currentChar);
-
-								// Print findings of this keyword
-								if(Compiler.printScannerFindings) System.out.println("Line#: " + Compiler.linenumber + " - Comment found: - " + currentToken);
-
-								// complier - Reset current Token to empty
-								currentToken = "";
-
-								// scanner - Reset current Token to empty
-								Scanner.resetToken();
-
-								// Since this is a comment, skip this current line
-								continue outerloop;
-							}
-							else if(status == -1)
-							{
-								// If -1, this is an error. We need to conduct panic mode recovery - skip to next token
-
-								// Append current char to current token
-								currentToken = currentToken + Compiler.file.get(currentLine).charAt(currentChar);
-
-								int length = Compiler.file.get(currentLine).length(); // length is current lines length
-								if(currentChar == length-1)
-								{
-									// if currentChar == length-1, then this is the last char no more recovery needed
-									if(Compiler.printScannerFindings) System.out.print(currentToken + "\n");
-
-									// compiler - Reset current Token to empty
-									currentToken = "";
-
-									// scanner - Reset current Token to empty
-									Scanner.resetToken();
-								}
-								else
-								{
-									// Else, we are not at the end of the line yet
-
-									int newCharLoc = currentChar + 1; // newCharLoc is the location of the next character in the line
-									char newChar = Compiler.file.get(currentLine).charAt(newCharLoc); // newChar is the next character in the line
-
-									// Loop that will break if newChar is ever whitespace or special symbol
-									while((newChar != ' ' && newChar != ';'))
-									{
-										// Append newChar to current token
-										currentToken = currentToken + newChar;
-
-										newCharLoc = newCharLoc + 1; // increment newCharLoc
-
-										// As long as newCharLoc isn't beyond the line end, set newChar to the next character
-										// Else, we are at the end, break loop.
-										if(newCharLoc < length)
-											newChar = Compiler.file.get(currentLine).charAt(newCharLoc);
-										else break;
-									}
-
-									if(Compiler.printScannerFindings) System.out.print(" - " + currentToken + "\n");
-
-									// compiler - Reset current Token to empty
-									currentToken = "";
-
-									// scanner - Reset current Token to empty
-									Scanner.resetToken();
-
-									// Set currentChar to the beginning of next token that we just found
-									currentChar = newCharLoc - 1;
-								}
-							}
-						}
-						else if(Scanner.idStatus())
-						{
-							if(status == 0)
-							{
-								// If 0, append current char to current token then continue
-								currentToken = currentToken + Compiler.file.get(currentLine).charAt(currentChar);
-								continue;
-							}
-							else if(status == 1)
-							{
-								// If 1, check if the current character is the last character in the line
-								// Else if, check if the next character is either whitespace or a special symbol
-								// Else, continue feeding the scanner characters for this current token
-								if(currentChar == Compiler.file.get(currentLine).length()-1)
-								{
-									// Append current char to current token then continue
-									currentToken = currentToken + Compiler.file.get(currentLine).charAt(currentChar);
-
-									// Print findings of this id
-									if(Compiler.printScannerFindings) System.out.println("Line#: " + Compiler.linenumber + " - Identifier found: - " + currentToken);
-
-									// Tell scanner to check if this id exists in the symbol table.
-									// If not, scanner will call symbol table to add it
-									Scanner.newValue("identifier");
-
-									// Add current token to scanned list
-									Scanner.scanned.add(currentToken);
-
-									// complier - Reset current Token to empty
-									currentToken = "";
-
-									// scanner - Reset current Token to empty
-									Scanner.resetToken();
-								}
-								else if((Compiler.file.get(currentLine).charAt(currentChar+1) == ' ' || Compiler.file.get(currentLine).charAt(currentChar+1) == ';'))
-								{
-									// Append current char to current token then continue
-									currentToken = currentToken + Compiler.file.get(currentLine).charAt(currentChar);
-
-									// Print findings of this id
-									if(Compiler.printScannerFindings) System.out.println("Line#: " + Compiler.linenumber + " - Identifier found: - " + currentToken);
-
-									// Tell scanner to check if this id exists in the symbol table.
-									// If not, scanner will call symbol table to add it
-									Scanner.newValue("identifier");
-
-									// Add current token to scanned list
-									Scanner.scanned.add(currentToken);
-
-									// complier - Reset current Token to empty
-									currentToken = "";
-
-									// scanner - Reset current Token to empty
-									Scanner.resetToken();
-								}
-								else
-								{
-									// Append current char to current token then continue
-									currentToken = currentToken + Compiler.file.get(currentLine).charAt(currentChar);
-									continue;
-								}
-							}
-							else if(status == -1)
-							{
-								// If -1, this is an error. We need to conduct panic mode recovery - skip to next token
-
-								// Append current char to current token then continue
-								currentToken = currentToken + Compiler.file.get(currentLine).charAt(currentChar);
-
-								int length = Compiler.file.get(currentLine).length();	// length is current lines length
-								if(currentChar == length-1)
-								{
-									// if currentChar == length-1, then this is the last char no more recovery needed
-									if(Compiler.printScannerFindings) System.out.print(" - " + currentToken + "\n");
-
-									// complier - Reset current Token to empty
-									currentToken = "";
-
-									// scanner - Reset current Token to empty
-									Scanner.resetToken();
-								}
-								else
-								{
-									// Else, we are not at the end of the line yet
-									int newCharLoc = currentChar + 1;	// newCharLoc is the location of the next character in the line
-									char newChar = Compiler.file.get(currentLine).charAt(newCharLoc);	// newChar is the next character in the line
-
-									// Loop that will break if newChar is ever whitespace or special symbol
-									while((newChar != ' ' && newChar != ';'))
-									{
-										// Append newChar to current token
-										currentToken = currentToken + newChar;
-
-										// increment newCharLoc
-										newCharLoc = newCharLoc + 1;
-
-										// As long as newCharLoc isn't beyond the line end, set newChar to the next character
-										// Else, we are at the end, break loop.
-										if(newCharLoc < length)
-											newChar = Compiler.file.get(currentLine).charAt(newCharLoc);
-										else break;
-									}
-
-									if(Compiler.printScannerFindings) System.out.print(" - " + currentToken + "\n");
-
-									// complier - Reset current Token to empty
-									currentToken = "";
-
-									// scanner - Reset current Token to empty
-									Scanner.resetToken();
-
-									// Set currentChar to the beginning of next token that we just found
-									currentChar = newCharLoc - 1;
-								}
-							}
-						}
-						else if(Scanner.constStatus())
-						{
-							if(status == 1)
-							{
-								if(currentChar == Compiler.file.get(currentLine).length()-1)
-								{
-									// Append current char to current token then continue
-									currentToken = currentToken + Compiler.file.get(currentLine).charAt(currentChar);
-
-									// Print findings of this const
-									if(Compiler.printScannerFindings) System.out.println("Line#: " + Compiler.linenumber + " - Constant found: - " + currentToken);
-
-									// Tell scanner to check if this const exists in the symbol table.
-									// If not, scanner will call symbol table to add it
-									Scanner.newValue("constant");
-
-									// Add current token to scanned list
-									Scanner.scanned.add(currentToken);
-
-									// compiler - Reset current Token to empty
-									currentToken = "";
-
-									// scanner - Reset current Token to empty
-									Scanner.resetToken();
-								}
-								else if((Compiler.file.get(currentLine).charAt(currentChar+1) == ' ' || Compiler.file.get(currentLine).charAt(currentChar+1) == ';'))
-								{
-									// Append current char to current token then continue
-									currentToken = currentToken + Compiler.file.get(currentLine).charAt(currentChar);
-
-									// Print findings of this const
-									if(Compiler.printScannerFindings) System.out.println("Line#: " + Compiler.linenumber + " - Constant found: - " + currentToken);
-
-									// Tell scanner to check if this const exists in the symbol table.
-									// If not, scanner will call symbol table to add it
-									Scanner.newValue("constant");
-
-									// Add current token to scanned list
-									Scanner.scanned.add(currentToken);
-
-									// compiler - Reset current Token to empty
-									currentToken = "";
-
-									// scanner - Reset current Token to empty
-									Scanner.resetToken();
-								}
-								else
-								{
-									// Append current char to current token then continue
-									currentToken = currentToken + Compiler.file.get(currentLine).charAt(currentChar);
-									continue;
-								}
-							}
-							else if(status == -1)
-							{
-								// Append current char to current token then continue
-								currentToken = currentToken + Compiler.file.get(currentLine).charAt(currentChar);
-
-								int length = Compiler.file.get(currentLine).length();	// length is current lines length
-								if(currentChar == length-1)
-								{
-									// if currentChar == length-1, then this is the last char no more recovery needed
-									if(Compiler.printScannerFindings) System.out.print(" - " + currentToken + "\n");
-
-									// complier - Reset current Token to empty
-									currentToken = "";
-
-									// complier - Reset current Token to empty
-									Scanner.resetToken();
-								}
-								else
-								{
-									// Else, we are not at the end of the line yet
-									int newCharLoc = currentChar + 1;	// newCharLoc is the location of the next character in the line
-									char newChar = Compiler.file.get(currentLine).charAt(newCharLoc);	// newChar is the next character in the line
-
-									// Loop that will break if newChar is ever whitespace or special symbol
-									while((newChar != ' ' && newChar != ';'))
-									{
-										// Append newChar to current token
-										currentToken = currentToken + newChar;
-
-										// increment newCharLoc
-										newCharLoc = newCharLoc + 1;
-
-										// As long as newCharLoc isn't beyond the line end, set newChar to the next character
-										// Else, we are at the end, break loop.
-										if(newCharLoc < length)
-											newChar = Compiler.file.get(currentLine).charAt(newCharLoc);
-										else break;
-									}
-
-									if(Compiler.printScannerFindings) System.out.print(" - " + currentToken + "\n");
-
-									// compiler - Reset current Token to empty
-									currentToken = "";
-
-									// scanner - Reset current Token to empty
-									Scanner.resetToken();
-
-									// Set currentChar to the beginning of next token that we just found
-									currentChar = newCharLoc - 1;
-								}
-							}
-						}
-						else if(Scanner.ssymbolStatus())
-						{
-							if(status == 1)
-							{
-								// Append current char to current token then continue
-								currentToken = currentToken + Compiler.file.get(currentLine).charAt(currentChar);
-
-								// Add current token to scanned list
-								Scanner.scanned.add(currentToken);
-
-								// compiler - Reset current Token to empty
-								currentToken = "";
-
-								// scanner - Reset current Token to empty
-								Scanner.resetToken();
-							}
-							else if(status == -1);
-						}
-					}
-				}
+		CompilerEvents.OpenScanner event = new CompilerEvents.OpenScanner();
+		event.begin();
+
+		scanner = context.scanner;
+		scanner.open(context.file);
+
+		if(event.shouldCommit())
+		{
+			event.fileName = context.fileName;
+			event.size = context.file.length();
+			event.commit();
+		}
 	}
 
 	////////////////////
@@ -476,7 +276,7 @@ public final class Parser
 	/**
 	 * Top of the stack is start symbol Z_o
 	 */
-	private static void startSymbol()
+	private void startSymbol()
 	{
 		// If peek is 0 then it is start symbol
 		// We don't have to worry about look ahead since these are
@@ -485,45 +285,29 @@ public final class Parser
 		{
 			updateState(1);
 			stack.push(42);
+			if(tree != null) nodes.push(tree.addNodes(new int[]{SyntaxTree.LOL}, 1));
 		}
 		else if(state == 1)
 			updateState(2);
 	}
 
 	/**
-	 * Finds the current rule that is needed
+	 * Finds the current rule that is needed.
+	 * Terminals (1 - 41) only have one rule, it matches if the lookahead is the terminal itself.
+	 * Non-terminals (42 - 64) use the lookahead to pick their rule.
+	 * Both are a single lookup in the parse table built by setPDA.
 	 */
-	private static Rule getRule(Integer peek)
+	private Rule getRule(int peek)
 	{
-		Integer lookahead = Scanner.getLookAhead();
+		int lookahead = scanner.getLookAhead();
 
-		if(peek >= 1 && peek <= 41)
-		{
-			// If peek is between 1 & 41 (inclusive) it is a terminal symbol
-			// Get the rule corresponding to it
-			// Since these are terminal symbols, they only have one rule.
-			// So we know which rule to use.
-			if(Rules.rules.get(peek).get(0).lookahead.get(0) == lookahead)
-				return Rules.rules.get(peek).get(0);
-			else
-				return null;
-		}
-		else if(peek >= 42 && peek <= 64)
+		if(peek >= 1 && peek <= 64)
+			return Rules.getRule(peek, lookahead);
+		else
 		{
-			// If peek is between 42 & 64 (inclusive) it is a non-terminal symbol.
-			// Get the rule corresponding to it using the look ahead token.
-			// Loop through all of the rules corresponding to this symbol
-			for(Rule rule : Rules.getRules(peek))
-			{
-				for(int la : rule.lookahead)
-				{
-					if(lookahead == la)
-						return rule;
-				}
-			}
+			trace.flush();
+			context.out.println("WTF getRule!!!");
 		}
-		else
-			System.out.println("WTF getRule!!!");
 
 		return null;
 	}
@@ -532,7 +316,7 @@ public final class Parser
 	 * Takes a rule and executes it
 	 * @param rule
 	 */
-	private static void executeRule(Rule rule)
+	private void executeRule(Rule rule)
 	{
 		// Change the state of the parser from init_state to final_state
 		updateState(rule.final_state);
@@ -541,45 +325,161 @@ public final class Parser
 		// It is a terminal. Thus, match and pop from stack. (consume)
 		if(rule.toPush == null)
 		{
-			// Just pop stack - epsilon rule
-			if(IntegerCodes.findToken(stack.peek()).charAt(0) == '<')
+			// Just pop stack - epsilon rule (non-terminals are 42 - 64)
+			if(stack.peek() >= 42)
 			{
-				if(Compiler.printParserFindings) System.out.println("Step: " + steps + " Stacktop: " + stack.peek() + " Lookahead: " + Scanner.scanned.peek() + " use rule: " + rule.id + " - " + rule.sub_id);
+				trace.rule(steps, stack.peek(), rule);
 				stack.pop();
-			}
-			else if(rule.id == 1 || rule.id == 2)
-			{
-				if(Compiler.printParserFindings) System.out.println("Step: " + steps + " Stacktop: " + stack.peek() + " Lookahead: " + Scanner.scanned.peek() + " match " + Scanner.scanned.peek() + " (" +IntegerCodes.findToken(rule.lookahead.get(0)) + ")" + " (" +rule.lookahead.get(0) + ")");
-				// Consume
-				consumed.add(IntegerCodes.findToken(stack.pop()));
-				Scanner.scanned.poll();
+				if(tree != null) expandNode(nodes.pop(), rule);
 			}
 			else
 			{
-				if(Compiler.printParserFindings) System.out.println("Step: " + steps + " Stacktop: " + stack.peek() + " Lookahead: " + Scanner.scanned.peek() + " match " + IntegerCodes.findToken(rule.lookahead.get(0)) + " (" +rule.lookahead.get(0) + ")");
+				trace.match(steps, stack.peek(), rule.lookahead[0]);
+				recovering = false;
 				// Consume
-				consumed.add(IntegerCodes.findToken(stack.pop()));
-				Scanner.scanned.poll();
+				stack.pop();
+				if(tree != null) matchNode(nodes.pop());
+				scanner.poll();
 			}
 		}
 		else
 		{
-			if(Compiler.printParserFindings) System.out.println("Step: " + steps + " Stacktop: " + stack.peek() + " Lookahead: " + Scanner.scanned.peek() + " use rule: " + rule.id + " - " + rule.sub_id);
+			trace.rule(steps, stack.peek(), rule);
 
 			// pop the top
 			stack.pop();
 
-			// Push next symbols onto the stack in reverse order
-			for(int i = rule.toPush.size()-1; i >= 0; i--)
-				stack.push(rule.toPush.get(i));
+			// Push next symbols onto the stack in reverse order (toPush is already reversed)
+			stack.pushAll(rule.toPush);
+			if(tree != null) expandNode(nodes.pop(), rule);
 		}
 		steps++;
 	}
 
+	////////////////////
+	// Error Recovery Functions
+	////////////////////
+
+	/**
+	 * Panic mode recovery when no rule matches the stack top and the lookahead. Each call takes one action,
+	 * the parse loop calls it again until a rule matches:
+	 *   a terminal on top is taken as missing and popped
+	 *   <lol> is expanded anyway, so a missing HAI does not lose the whole program
+	 *   a non-terminal on top is popped if the lookahead can follow it, is a synchronizing token or the end of the file
+	 *   ';' ends a bad statement, it is skipped when a <body> is on top so the statements after it are still parsed
+	 *   any other lookahead is skipped
+	 * Every action pops the stack or consumes a token, so recovery always ends.
+	 * @param peek
+	 */
+	private void recover(int peek)
+	{
+		int lookahead = scanner.getLookAhead();
+		if(!recovering) syntaxError(peek);
+		recovering = true;
+
+		if(peek < LOL || lookahead == -1) popSymbol();
+		else if(peek == LOL) executeRule(Rules.getRule(LOL, IntegerCodes.findCode("HAI")));
+		else if(Rules.follows(peek, lookahead)) popSymbol();
+		else if(peek == BODY && lookahead == SEMICOLON) scanner.poll();
+		else if((SYNC & (1L << lookahead)) != 0) popSymbol();
+		else scanner.poll();
+	}
+
+	/**
+	 * Pops the stack top without matching or expanding it
+	 */
+	private void popSymbol()
+	{
+		stack.pop();
+		if(tree != null) nodes.pop();
+	}
+
+	/**
+	 * Records a syntax error at the lookahead
+	 * @param peek what the parser expected
+	 */
+	private void syntaxError(int peek)
+	{
+		String found = scanner.peek();
+		int line = found == null ? context.getLineNumber() : scanner.getTokens().line(scanner.getLookAheadIndex());
+		// A program that does not start with HAI is missing HAI rather than all of <lol>
+		String expected = IntegerCodes.findToken(peek == LOL ? IntegerCodes.findCode("HAI") : peek);
+		String error = "Line#: " + line + " - Syntax Error: expected " + expected
+				+ ", found " + (found == null ? "end of file" : "'" + found + "'");
+
+		errors.add(error);
+		trace.syntaxError(steps, peek, line, error);
+	}
+
+	/**
+	 * Returns a set of terminals, one bit per terminal
+	 * @param terminals
+	 * @return
+	 */
+	private static long bits(int... terminals)
+	{
+		long set = 0;
+		for(int terminal : terminals) set |= 1L << terminal;
+		return set;
+	}
+
+	////////////////////
+	// Tree Functions
+	////////////////////
+
+	/**
+	 * Gives the node of an expanded non-terminal its children, one per identifier, constant and non-terminal the rule pushes.
+	 * Their node ids go onto the node stack in the same order the symbols went onto the PDA stack.
+	 * @param node
+	 * @param rule
+	 */
+	private void expandNode(int node, Rule rule)
+	{
+		int[] push = rule.toPush;
+		int count = 0;
+
+		// toPush is reversed, children are added in the order they appear in the rule
+		if(push != null)
+		{
+			for(int i = push.length - 1; i >= 0; i--)
+				if(hasNode(push[i])) childKinds[count++] = push[i];
+		}
+
+		int first = tree.addNodes(childKinds, count);
+		tree.expand(node, rule.sub_id, first, count);
+		tree.setToken(node, scanner.getLookAheadIndex());
+
+		if(push != null)
+		{
+			int next = first + count - 1;
+			for(int i = 0; i < push.length; i++)
+				nodes.push(hasNode(push[i]) ? next-- : -1);
+		}
+	}
+
+	/**
+	 * Gives the node of a matched terminal its token
+	 * @param node
+	 */
+	private void matchNode(int node)
+	{
+		if(node >= 0) tree.setToken(node, scanner.getLookAheadIndex());
+	}
+
+	/**
+	 * Returns true if a symbol gets a node in the tree. Keywords and ';' do not, the rule of their parent says which they were.
+	 * @param symbol
+	 * @return
+	 */
+	private static boolean hasNode(int symbol)
+	{
+		return symbol == SyntaxTree.ID || symbol == SyntaxTree.CONST || symbol >= SyntaxTree.LOL;
+	}
+
 	/**
 	 * Changes the current state to the new state
 	 */
-	private static void updateState(int newState)
+	private void updateState(int newState)
 	{
 		state = newState;
 	}
@@ -587,7 +487,7 @@ public final class Parser
 	/**
 	 * Method that initializes all of the terminal codes.
 	 */
-	public static void setIntegerCodes()
+	private static void setIntegerCodes()
 	{
 		for(int i = 0; i < 65; i++)
 		{
@@ -674,36 +574,36 @@ public final class Parser
 
 			IntegerCodes.addCode(token, i);
 		}
+		IntegerCodes.freeze();
 	}
 
 	/**
 	 * Method that initializes all of the syntax rules for Mini-LOL
 	 */
-	public static void setPDA()
+	private static void setPDA()
 	{
 		// TODO - how to know which int or const to push?!?!?!?!
 		for(int i = 0; i <= 64; i++)
 		{
-			Rules.rules.put(i,new ArrayList<Rule>());
 			switch (i)
 			{
 
 				// TODO - how to deal with stack marker (zo)
 				case 0:
-					Rules.rules.get(i).add(new Rule(i, 0, -1, i, 1, 42, 0, 'a'));
-					Rules.rules.get(i).add(new Rule(i, 1, -1, i, 2, 0, 'b'));
+					Rules.addRule(i, new Rule(i, 0, -1, i, 1, 42, 0, 'a'));
+					Rules.addRule(i, new Rule(i, 1, -1, i, 2, 0, 'b'));
 					break;
 
 				// TODO - how to do id
 				// 1: [id]
 				case 1:
-					Rules.rules.get(i).add(new Rule(i, 1, -1, i, 1, 1, 'a'));
+					Rules.addRule(i, new Rule(i, 1, -1, i, 1, 1, 'a'));
 					break;
 
 				// TODO - how to do const
 				// 2: [const]
 				case 2:
-					Rules.rules.get(i).add(new Rule(i, 1, -1, i, 1, 2, 'a'));
+					Rules.addRule(i, new Rule(i, 1, -1, i, 1, 2, 'a'));
 					break;
 
 				// 3-40: Keywords on stack top (Terminals)
@@ -746,155 +646,159 @@ public final class Parser
 				case 39: 	// BOTH SAEM
 				case 40: 	// DIFFRINT
 				case 41: 	// ;
-					Rules.rules.get(i).add(new Rule(i, 1, i, i, 1, i, 'a'));
+					Rules.addRule(i, new Rule(i, 1, i, i, 1, i, 'a'));
 					break;
 
 				// 42: <lol>
 				case 42:
-					Rules.rules.get(i).add(new Rule(i, 1, -1, i, 1, new int[]{3,43,4}, 3, 'a'));
+					Rules.addRule(i, new Rule(i, 1, -1, i, 1, new int[]{3,43,4}, 3, 'a'));
 					break;
 
 				// 43: <body>
 				case 43:
-					Rules.rules.get(i).add(new Rule(i, 1, -1, i, 1, new int[]{44,41,43}, new int[]{5,6,7,1,15,18,22,24,25,26,29}, 'a'));
-					Rules.rules.get(i).add(new Rule(i, 1, -1, i, 1, new int[]{4,20,17,21,23,27}, 'b'));
+					Rules.addRule(i, new Rule(i, 1, -1, i, 1, new int[]{44,41,43}, new int[]{5,6,7,1,15,18,22,24,25,26,29}, 'a'));
+					Rules.addRule(i, new Rule(i, 1, -1, i, 1, new int[]{4,20,17,21,23,27}, 'b'));
 					break;
 
 				// 44: <stmt>
 				case 44:
-					Rules.rules.get(i).add(new Rule(i, 1, -1, i, 1, 45, 5, 'a'));
-					Rules.rules.get(i).add(new Rule(i, 1, -1, i, 1, 46, 6, 'b'));
-					Rules.rules.get(i).add(new Rule(i, 1, -1, i, 1, 47, 7, 'c'));
-					Rules.rules.get(i).add(new Rule(i, 1, -1, i, 1, 49, 1, 'd'));
-					Rules.rules.get(i).add(new Rule(i, 1, -1, i, 1, 50, 15, 'e'));
-					Rules.rules.get(i).add(new Rule(i, 1, -1, i, 1, 51, 18, 'f'));
-					Rules.rules.get(i).add(new Rule(i, 1, -1, i, 1, 52, 22, 'g'));
-					Rules.rules.get(i).add(new Rule(i, 1, -1, i, 1, 56, new int[]{24,25}, 'h'));
-					Rules.rules.get(i).add(new Rule(i, 1, -1, i, 1, 57, 26, 'i'));
-					Rules.rules.get(i).add(new Rule(i, 1, -1, i, 1, 60, 29, 'j'));
+					Rules.addRule(i, new Rule(i, 1, -1, i, 1, 45, 5, 'a'));
+					Rules.addRule(i, new Rule(i, 1, -1, i, 1, 46, 6, 'b'));
+					Rules.addRule(i, new Rule(i, 1, -1, i, 1, 47, 7, 'c'));
+					Rules.addRule(i, new Rule(i, 1, -1, i, 1, 49, 1, 'd'));
+					Rules.addRule(i, new Rule(i, 1, -1, i, 1, 50, 15, 'e'));
+					Rules.addRule(i, new Rule(i, 1, -1, i, 1, 51, 18, 'f'));
+					Rules.addRule(i, new Rule(i, 1, -1, i, 1, 52, 22, 'g'));
+					Rules.addRule(i, new Rule(i, 1, -1, i, 1, 56, new int[]{24,25}, 'h'));
+					Rules.addRule(i, new Rule(i, 1, -1, i, 1, 57, 26, 'i'));
+					Rules.addRule(i, new Rule(i, 1, -1, i, 1, 60, 29, 'j'));
 					break;
 
 				// 45: <input>
 				case 45:
-					Rules.rules.get(i).add(new Rule(i, 1, -1, i, 1, new int[]{5,1}, 5, 'a'));
+					Rules.addRule(i, new Rule(i, 1, -1, i, 1, new int[]{5,1}, 5, 'a'));
 					break;
 
 				// 46: <output>
 				case 46:
-					Rules.rules.get(i).add(new Rule(i, 1, -1, i, 1, new int[]{6,61}, 6, 'a'));
+					Rules.addRule(i, new Rule(i, 1, -1, i, 1, new int[]{6,61}, 6, 'a'));
 					break;
 
 				// 47: <decl>
 				case 47:
-					Rules.rules.get(i).add(new Rule(i, 1, -1, i, 1, new int[]{7,1,8,48}, 7, 'a'));
+					Rules.addRule(i, new Rule(i, 1, -1, i, 1, new int[]{7,1,8,48}, 7, 'a'));
 					break;
 
 				// 48: <type>
 				case 48:
-					Rules.rules.get(i).add(new Rule(i, 1, -1, i, 1, 9, 9, 'a'));
-					Rules.rules.get(i).add(new Rule(i, 1, -1, i, 1, 10, 10, 'b'));
-					Rules.rules.get(i).add(new Rule(i, 1, -1, i, 1, 11, 11, 'c'));
+					Rules.addRule(i, new Rule(i, 1, -1, i, 1, 9, 9, 'a'));
+					Rules.addRule(i, new Rule(i, 1, -1, i, 1, 10, 10, 'b'));
+					Rules.addRule(i, new Rule(i, 1, -1, i, 1, 11, 11, 'c'));
 					break;
 
 				// 49: <asmt>
 				case 49:
-					Rules.rules.get(i).add(new Rule(i, 1, -1, i, 1, new int[]{1,14,61}, 1, 'a'));
+					Rules.addRule(i, new Rule(i, 1, -1, i, 1, new int[]{1,14,61}, 1, 'a'));
 					break;
 
 				// 50: <loop>
 				case 50:
-					Rules.rules.get(i).add(new Rule(i, 1, -1, i, 1, new int[]{15,1,16,63,43,17,1}, 15, 'a'));
+					Rules.addRule(i, new Rule(i, 1, -1, i, 1, new int[]{15,1,16,63,43,17,1}, 15, 'a'));
 					break;
 
 				// 51: <if>
 				case 51:
-					Rules.rules.get(i).add(new Rule(i, 1, -1, i, 1, new int[]{18,63,19,43,20,43,21}, 18, 'a'));
+					Rules.addRule(i, new Rule(i, 1, -1, i, 1, new int[]{18,63,19,43,20,43,21}, 18, 'a'));
 					break;
 
 				// 52: <case>
 				case 52:
-					Rules.rules.get(i).add(new Rule(i, 1, -1, i, 1, new int[]{22,61,53,21}, 22, 'a'));
+					Rules.addRule(i, new Rule(i, 1, -1, i, 1, new int[]{22,61,53,21}, 22, 'a'));
 					break;
 
 				// 53: <omgs>
 				case 53:
-					Rules.rules.get(i).add(new Rule(i, 1, -1, i, 1, new int[]{54,53}, 23, 'a'));
-					Rules.rules.get(i).add(new Rule(i, 1, -1, i, 1, 21, 'b'));
+					Rules.addRule(i, new Rule(i, 1, -1, i, 1, new int[]{54,53}, 23, 'a'));
+					Rules.addRule(i, new Rule(i, 1, -1, i, 1, 21, 'b'));
 					break;
 
 				// 54: <omg>
 				case 54:
-					Rules.rules.get(i).add(new Rule(i, 1, -1, i, 1, new int[]{23,55,43}, 23, 'a'));
+					Rules.addRule(i, new Rule(i, 1, -1, i, 1, new int[]{23,55,43}, 23, 'a'));
 					break;
 
 				// 55: <value>
 				case 55:
-					Rules.rules.get(i).add(new Rule(i, 1, -1, i, 1, 2, 2, 'a'));
-					Rules.rules.get(i).add(new Rule(i, 1, -1, i, 1, 12, 12, 'b'));
-					Rules.rules.get(i).add(new Rule(i, 1, -1, i, 1, 13, 13, 'c'));
+					Rules.addRule(i, new Rule(i, 1, -1, i, 1, 2, 2, 'a'));
+					Rules.addRule(i, new Rule(i, 1, -1, i, 1, 12, 12, 'b'));
+					Rules.addRule(i, new Rule(i, 1, -1, i, 1, 13, 13, 'c'));
 					break;
 
 				// 56: <return>
 				case 56:
-					Rules.rules.get(i).add(new Rule(i, 1, -1, i, 1, new int[]{24,61}, 24, 'a'));
-					Rules.rules.get(i).add(new Rule(i, 1, -1, i, 1, 25, 25, 'b'));
+					Rules.addRule(i, new Rule(i, 1, -1, i, 1, new int[]{24,61}, 24, 'a'));
+					Rules.addRule(i, new Rule(i, 1, -1, i, 1, 25, 25, 'b'));
 					break;
 
 				// 57: <function>
 				case 57:
-					Rules.rules.get(i).add(new Rule(i, 1, -1, i, 1, new int[]{26,1,58,43,27}, 26, 'a'));
+					Rules.addRule(i, new Rule(i, 1, -1, i, 1, new int[]{26,1,58,43,27}, 26, 'a'));
 					break;
 
 				// 58: <args>
 				case 58:
-					Rules.rules.get(i).add(new Rule(i, 1, -1, i, 1, new int[]{59,58}, 28, 'a'));
-					Rules.rules.get(i).add(new Rule(i, 1, -1, i, 1, new int[]{27,30,5,6,7,1,15,18,22,24,25,26,29}, 'b'));
+					Rules.addRule(i, new Rule(i, 1, -1, i, 1, new int[]{59,58}, 28, 'a'));
+					Rules.addRule(i, new Rule(i, 1, -1, i, 1, new int[]{27,30,5,6,7,1,15,18,22,24,25,26,29}, 'b'));
 					break;
 
 				// 59: <arg>
 				case 59:
-					Rules.rules.get(i).add(new Rule(i, 1, -1, i, 1, new int[]{28,1}, 28, 'a'));
+					Rules.addRule(i, new Rule(i, 1, -1, i, 1, new int[]{28,1}, 28, 'a'));
 					break;
 
 				// 60: <call>
 				case 60:
-					Rules.rules.get(i).add(new Rule(i, 1, -1, i, 1, new int[]{29,1,58,30}, 29, 'a'));
+					Rules.addRule(i, new Rule(i, 1, -1, i, 1, new int[]{29,1,58,30}, 29, 'a'));
 					break;
 
 				// 61: <expr>
 				case 61:
-					Rules.rules.get(i).add(new Rule(i, 1, -1, i, 1, 62, new int[]{31,33,34,35,1,2}, 'a'));
-					Rules.rules.get(i).add(new Rule(i, 1, -1, i, 1, 63, new int[]{36,37,38,39,40,12,13}, 'b'));
+					Rules.addRule(i, new Rule(i, 1, -1, i, 1, 62, new int[]{31,33,34,35,1,2}, 'a'));
+					Rules.addRule(i, new Rule(i, 1, -1, i, 1, 63, new int[]{36,37,38,39,40,12,13}, 'b'));
 					break;
 
 				// 62: <arith>
 				case 62:
-					Rules.rules.get(i).add(new Rule(i, 1, -1, i, 1, new int[]{31,62,32,62}, 31, 'a'));
-					Rules.rules.get(i).add(new Rule(i, 1, -1, i, 1, new int[]{33,62,32,62}, 33, 'b'));
-					Rules.rules.get(i).add(new Rule(i, 1, -1, i, 1, new int[]{34,62,32,62}, 34, 'c'));
-					Rules.rules.get(i).add(new Rule(i, 1, -1, i, 1, new int[]{35,62,32,62}, 35, 'd'));
-					Rules.rules.get(i).add(new Rule(i, 1, -1, i, 1, 1, 1, 'e'));
-					Rules.rules.get(i).add(new Rule(i, 1, -1, i, 1, 2, 2, 'f'));
+					Rules.addRule(i, new Rule(i, 1, -1, i, 1, new int[]{31,62,32,62}, 31, 'a'));
+					Rules.addRule(i, new Rule(i, 1, -1, i, 1, new int[]{33,62,32,62}, 33, 'b'));
+					Rules.addRule(i, new Rule(i, 1, -1, i, 1, new int[]{34,62,32,62}, 34, 'c'));
+					Rules.addRule(i, new Rule(i, 1, -1, i, 1, new int[]{35,62,32,62}, 35, 'd'));
+					Rules.addRule(i, new Rule(i, 1, -1, i, 1, 1, 1, 'e'));
+					Rules.addRule(i, new Rule(i, 1, -1, i, 1, 2, 2, 'f'));
 					break;
 
 				// 63: <bool>
 				case 63:
-					Rules.rules.get(i).add(new Rule(i, 1, -1, i, 1, new int[]{36,63,32,63}, 36, 'a'));
-					Rules.rules.get(i).add(new Rule(i, 1, -1, i, 1, new int[]{37,63,32,63}, 37, 'b'));
-					Rules.rules.get(i).add(new Rule(i, 1, -1, i, 1, new int[]{38,63}, 38, 'c'));
-					Rules.rules.get(i).add(new Rule(i, 1, -1, i, 1, 64, new int[]{39,40}, 'd'));
-					Rules.rules.get(i).add(new Rule(i, 1, -1, i, 1, 12, 12, 'e'));
-					Rules.rules.get(i).add(new Rule(i, 1, -1, i, 1, 13, 13, 'f'));
+					Rules.addRule(i, new Rule(i, 1, -1, i, 1, new int[]{36,63,32,63}, 36, 'a'));
+					Rules.addRule(i, new Rule(i, 1, -1, i, 1, new int[]{37,63,32,63}, 37, 'b'));
+					Rules.addRule(i, new Rule(i, 1, -1, i, 1, new int[]{38,63}, 38, 'c'));
+					Rules.addRule(i, new Rule(i, 1, -1, i, 1, 64, new int[]{39,40}, 'd'));
+					Rules.addRule(i, new Rule(i, 1, -1, i, 1, 12, 12, 'e'));
+					Rules.addRule(i, new Rule(i, 1, -1, i, 1, 13, 13, 'f'));
 					break;
 
 				// 64: <comp>
 				case 64:
-					Rules.rules.get(i).add(new Rule(i, 1, -1, i, 1, new int[]{39,61,32,61}, 39, 'a'));
-					Rules.rules.get(i).add(new Rule(i, 1, -1, i, 1, new int[]{40,61,32,61}, 40, 'b'));
+					Rules.addRule(i, new Rule(i, 1, -1, i, 1, new int[]{39,61,32,61}, 39, 'a'));
+					Rules.addRule(i, new Rule(i, 1, -1, i, 1, new int[]{40,61,32,61}, 40, 'b'));
 					break;
 
 
 			}
 		}
+
+		// Last, turn the rules into a parse table: stack top (0 - 64) x lookahead terminal (0 - 41),
+		// and the FOLLOW sets the parser synchronizes on after a syntax error. The rules can not change after this.
+		Rules.build(65, 42);
 	}
 }
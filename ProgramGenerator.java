@@ -0,0 +1,456 @@
+package Utilities;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+/**
+ * Generates random LOL programs the parser accepts, to feed benchmarks and scaling tests.
+ * Programs follow the grammar of Parser.setPDA: declarations, GIMMEH, VISIBLE, assignments, loops, O RLY?, WTF?,
+ * functions and calls, with nested <arith> and <bool> expressions.
+ *   size          statements are added until the program is about this many bytes
+ *   depth         deepest nesting of blocks, and of operators in an expression
+ *   identifiers   number of different identifiers the program uses
+ *   seed          the same settings and seed always give the same program
+ * Each block holds at most one nested block, only one branch of an O RLY? and one arm of a WTF? hold one,
+ * and each operator has at most one operand that is not a leaf, so the size of a statement grows with its depth
+ * and not exponentially. How deep a statement or expression goes is picked uniformly up to depth.
+ * Text is written out in chunks while a statement is still being generated, so a deep one needs no more memory than a chunk.
+ * Programs are only meant to be compiled: variables may be used before they are declared and loops may never end.
+ * @author kobypascual
+ *
+ */
+public final class ProgramGenerator
+{
+	private static final String[] TYPES = {"NUMBR", "NUMBAR", "TROOF"};
+	private static final String[] ARITH = {"SUM OF ", "DIFF OF ", "PRODUKT OF ", "QUOSHUNT OF "};
+	private static final String[] BOOL = {"BOTH OF ", "EITHER OF "};
+	private static final String[] COMP = {"BOTH SAEM ", "DIFFRINT "};
+
+	/**
+	 * Generated text is written out in chunks of about this many characters
+	 */
+	private static final int CHUNK = 1 << 16;
+
+	private static final String END = "KTHXBYE\n";
+
+	/**
+	 * Deepest nesting of blocks and expressions
+	 */
+	private final int depth;
+
+	/**
+	 * Identifiers the program uses
+	 */
+	private final String[] names;
+
+	private final long seed;
+
+	private Random random;
+
+	/**
+	 * Text not written out yet
+	 */
+	private final StringBuilder text = new StringBuilder(CHUNK + 4096);
+
+	/**
+	 * Where the program being generated goes, how many bytes of it went there so far and how many it should have
+	 */
+	private OutputStream out;
+	private long written;
+	private long size;
+
+	/**
+	 * How deep the blocks of the current top level statement go
+	 */
+	private int target;
+
+	/**
+	 * ProgramGenerator Constructor.
+	 * @param depth
+	 * @param identifiers
+	 * @param seed
+	 */
+	public ProgramGenerator(int depth, int identifiers, long seed)
+	{
+		if(depth < 0) throw new IllegalArgumentException("depth can not be negative");
+		if(identifiers < 1) throw new IllegalArgumentException("a program needs at least one identifier");
+
+		this.depth = depth;
+		this.seed = seed;
+		this.names = new String[identifiers];
+		for(int i = 0; i < identifiers; i++) names[i] = "v" + Integer.toString(i, 36);
+	}
+
+	///////////////////////////
+	// Public - Utilities
+	///////////////////////////
+
+	/**
+	 * Returns a program of about size bytes
+	 * @param size
+	 * @return
+	 */
+	public byte[] generate(int size)
+	{
+		ByteArrayOutputStream out = new ByteArrayOutputStream(size + 4096);
+		try
+		{
+			write(out, size);
+		}
+		catch (IOException e)
+		{
+			throw new IllegalStateException(e); // a ByteArrayOutputStream does not throw
+		}
+		return out.toByteArray();
+	}
+
+	/**
+	 * Writes a program of about size bytes. The program is written as it is generated, so any size fits.
+	 * @param out
+	 * @param size
+	 * @return the number of bytes written
+	 * @throws IOException
+	 */
+	public long write(OutputStream out, long size) throws IOException
+	{
+		random = new Random(seed);
+		text.setLength(0);
+		this.out = out;
+		this.size = size;
+		written = 0;
+
+		text.append("HAI\n");
+		text.append("BTW Generated program, depth ").append(depth).append(", ").append(names.length).append(" identifiers, seed ").append(seed).append('\n');
+		while(written + text.length() + END.length() < size)
+		{
+			topLevel();
+			flushFull();
+		}
+		text.append(END);
+		flush();
+		out.flush();
+		this.out = null;
+		return written;
+	}
+
+	///////////////////////////
+	// Statements
+	///////////////////////////
+
+	/**
+	 * Adds one statement to the main body, now and then with a comment in front of it
+	 * @throws IOException
+	 */
+	private void topLevel() throws IOException
+	{
+		if(random.nextInt(32) == 0) text.append("BTW statement ").append(random.nextInt(1000)).append('\n');
+
+		if(depth > 0 && random.nextInt(3) == 0)
+		{
+			target = 1 + random.nextInt(depth);
+			compound(0);
+		}
+		else
+			simple();
+		text.append(";\n");
+	}
+
+	/**
+	 * Adds the statements of a nested block
+	 * @param level nesting of the block
+	 * @param nest true if one of the statements is a block itself, until the target depth or the size is reached
+	 * @throws IOException
+	 */
+	private void body(int level, boolean nest) throws IOException
+	{
+		int count = 1 + random.nextInt(3);
+		int nested = nest && level < target && written + text.length() < size ? random.nextInt(count) : -1;
+		for(int i = 0; i < count; i++)
+		{
+			indent(level);
+			if(i == nested) compound(level);
+			else simple();
+			text.append(";\n");
+			flushFull();
+		}
+	}
+
+	/**
+	 * Adds a statement that holds a block: IM IN YR, O RLY?, WTF?, or at the top level HOW IZ I.
+	 * Only one of its blocks goes on down.
+	 * @param level nesting of the statement
+	 * @throws IOException
+	 */
+	private void compound(int level) throws IOException
+	{
+		switch(random.nextInt(level == 0 ? 4 : 3))
+		{
+			case 0:
+			{
+				String label = name();
+				text.append("IM IN YR ").append(label).append(" WILE ");
+				bool(expressionDepth());
+				text.append('\n');
+				body(level + 1, true);
+				indent(level);
+				text.append("IM OUTTA YR ").append(label);
+				break;
+			}
+
+			case 1:
+			{
+				boolean yes = random.nextBoolean();
+				text.append("O RLY? ");
+				bool(expressionDepth());
+				text.append('\n');
+				indent(level);
+				text.append("YA RLY\n");
+				body(level + 1, yes);
+				indent(level);
+				text.append("NO WAI\n");
+				body(level + 1, !yes);
+				indent(level);
+				text.append("OIC");
+				break;
+			}
+
+			case 2:
+			{
+				text.append("WTF? ");
+				expr(expressionDepth());
+				text.append('\n');
+				int arms = 1 + random.nextInt(3);
+				int nested = random.nextInt(arms);
+				for(int i = 0; i < arms; i++)
+				{
+					indent(level);
+					text.append("OMG ");
+					value();
+					text.append('\n');
+					body(level + 1, i == nested);
+					if(random.nextBoolean())
+					{
+						indent(level + 1);
+						text.append("GTFO;\n");
+					}
+				}
+				indent(level);
+				text.append("OIC");
+				break;
+			}
+
+			default:
+				text.append("HOW IZ I ").append(name());
+				args();
+				text.append('\n');
+				body(level + 1, true);
+				indent(level + 1);
+				if(random.nextBoolean())
+				{
+					text.append("FOUND YR ");
+					expr(expressionDepth());
+				}
+				else
+					text.append("GTFO");
+				text.append(";\n");
+				indent(level);
+				text.append("IF U SAY SO");
+				break;
+		}
+	}
+
+	/**
+	 * Adds a statement that holds no block
+	 */
+	private void simple()
+	{
+		switch(random.nextInt(6))
+		{
+			case 0:
+				text.append("GIMMEH ").append(name());
+				break;
+			case 1:
+				text.append("VISIBLE ");
+				expr(expressionDepth());
+				break;
+			case 2:
+				text.append("I HAS A ").append(name()).append(" ITZ A ").append(TYPES[random.nextInt(TYPES.length)]);
+				break;
+			case 3:
+				text.append("I IZ ").append(name());
+				args();
+				text.append(" MKAY");
+				break;
+			default:
+				text.append(name()).append(" R ");
+				expr(expressionDepth());
+				break;
+		}
+	}
+
+	/**
+	 * Adds up to three YR arguments of a function or call
+	 */
+	private void args()
+	{
+		int count = random.nextInt(4);
+		for(int i = 0; i < count; i++) text.append(" YR ").append(name());
+	}
+
+	///////////////////////////
+	// Expressions
+	///////////////////////////
+
+	/**
+	 * Returns how deep the next expression goes
+	 * @return
+	 */
+	private int expressionDepth()
+	{
+		return random.nextInt(depth + 1);
+	}
+
+	/**
+	 * Adds an <expr> with the given number of operators above its deepest leaf
+	 * @param levels
+	 */
+	private void expr(int levels)
+	{
+		if(random.nextBoolean()) arith(levels);
+		else bool(levels);
+	}
+
+	/**
+	 * Adds an <arith>. One operand goes on down, the other is a leaf.
+	 * @param levels
+	 */
+	private void arith(int levels)
+	{
+		if(levels == 0)
+		{
+			if(random.nextBoolean()) text.append(name());
+			else constant();
+			return;
+		}
+
+		text.append(ARITH[random.nextInt(ARITH.length)]);
+		boolean left = random.nextBoolean();
+		arith(left ? levels - 1 : 0);
+		text.append(" AN ");
+		arith(left ? 0 : levels - 1);
+	}
+
+	/**
+	 * Adds a <bool>. One operand goes on down, the other is a leaf.
+	 * @param levels
+	 */
+	private void bool(int levels)
+	{
+		if(levels == 0)
+		{
+			switch(random.nextInt(3))
+			{
+				case 0: text.append("WIN"); break;
+				case 1: text.append("FAIL"); break;
+				default:
+					text.append(COMP[random.nextInt(COMP.length)]);
+					arith(0);
+					text.append(" AN ");
+					arith(0);
+					break;
+			}
+			return;
+		}
+
+		boolean left = random.nextBoolean();
+		switch(random.nextInt(3))
+		{
+			case 0:
+				text.append(BOOL[random.nextInt(BOOL.length)]);
+				bool(left ? levels - 1 : 0);
+				text.append(" AN ");
+				bool(left ? 0 : levels - 1);
+				break;
+			case 1:
+				text.append("NOT ");
+				bool(levels - 1);
+				break;
+			default:
+				text.append(COMP[random.nextInt(COMP.length)]);
+				if(left) expr(levels - 1);
+				else arith(0);
+				text.append(" AN ");
+				if(left) arith(0);
+				else expr(levels - 1);
+				break;
+		}
+	}
+
+	/**
+	 * Adds an OMG <value>
+	 */
+	private void value()
+	{
+		switch(random.nextInt(4))
+		{
+			case 0: text.append("WIN"); break;
+			case 1: text.append("FAIL"); break;
+			default: constant(); break;
+		}
+	}
+
+	/**
+	 * Adds a constant, mostly NUMBRs
+	 */
+	private void constant()
+	{
+		text.append(random.nextInt(1000));
+		if(random.nextInt(4) == 0) text.append('.').append(random.nextInt(100));
+	}
+
+	///////////////////////////
+	// Private - Utilities
+	///////////////////////////
+
+	/**
+	 * Returns a random identifier
+	 * @return
+	 */
+	private String name()
+	{
+		return names[random.nextInt(names.length)];
+	}
+
+	/**
+	 * Indents a line of a block
+	 * @param level
+	 */
+	private void indent(int level)
+	{
+		for(int i = 0; i < level; i++) text.append('\t');
+	}
+
+	/**
+	 * Writes out the generated text
+	 * @throws IOException
+	 */
+	private void flush() throws IOException
+	{
+		byte[] bytes = text.toString().getBytes(StandardCharsets.US_ASCII);
+		out.write(bytes);
+		text.setLength(0);
+		written += bytes.length;
+	}
+
+	/**
+	 * Writes out the generated text once it is a chunk
+	 * @throws IOException
+	 */
+	private void flushFull() throws IOException
+	{
+		if(text.length() >= CHUNK) flush();
+	}
+}
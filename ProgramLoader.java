@@ -0,0 +1,29 @@
+package Backend;
+
+/**
+ * Class loader for classes the BytecodeGenerator emits, so a program can run in the compiler's own JVM.
+ * Generated classes see this compiler's classes (LolRuntime) through the parent loader.
+ * @author kobypascual
+ *
+ */
+public final class ProgramLoader extends ClassLoader
+{
+	/**
+	 * ProgramLoader Constructor.
+	 */
+	public ProgramLoader()
+	{
+		super(ProgramLoader.class.getClassLoader());
+	}
+
+	/**
+	 * Defines a generated class
+	 * @param name binary name of the class (a.b.C)
+	 * @param bytes class file
+	 * @return
+	 */
+	public Class<?> define(String name, byte[] bytes)
+	{
+		return defineClass(name, bytes, 0, bytes.length);
+	}
+}
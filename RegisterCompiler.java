@@ -0,0 +1,752 @@
+package VM;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import Interpreter.Interpreter;
+import Parser.SyntaxTree;
+import Utilities.IntStack;
+import Utilities.SymbolTable;
+import Utilities.Token;
+
+/**
+ * Compiles a parsed Mini-LOL program into a RegisterProgram.
+ * Every identifier and constant keeps its symbol id as its register, WIN and FAIL get the two registers after them
+ * and temporaries for expression results come last. A statement never leaves a temporary behind,
+ * so temporaries are handed out again from the first one at every statement.
+ * The main program comes first and ends with HALT, every function (the last definition of each name) follows it.
+ * @author kobypascual
+ *
+ */
+public final class RegisterCompiler
+{
+	/**
+	 * Program being compiled
+	 */
+	private final SyntaxTree tree;
+
+	/**
+	 * Symbols of the program, register names and constants come from here
+	 */
+	private final SymbolTable symbols;
+
+	/**
+	 * Registers holding WIN and FAIL
+	 */
+	private final int win;
+	private final int fail;
+
+	/**
+	 * First temporary register, the next free one and the most ever used
+	 */
+	private final int firstTemp;
+	private int nextTemp;
+	private int maxTemp;
+
+	////////////////////
+	// Functions
+	////////////////////
+
+	/**
+	 * Function index of each name slot, -1 if no function has that name
+	 */
+	private final int[] functionIndex;
+
+	/**
+	 * Function node of each function index
+	 */
+	private final IntStack functionNodes = new IntStack(8);
+
+	////////////////////
+	// Output
+	////////////////////
+
+	private int[] code = new int[256];
+	private int length = 0;
+
+	/**
+	 * (pc, line) pairs
+	 */
+	private final IntStack lines = new IntStack(64);
+	private int line = -1;
+
+	/**
+	 * Messages of FAIL instructions
+	 */
+	private final ArrayList<String> strings = new ArrayList<String>();
+
+	/**
+	 * Position of each placed label, -1 if it is not placed yet
+	 */
+	private int[] labels = new int[16];
+	private int labelCount = 0;
+
+	/**
+	 * Jump targets to fill in: (position, label, 1 if the target is packed into an opcode word) each
+	 */
+	private final IntStack patches = new IntStack(64);
+
+	/**
+	 * Where GTFO jumps to: the end of each loop and WTF? being compiled, innermost on top
+	 */
+	private final IntStack breakLabels = new IntStack(8);
+
+	/**
+	 * True while a function body is compiled, GTFO and FOUND YR return instead of halting
+	 */
+	private boolean inFunction = false;
+
+	/**
+	 * RegisterCompiler Constructor.
+	 * @param tree
+	 * @param symbols
+	 */
+	public RegisterCompiler(SyntaxTree tree, SymbolTable symbols)
+	{
+		this.tree = tree;
+		this.symbols = symbols;
+
+		int size = symbols.size();
+		win = size;
+		fail = size + 1;
+		firstTemp = size + 2;
+		nextTemp = firstTemp;
+		maxTemp = firstTemp;
+
+		functionIndex = new int[size];
+		Arrays.fill(functionIndex, -1);
+	}
+
+	///////////////////////////
+	// Public - Utilities
+	///////////////////////////
+
+	/**
+	 * Compiles the program
+	 * @return
+	 */
+	public RegisterProgram compile()
+	{
+		findFunctions();
+
+		// Main program
+		int root = tree.root();
+		if(tree.childCount(root) > 0) body(tree.child(root, 0));
+		emit(Opcodes.HALT, 0);
+
+		// Functions
+		int functions = functionNodes.size();
+		String[] functionNames = new String[functions];
+		int[] functionEntries = new int[functions];
+		int[][] functionParams = new int[functions][];
+		inFunction = true;
+		for(int i = 0; i < functions; i++)
+		{
+			int node = functionNodes.get(i);
+			functionNames[i] = name(tree.symbol(tree.child(node, 0)));
+			functionEntries[i] = length;
+			functionParams[i] = params(tree.child(node, 1));
+			body(tree.child(node, 2));
+			emit(Opcodes.RET, 0);
+		}
+
+		patch();
+		return new RegisterProgram(Arrays.copyOf(code, length), maxTemp, names(), constantRegisters(), constantTypes(), constantValues(),
+				functionNames, functionEntries, functionParams, strings.toArray(new String[0]), lines.toArray());
+	}
+
+	///////////////////////////
+	// Statements
+	///////////////////////////
+
+	/**
+	 * Compiles every statement of a <body> chain
+	 * @param body
+	 */
+	private void body(int body)
+	{
+		for(; tree.childCount(body) > 0; body = tree.child(body, 1))
+			statement(tree.child(body, 0));
+	}
+
+	/**
+	 * Compiles one <stmt>
+	 * @param stmt
+	 */
+	private void statement(int stmt)
+	{
+		nextTemp = firstTemp;
+		int node = tree.child(stmt, 0);
+		at(node);
+
+		switch(tree.kind(node))
+		{
+			case SyntaxTree.INPUT:
+				emit(Opcodes.READ, tree.symbol(tree.child(node, 0)));
+				break;
+
+			case SyntaxTree.OUTPUT:
+				emit(Opcodes.PRINT, expr(tree.child(node, 0)));
+				break;
+
+			case SyntaxTree.DECL:
+				char rule = tree.rule(tree.child(node, 1));
+				emit(Opcodes.DECL, tree.symbol(tree.child(node, 0)),
+						rule == 'a' ? Interpreter.NUMBR : rule == 'b' ? Interpreter.NUMBAR : Interpreter.TROOF);
+				break;
+
+			case SyntaxTree.ASMT:
+				int value = expr(tree.child(node, 1));
+				at(node);
+				emit(Opcodes.STORE, tree.symbol(tree.child(node, 0)), value);
+				break;
+
+			case SyntaxTree.LOOP:
+				loop(node);
+				break;
+
+			case SyntaxTree.IF:
+				int otherwise = newLabel();
+				int end = newLabel();
+				jumpIfFalse(bool(tree.child(node, 0)), otherwise);
+				body(tree.child(node, 1));
+				jump(end);
+				place(otherwise);
+				body(tree.child(node, 2));
+				place(end);
+				break;
+
+			case SyntaxTree.CASE:
+				switchCase(node);
+				break;
+
+			case SyntaxTree.RETURN:
+				if(tree.rule(node) == 'a') expr(tree.child(node, 0));	// FOUND YR, evaluated for its errors only
+				else if(!breakLabels.isEmpty())							// GTFO
+				{
+					jump(breakLabels.peek());
+					break;
+				}
+				at(node);
+				emit(inFunction ? Opcodes.RET : Opcodes.HALT, 0);
+				break;
+
+			case SyntaxTree.FUNCTION:
+				break; // compiled after the main program
+
+			case SyntaxTree.CALL:
+				call(node);
+				break;
+		}
+	}
+
+	/**
+	 * IM IN YR label WILE <bool> <body> IM OUTTA YR label
+	 * @param node
+	 */
+	private void loop(int node)
+	{
+		int top = newLabel();
+		int end = newLabel();
+
+		place(top);
+		jumpIfFalse(bool(tree.child(node, 1)), end);
+
+		breakLabels.push(end);
+		body(tree.child(node, 2));
+		breakLabels.pop();
+
+		jump(top);
+		place(end);
+	}
+
+	/**
+	 * WTF? <expr> <omgs> OIC. Every OMG value is tested first, the bodies follow each other so a matching arm
+	 * falls through into the next one, GTFO jumps past the last one.
+	 * @param node
+	 */
+	private void switchCase(int node)
+	{
+		int value = expr(tree.child(node, 0));
+		int end = newLabel();
+
+		IntStack arms = new IntStack(8);
+		for(int omgs = tree.child(node, 1); tree.childCount(omgs) > 0; omgs = tree.child(omgs, 1))
+		{
+			int label = newLabel();
+			arms.push(label);
+
+			int omg = tree.child(omgs, 0);
+			int armValue = tree.child(omg, 0);
+			char rule = tree.rule(armValue);
+			at(omg);
+			emit(Opcodes.JSAME, value, rule == 'a' ? tree.symbol(tree.child(armValue, 0)) : rule == 'b' ? win : fail, 0);
+			patchLater(length - 1, label, false);
+		}
+		jump(end);
+
+		breakLabels.push(end);
+		int i = 0;
+		for(int omgs = tree.child(node, 1); tree.childCount(omgs) > 0; omgs = tree.child(omgs, 1), i++)
+		{
+			place(arms.get(i));
+			body(tree.child(tree.child(omgs, 0), 1));
+		}
+		breakLabels.pop();
+		place(end);
+	}
+
+	/**
+	 * I IZ name <args> MKAY. A missing function or a wrong number of arguments fails when the call runs.
+	 * @param node
+	 */
+	private void call(int node)
+	{
+		int nameSlot = tree.symbol(tree.child(node, 0));
+		int args = tree.child(node, 1);
+		int count = count(args);
+
+		int function = functionIndex[nameSlot];
+		if(function < 0)
+		{
+			emit(Opcodes.FAIL, string("no function named " + name(nameSlot)));
+			return;
+		}
+		int params = count(tree.child(functionNodes.get(function), 1));
+		if(count != params)
+		{
+			emit(Opcodes.FAIL, string(name(nameSlot) + " takes " + params + " arguments, got " + count));
+			return;
+		}
+
+		ensure(2 + count);
+		code[length++] = Opcodes.word(Opcodes.CALL, function);
+		code[length++] = count;
+		for(; tree.childCount(args) > 0; args = tree.child(args, 1))
+			code[length++] = tree.symbol(tree.child(tree.child(args, 0), 0));
+	}
+
+	///////////////////////////
+	// Expressions - each returns the register holding its value
+	///////////////////////////
+
+	/**
+	 * Compiles an <expr>. A variable on its own keeps its type, a TROOF is only read as 1 or 0 by arithmetic.
+	 * @param expr
+	 * @return
+	 */
+	private int expr(int expr)
+	{
+		int node = tree.child(expr, 0);
+		if(tree.kind(node) != SyntaxTree.ARITH) return bool(node);
+
+		switch(tree.rule(node))
+		{
+			case 'e':	// [id]
+				int temp = newTemp();
+				at(node);
+				emit(Opcodes.LOAD, temp, tree.symbol(tree.child(node, 0)));
+				return temp;
+			case 'f':	// [const], always a number
+				return tree.symbol(tree.child(node, 0));
+		}
+		return arith(node);
+	}
+
+	/**
+	 * Compiles an <arith>. Leaves are used as they are, the arithmetic instructions check them.
+	 * Operands are read left to right like the Interpreter reads them: a variable on the left of an operator
+	 * is loaded first, so it fails before anything on the right does.
+	 * @param node
+	 * @return
+	 */
+	private int arith(int node)
+	{
+		int opcode;
+		switch(tree.rule(node))
+		{
+			case 'a': opcode = Opcodes.ADD; break;
+			case 'b': opcode = Opcodes.SUB; break;
+			case 'c': opcode = Opcodes.MUL; break;
+			case 'd': opcode = Opcodes.DIV; break;
+			default: return tree.symbol(tree.child(node, 0));	// [id], [const]
+		}
+
+		int mark = nextTemp;
+		int leftNode = tree.child(node, 0);
+		int rightNode = tree.child(node, 1);
+		int left = arith(leftNode);
+		if(tree.rule(leftNode) == 'e' && tree.rule(rightNode) < 'e')
+		{
+			int temp = newTemp();
+			at(leftNode);
+			emit(Opcodes.LOAD, temp, left);
+			left = temp;
+		}
+		int right = arith(rightNode);
+		nextTemp = mark;
+		int result = newTemp();
+		at(node);
+		emit(opcode, result, left, right);
+		return result;
+	}
+
+	/**
+	 * Compiles a <bool>
+	 * @param node
+	 * @return
+	 */
+	private int bool(int node)
+	{
+		int mark = nextTemp;
+		int result;
+		switch(tree.rule(node))
+		{
+			case 'a':	// BOTH OF
+			case 'b':	// EITHER OF
+				int left = bool(tree.child(node, 0));
+				int right = bool(tree.child(node, 1));
+				nextTemp = mark;
+				result = newTemp();
+				emit(tree.rule(node) == 'a' ? Opcodes.AND : Opcodes.OR, result, left, right);
+				return result;
+
+			case 'c':	// NOT
+				int operand = bool(tree.child(node, 0));
+				nextTemp = mark;
+				result = newTemp();
+				emit(Opcodes.NOT, result, operand);
+				return result;
+
+			case 'd':	// <comp>
+				int comp = tree.child(node, 0);
+				left = expr(tree.child(comp, 0));
+				right = expr(tree.child(comp, 1));
+				nextTemp = mark;
+				result = newTemp();
+				at(comp);
+				emit(tree.rule(comp) == 'a' ? Opcodes.SAME : Opcodes.DIFF, result, left, right);
+				return result;
+
+			case 'e':	// WIN
+				return win;
+
+			default:	// FAIL
+				return fail;
+		}
+	}
+
+	///////////////////////////
+	// Emitting
+	///////////////////////////
+
+	/**
+	 * Adds an instruction of one word
+	 * @param opcode
+	 * @param operand
+	 */
+	private void emit(int opcode, int operand)
+	{
+		ensure(1);
+		code[length++] = Opcodes.word(opcode, operand);
+	}
+
+	/**
+	 * Adds an instruction of two words
+	 * @param opcode
+	 * @param operand
+	 * @param second
+	 */
+	private void emit(int opcode, int operand, int second)
+	{
+		ensure(2);
+		code[length++] = Opcodes.word(opcode, operand);
+		code[length++] = second;
+	}
+
+	/**
+	 * Adds an instruction of three words
+	 * @param opcode
+	 * @param operand
+	 * @param second
+	 * @param third
+	 */
+	private void emit(int opcode, int operand, int second, int third)
+	{
+		ensure(3);
+		code[length++] = Opcodes.word(opcode, operand);
+		code[length++] = second;
+		code[length++] = third;
+	}
+
+	/**
+	 * Jumps to a label
+	 * @param label
+	 */
+	private void jump(int label)
+	{
+		patchLater(length, label, true);
+		emit(Opcodes.JUMP, 0);
+	}
+
+	/**
+	 * Jumps to a label if a register holds FAIL
+	 * @param condition
+	 * @param label
+	 */
+	private void jumpIfFalse(int condition, int label)
+	{
+		emit(Opcodes.JUMPF, condition, 0);
+		patchLater(length - 1, label, false);
+	}
+
+	/**
+	 * Records the line of a node for the instructions that follow
+	 * @param node
+	 */
+	private void at(int node)
+	{
+		int nodeLine = tree.line(node);
+		if(nodeLine == line || nodeLine == 0) return;
+		line = nodeLine;
+		lines.push(length);
+		lines.push(line);
+	}
+
+	/**
+	 * Makes room for more code words
+	 * @param words
+	 */
+	private void ensure(int words)
+	{
+		if(length + words > code.length) code = Arrays.copyOf(code, Math.max(length + words, code.length * 2));
+	}
+
+	///////////////////////////
+	// Labels
+	///////////////////////////
+
+	/**
+	 * Returns a new label that is not placed yet
+	 * @return
+	 */
+	private int newLabel()
+	{
+		if(labelCount == labels.length) labels = Arrays.copyOf(labels, labels.length * 2);
+		labels[labelCount] = -1;
+		return labelCount++;
+	}
+
+	/**
+	 * Places a label at the next instruction
+	 * @param label
+	 */
+	private void place(int label)
+	{
+		labels[label] = length;
+	}
+
+	/**
+	 * Remembers a jump target to fill in once every label is placed
+	 * @param position
+	 * @param label
+	 * @param packed
+	 */
+	private void patchLater(int position, int label, boolean packed)
+	{
+		patches.push(position);
+		patches.push(label);
+		patches.push(packed ? 1 : 0);
+	}
+
+	/**
+	 * Fills in every jump target
+	 */
+	private void patch()
+	{
+		for(int i = 0; i < patches.size(); i += 3)
+		{
+			int position = patches.get(i);
+			int target = labels[patches.get(i + 1)];
+			if(patches.get(i + 2) == 1) code[position] = Opcodes.word(Opcodes.opcode(code[position]), target);
+			else code[position] = target;
+		}
+	}
+
+	///////////////////////////
+	// Tables
+	///////////////////////////
+
+	/**
+	 * Finds the function used for every name, a later definition replaces an earlier one
+	 */
+	private void findFunctions()
+	{
+		for(int node = 0; node < tree.size(); node++)
+		{
+			if(tree.kind(node) != SyntaxTree.FUNCTION || tree.childCount(node) == 0) continue;
+
+			int slot = tree.symbol(tree.child(node, 0));
+			if(functionIndex[slot] < 0)
+			{
+				functionIndex[slot] = functionNodes.size();
+				functionNodes.push(node);
+			}
+			else functionNodes.set(functionIndex[slot], node);
+		}
+	}
+
+	/**
+	 * Returns the parameter registers of an <args> chain
+	 * @param args
+	 * @return
+	 */
+	private int[] params(int args)
+	{
+		int[] params = new int[count(args)];
+		for(int i = 0; i < params.length; i++, args = tree.child(args, 1))
+			params[i] = tree.symbol(tree.child(tree.child(args, 0), 0));
+		return params;
+	}
+
+	/**
+	 * Returns the name of every symbol register, then WIN and FAIL
+	 * @return
+	 */
+	private String[] names()
+	{
+		String[] names = new String[firstTemp];
+		for(int slot = 0; slot < win; slot++) names[slot] = name(slot);
+		names[win] = "WIN";
+		names[fail] = "FAIL";
+		return names;
+	}
+
+	/**
+	 * Returns the registers of every constant, WIN and FAIL last
+	 * @return
+	 */
+	private int[] constantRegisters()
+	{
+		IntStack registers = new IntStack(16);
+		for(int slot = 0; slot < win; slot++)
+			if(isConstant(slot)) registers.push(slot);
+		registers.push(win);
+		registers.push(fail);
+		return registers.toArray();
+	}
+
+	/**
+	 * Returns the type of every constant, in the order of constantRegisters.
+	 * Whole numbers are NUMBRs unless they do not fit in one, the same as in the Interpreter.
+	 * @return
+	 */
+	private byte[] constantTypes()
+	{
+		int[] registers = constantRegisters();
+		byte[] types = new byte[registers.length];
+		for(int i = 0; i < registers.length - 2; i++)
+			types[i] = parseNumbr(name(registers[i])) != null ? Interpreter.NUMBR : Interpreter.NUMBAR;
+		types[registers.length - 2] = Interpreter.TROOF;
+		types[registers.length - 1] = Interpreter.TROOF;
+		return types;
+	}
+
+	/**
+	 * Returns the value of every constant, in the order of constantRegisters
+	 * @return
+	 */
+	private long[] constantValues()
+	{
+		int[] registers = constantRegisters();
+		long[] values = new long[registers.length];
+		for(int i = 0; i < registers.length - 2; i++)
+		{
+			String text = name(registers[i]);
+			Integer numbr = parseNumbr(text);
+			values[i] = numbr != null ? numbr : Double.doubleToLongBits(Double.parseDouble(text));
+		}
+		values[registers.length - 2] = 1;	// WIN
+		values[registers.length - 1] = 0;	// FAIL
+		return values;
+	}
+
+	///////////////////////////
+	// Private - Utilities
+	///////////////////////////
+
+	/**
+	 * Returns the next free temporary register
+	 * @return
+	 */
+	private int newTemp()
+	{
+		int temp = nextTemp++;
+		if(nextTemp > maxTemp) maxTemp = nextTemp;
+		return temp;
+	}
+
+	/**
+	 * Adds a FAIL message and returns its index
+	 * @param message
+	 * @return
+	 */
+	private int string(String message)
+	{
+		int index = strings.indexOf(message);
+		if(index >= 0) return index;
+		strings.add(message);
+		return strings.size() - 1;
+	}
+
+	/**
+	 * Returns the number of items in an <args> chain
+	 * @param args
+	 * @return
+	 */
+	private int count(int args)
+	{
+		int count = 0;
+		for(; tree.childCount(args) > 0; args = tree.child(args, 1)) count++;
+		return count;
+	}
+
+	/**
+	 * Returns true if a slot is a constant
+	 * @param slot
+	 * @return
+	 */
+	private boolean isConstant(int slot)
+	{
+		Token token = symbols.get(slot);
+		return token.getType().equals("constant");
+	}
+
+	/**
+	 * Returns the value of a whole number constant, null if it has a fraction or does not fit in a NUMBR
+	 * @param text
+	 * @return
+	 */
+	private static Integer parseNumbr(String text)
+	{
+		if(text.indexOf('.') >= 0) return null;
+		try
+		{
+			return Integer.parseInt(text);
+		}
+		catch (NumberFormatException e)
+		{
+			return null;
+		}
+	}
+
+	/**
+	 * Returns the name of a slot
+	 * @param slot
+	 * @return
+	 */
+	private String name(int slot)
+	{
+		return symbols.get(slot).getName();
+	}
+}
@@ -0,0 +1,484 @@
+package VM;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.Arrays;
+
+import Interpreter.ExecutionError;
+import Interpreter.Interpreter;
+
+/**
+ * Runs a RegisterProgram. Same semantics as the Interpreter, see there.
+ * Every register has a type tag and a value: NUMBRs and TROOFs (1 or 0) in an int array, NUMBARs in a double array.
+ * The dispatch loop works on local copies of the arrays and never allocates, calls save their parameters in
+ * flat frame arrays that only grow. A machine can run its program once.
+ * @author kobypascual
+ *
+ */
+public final class RegisterMachine
+{
+	private static final byte NOOB = Interpreter.NOOB;
+	private static final byte NUMBR = Interpreter.NUMBR;
+	private static final byte NUMBAR = Interpreter.NUMBAR;
+	private static final byte TROOF = Interpreter.TROOF;
+
+	/**
+	 * Most calls that can be running at once
+	 */
+	private static final int MAX_DEPTH = 100000;
+
+	/**
+	 * Program being run
+	 */
+	private final RegisterProgram program;
+
+	/**
+	 * Where READ reads from
+	 */
+	private final BufferedReader in;
+
+	/**
+	 * Where PRINT writes to
+	 */
+	private final PrintStream out;
+
+	////////////////////
+	// Registers
+	////////////////////
+
+	/**
+	 * Type of the value in each register, NOOB if it has none
+	 */
+	private final byte[] types;
+
+	/**
+	 * Declared type of each register, NOOB if it was never declared
+	 */
+	private final byte[] declared;
+
+	/**
+	 * NUMBR and TROOF values
+	 */
+	private final int[] ints;
+
+	/**
+	 * NUMBAR values
+	 */
+	private final double[] doubles;
+
+	////////////////////
+	// Call Frames - arguments and saved parameters, then (return pc, frame base, function) per running call
+	////////////////////
+
+	private byte[] frameTypes = new byte[64];
+	private byte[] frameDeclared = new byte[64];
+	private int[] frameInts = new int[64];
+	private double[] frameDoubles = new double[64];
+	private int frameTop = 0;
+
+	private int[] calls = new int[48];
+	private int callTop = 0;
+
+	/**
+	 * Number of instructions executed
+	 */
+	private long instructions = 0;
+
+	/**
+	 * RegisterMachine Constructor.
+	 * @param program
+	 * @param in
+	 * @param out
+	 */
+	public RegisterMachine(RegisterProgram program, BufferedReader in, PrintStream out)
+	{
+		this.program = program;
+		this.in = in;
+		this.out = out;
+
+		types = new byte[program.registers];
+		declared = new byte[program.registers];
+		ints = new int[program.registers];
+		doubles = new double[program.registers];
+
+		for(int i = 0; i < program.constantRegisters.length; i++)
+		{
+			int register = program.constantRegisters[i];
+			types[register] = program.constantTypes[i];
+			if(types[register] == NUMBAR) doubles[register] = Double.longBitsToDouble(program.constantValues[i]);
+			else ints[register] = (int) program.constantValues[i];
+		}
+	}
+
+	///////////////////////////
+	// Public - Utilities
+	///////////////////////////
+
+	/**
+	 * Runs the program until HALT
+	 */
+	public void run()
+	{
+		final int[] code = program.code;
+		final byte[] types = this.types;
+		final int[] ints = this.ints;
+		final double[] doubles = this.doubles;
+
+		int pc = 0;
+		long count = 0;
+		try
+		{
+			while(true)
+			{
+				int word = code[pc];
+				int operand = word >>> 8;
+				count++;
+
+				switch(word & 0xFF)
+				{
+					case Opcodes.HALT:
+						return;
+
+					case Opcodes.DECL:
+					{
+						byte type = (byte) code[pc + 1];
+						declared[operand] = type;
+						types[operand] = type;
+						ints[operand] = 0;
+						doubles[operand] = 0;
+						pc += 2;
+						break;
+					}
+
+					case Opcodes.STORE:
+					{
+						int source = code[pc + 1];
+						byte sourceType = types[source];
+						byte type = declared[operand] == NOOB ? sourceType : declared[operand];
+						switch(type)
+						{
+							case NUMBR: ints[operand] = sourceType == NUMBAR ? (int) doubles[source] : ints[source]; break;
+							case NUMBAR: doubles[operand] = sourceType == NUMBAR ? doubles[source] : ints[source]; break;
+							default: ints[operand] = (sourceType == NUMBAR ? doubles[source] != 0 : ints[source] != 0) ? 1 : 0; break;
+						}
+						types[operand] = type;
+						pc += 2;
+						break;
+					}
+
+					case Opcodes.LOAD:
+					{
+						int source = code[pc + 1];
+						if(types[source] == NOOB) throw noValue(pc, source);
+						types[operand] = types[source];
+						ints[operand] = ints[source];
+						doubles[operand] = doubles[source];
+						pc += 2;
+						break;
+					}
+
+					case Opcodes.ADD:
+					case Opcodes.SUB:
+					case Opcodes.MUL:
+					case Opcodes.DIV:
+					{
+						int a = code[pc + 1];
+						int b = code[pc + 2];
+						byte typeA = types[a];
+						byte typeB = types[b];
+						if(typeA == NOOB) throw noValue(pc, a);
+						if(typeB == NOOB) throw noValue(pc, b);
+
+						if(typeA != NUMBAR && typeB != NUMBAR)
+						{
+							// Two NUMBRs (or TROOFs) make a NUMBR, with int overflow like Java
+							int x = ints[a];
+							int y = ints[b];
+							switch(word & 0xFF)
+							{
+								case Opcodes.ADD: ints[operand] = x + y; break;
+								case Opcodes.SUB: ints[operand] = x - y; break;
+								case Opcodes.MUL: ints[operand] = x * y; break;
+								default:
+									if(y == 0) throw new ExecutionError(program.line(pc), "division by zero");
+									ints[operand] = x / y;
+									break;
+							}
+							types[operand] = NUMBR;
+						}
+						else
+						{
+							double x = typeA == NUMBAR ? doubles[a] : ints[a];
+							double y = typeB == NUMBAR ? doubles[b] : ints[b];
+							switch(word & 0xFF)
+							{
+								case Opcodes.ADD: doubles[operand] = x + y; break;
+								case Opcodes.SUB: doubles[operand] = x - y; break;
+								case Opcodes.MUL: doubles[operand] = x * y; break;
+								default: doubles[operand] = x / y; break;
+							}
+							types[operand] = NUMBAR;
+						}
+						pc += 3;
+						break;
+					}
+
+					case Opcodes.AND:
+						ints[operand] = ints[code[pc + 1]] & ints[code[pc + 2]];
+						types[operand] = TROOF;
+						pc += 3;
+						break;
+
+					case Opcodes.OR:
+						ints[operand] = ints[code[pc + 1]] | ints[code[pc + 2]];
+						types[operand] = TROOF;
+						pc += 3;
+						break;
+
+					case Opcodes.NOT:
+						ints[operand] = ints[code[pc + 1]] ^ 1;
+						types[operand] = TROOF;
+						pc += 2;
+						break;
+
+					case Opcodes.SAME:
+					case Opcodes.DIFF:
+					{
+						boolean same = same(code[pc + 1], code[pc + 2]);
+						ints[operand] = same == ((word & 0xFF) == Opcodes.SAME) ? 1 : 0;
+						types[operand] = TROOF;
+						pc += 3;
+						break;
+					}
+
+					case Opcodes.JUMP:
+						pc = operand;
+						break;
+
+					case Opcodes.JUMPF:
+						pc = ints[operand] == 0 ? code[pc + 1] : pc + 2;
+						break;
+
+					case Opcodes.JSAME:
+						pc = same(operand, code[pc + 1]) ? code[pc + 2] : pc + 3;
+						break;
+
+					case Opcodes.PRINT:
+						switch(types[operand])
+						{
+							case NUMBR: out.println(ints[operand]); break;
+							case NUMBAR: out.println(doubles[operand]); break;
+							default: out.println(ints[operand] != 0 ? "WIN" : "FAIL"); break;
+						}
+						pc += 1;
+						break;
+
+					case Opcodes.READ:
+						read(pc, operand);
+						pc += 1;
+						break;
+
+					case Opcodes.CALL:
+						pc = call(pc, operand);
+						break;
+
+					case Opcodes.RET:
+						if(callTop == 0) throw new ExecutionError(program.line(pc), "return outside of a function");
+						pc = ret();
+						break;
+
+					case Opcodes.FAIL:
+						throw new ExecutionError(program.line(pc), program.strings[operand]);
+
+					default:
+						throw new IllegalStateException("unknown opcode " + (word & 0xFF) + " at " + pc);
+				}
+			}
+		}
+		finally
+		{
+			instructions = count;
+			out.flush();
+		}
+	}
+
+	/**
+	 * Returns the number of instructions executed
+	 * @return
+	 */
+	public long getInstructions()
+	{
+		return instructions;
+	}
+
+	/**
+	 * Returns the type of the value in a register
+	 * @param register
+	 * @return
+	 */
+	public byte typeOf(int register)
+	{
+		return types[register];
+	}
+
+	///////////////////////////
+	// Private - Instructions
+	///////////////////////////
+
+	/**
+	 * Returns true if two registers hold the same value: numbers by value, TROOFs with TROOFs
+	 * @param a
+	 * @param b
+	 * @return
+	 */
+	private boolean same(int a, int b)
+	{
+		byte typeA = types[a];
+		byte typeB = types[b];
+		if(typeA == TROOF || typeB == TROOF) return typeA == typeB && ints[a] == ints[b];
+		return (typeA == NUMBAR ? doubles[a] : ints[a]) == (typeB == NUMBAR ? doubles[b] : ints[b]);
+	}
+
+	/**
+	 * CALL: copies the arguments into the parameters of the function, saving the old parameter values
+	 * @param pc
+	 * @param function
+	 * @return the entry of the function
+	 */
+	private int call(int pc, int function)
+	{
+		if(callTop == MAX_DEPTH * 3) throw new ExecutionError(program.line(pc), "too many calls running at once");
+
+		final int[] code = program.code;
+		int[] params = program.functionParams[function];
+		int count = code[pc + 1];
+
+		// Frame holds the argument values first, then the old parameter values
+		int base = frameTop;
+		ensureFrame(base + 2 * count);
+		for(int i = 0; i < count; i++) save(code[pc + 2 + i]);
+		for(int param : params) save(param);
+
+		// Bind, parameters take the type of their argument
+		for(int i = 0; i < count; i++)
+		{
+			restore(params[i], base + i);
+			declared[params[i]] = NOOB;
+		}
+
+		if(callTop + 3 > calls.length) calls = Arrays.copyOf(calls, calls.length * 2);
+		calls[callTop++] = pc + 2 + count;
+		calls[callTop++] = base;
+		calls[callTop++] = function;
+		return program.functionEntries[function];
+	}
+
+	/**
+	 * RET: gives the parameters of the returning function their old values back
+	 * @return the instruction after the CALL
+	 */
+	private int ret()
+	{
+		int[] params = program.functionParams[calls[--callTop]];
+		int base = calls[--callTop];
+		int pc = calls[--callTop];
+
+		for(int i = 0; i < params.length; i++) restore(params[i], base + params.length + i);
+		frameTop = base;
+		return pc;
+	}
+
+	/**
+	 * READ: reads one line and stores it as the declared type of the register,
+	 * or as whatever it looks like if the register has no type
+	 * @param pc
+	 * @param register
+	 */
+	private void read(int pc, int register)
+	{
+		out.flush();
+
+		String line;
+		try
+		{
+			line = in.readLine();
+		}
+		catch (IOException e)
+		{
+			throw new ExecutionError(program.line(pc), e.toString());
+		}
+		if(line == null) throw new ExecutionError(program.line(pc), "no input left for " + program.name(register));
+		line = line.trim();
+
+		try
+		{
+			byte type = declared[register];
+			if(type == NOOB) type = line.equals("WIN") || line.equals("FAIL") ? TROOF : line.indexOf('.') >= 0 ? NUMBAR : NUMBR;
+
+			if(type == TROOF) ints[register] = line.equals("WIN") ? 1 : 0;
+			else if(type == NUMBAR) doubles[register] = Double.parseDouble(line);
+			else ints[register] = Integer.parseInt(line);
+			types[register] = type;
+		}
+		catch (NumberFormatException e)
+		{
+			throw new ExecutionError(program.line(pc), "\"" + line + "\" is not a value for " + program.name(register));
+		}
+	}
+
+	///////////////////////////
+	// Private - Utilities
+	///////////////////////////
+
+	/**
+	 * Error for reading a register that has no value
+	 * @param pc
+	 * @param register
+	 * @return
+	 */
+	private ExecutionError noValue(int pc, int register)
+	{
+		return new ExecutionError(program.line(pc), program.name(register) + " has no value");
+	}
+
+	/**
+	 * Pushes the value of a register onto the call frames
+	 * @param register
+	 */
+	private void save(int register)
+	{
+		frameTypes[frameTop] = types[register];
+		frameDeclared[frameTop] = declared[register];
+		frameInts[frameTop] = ints[register];
+		frameDoubles[frameTop] = doubles[register];
+		frameTop++;
+	}
+
+	/**
+	 * Copies a saved value back into a register
+	 * @param register
+	 * @param index
+	 */
+	private void restore(int register, int index)
+	{
+		types[register] = frameTypes[index];
+		declared[register] = frameDeclared[index];
+		ints[register] = frameInts[index];
+		doubles[register] = frameDoubles[index];
+	}
+
+	/**
+	 * Makes room for the given number of saved values
+	 * @param size
+	 */
+	private void ensureFrame(int size)
+	{
+		if(size <= frameTypes.length) return;
+		int capacity = Math.max(size, frameTypes.length * 2);
+		frameTypes = Arrays.copyOf(frameTypes, capacity);
+		frameDeclared = Arrays.copyOf(frameDeclared, capacity);
+		frameInts = Arrays.copyOf(frameInts, capacity);
+		frameDoubles = Arrays.copyOf(frameDoubles, capacity);
+	}
+}
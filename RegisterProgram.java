@@ -0,0 +1,489 @@
+package VM;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+
+import Interpreter.Interpreter;
+
+/**
+ * A Mini-LOL program compiled for the RegisterMachine (see Opcodes), with everything it needs to run:
+ * no syntax tree or symbol table is kept, so a program can be written to disk and loaded again without the source.
+ * Registers 0 .. variables-1 are the variables and constants of the program, the rest are temporaries.
+ * Every program is verified when it is built or read, so the machine never runs an instruction
+ * with a register, jump target, function or string that does not exist.
+ *
+ * File format, big endian:
+ *   int 'LOLV', short version
+ *   int registers, int names, then a UTF name per named register
+ *   int constants, then (int register, byte type, long value) each, a NUMBAR value as its double bits
+ *   int functions, then (UTF name, int entry, int parameters, int register per parameter) each
+ *   int strings, then a UTF string each
+ *   int code length, then the code words
+ *   int line table length, then (pc, line) pairs
+ * A file is read whole first, so a length that does not fit in the rest of the file is rejected before anything is allocated.
+ * @author kobypascual
+ *
+ */
+public final class RegisterProgram
+{
+	/**
+	 * First bytes of a program file
+	 */
+	private static final int MAGIC = 0x4C4F4C56;
+
+	/**
+	 * Version of the file format, changes whenever the format or the instruction set does
+	 */
+	private static final int VERSION = 2;
+
+	/**
+	 * Instructions
+	 */
+	final int[] code;
+
+	/**
+	 * Number of registers
+	 */
+	final int registers;
+
+	/**
+	 * Name of each named register (variables and constants), used in error messages
+	 */
+	final String[] names;
+
+	/**
+	 * Registers with a value from the start, their types and values
+	 */
+	final int[] constantRegisters;
+	final byte[] constantTypes;
+	final long[] constantValues;
+
+	/**
+	 * Name, first instruction and parameter registers of each function
+	 */
+	final String[] functionNames;
+	final int[] functionEntries;
+	final int[][] functionParams;
+
+	/**
+	 * Messages of FAIL instructions
+	 */
+	final String[] strings;
+
+	/**
+	 * (pc, line) pairs sorted by pc, an instruction is on the line of the last pair at or before it
+	 */
+	final int[] lines;
+
+	/**
+	 * RegisterProgram Constructor. Verifies the program.
+	 * @param code
+	 * @param registers
+	 * @param names
+	 * @param constantRegisters
+	 * @param constantTypes
+	 * @param constantValues
+	 * @param functionNames
+	 * @param functionEntries
+	 * @param functionParams
+	 * @param strings
+	 * @param lines
+	 */
+	RegisterProgram(int[] code, int registers, String[] names, int[] constantRegisters, byte[] constantTypes, long[] constantValues,
+			String[] functionNames, int[] functionEntries, int[][] functionParams, String[] strings, int[] lines)
+	{
+		this.code = code;
+		this.registers = registers;
+		this.names = names;
+		this.constantRegisters = constantRegisters;
+		this.constantTypes = constantTypes;
+		this.constantValues = constantValues;
+		this.functionNames = functionNames;
+		this.functionEntries = functionEntries;
+		this.functionParams = functionParams;
+		this.strings = strings;
+		this.lines = lines;
+
+		verify();
+	}
+
+	///////////////////////////
+	// Public - Accessors
+	///////////////////////////
+
+	/**
+	 * Returns the number of code words
+	 * @return
+	 */
+	public int size()
+	{
+		return code.length;
+	}
+
+	/**
+	 * Returns the number of registers
+	 * @return
+	 */
+	public int registers()
+	{
+		return registers;
+	}
+
+	/**
+	 * Returns the source line of an instruction, 0 if it is unknown
+	 * @param pc
+	 * @return
+	 */
+	public int line(int pc)
+	{
+		// Last pair at or before pc
+		int low = 0;
+		int high = lines.length / 2 - 1;
+		int line = 0;
+		while(low <= high)
+		{
+			int middle = (low + high) >>> 1;
+			if(lines[middle * 2] <= pc)
+			{
+				line = lines[middle * 2 + 1];
+				low = middle + 1;
+			}
+			else high = middle - 1;
+		}
+		return line;
+	}
+
+	/**
+	 * Returns the name of a register, temporaries are t0, t1, ...
+	 * @param register
+	 * @return
+	 */
+	public String name(int register)
+	{
+		return register < names.length ? names[register] : "t" + (register - names.length);
+	}
+
+	///////////////////////////
+	// Public - Utilities
+	///////////////////////////
+
+	/**
+	 * Writes the program in the file format
+	 * @param output
+	 * @throws IOException
+	 */
+	public void write(OutputStream output) throws IOException
+	{
+		DataOutputStream out = new DataOutputStream(output);
+		out.writeInt(MAGIC);
+		out.writeShort(VERSION);
+
+		out.writeInt(registers);
+		out.writeInt(names.length);
+		for(String name : names) out.writeUTF(name);
+
+		out.writeInt(constantRegisters.length);
+		for(int i = 0; i < constantRegisters.length; i++)
+		{
+			out.writeInt(constantRegisters[i]);
+			out.writeByte(constantTypes[i]);
+			out.writeLong(constantValues[i]);
+		}
+
+		out.writeInt(functionNames.length);
+		for(int i = 0; i < functionNames.length; i++)
+		{
+			out.writeUTF(functionNames[i]);
+			out.writeInt(functionEntries[i]);
+			out.writeInt(functionParams[i].length);
+			for(int param : functionParams[i]) out.writeInt(param);
+		}
+
+		out.writeInt(strings.length);
+		for(String string : strings) out.writeUTF(string);
+
+		writeInts(out, code);
+		writeInts(out, lines);
+		out.flush();
+	}
+
+	/**
+	 * Reads a program written by write
+	 * @param input
+	 * @return
+	 * @throws IOException if it is not a program file, has another version, is cut off or does not verify
+	 */
+	public static RegisterProgram read(InputStream input) throws IOException
+	{
+		try
+		{
+			return readParts(new DataInputStream(new ByteArrayInputStream(input.readAllBytes())));
+		}
+		catch (EOFException e)
+		{
+			throw new IOException("program file is cut off");
+		}
+	}
+
+	/**
+	 * Reads the parts of a program file
+	 * @param in
+	 * @return
+	 * @throws IOException
+	 */
+	private static RegisterProgram readParts(DataInputStream in) throws IOException
+	{
+		if(in.readInt() != MAGIC) throw new IOException("not a compiled Mini-LOL program");
+		int version = in.readUnsignedShort();
+		if(version != VERSION) throw new IOException("program has version " + version + ", expected " + VERSION);
+
+		int registers = in.readInt();
+		String[] names = new String[count(in, 2)];
+		for(int i = 0; i < names.length; i++) names[i] = in.readUTF();
+
+		int constants = count(in, 13);
+		int[] constantRegisters = new int[constants];
+		byte[] constantTypes = new byte[constants];
+		long[] constantValues = new long[constants];
+		for(int i = 0; i < constants; i++)
+		{
+			constantRegisters[i] = in.readInt();
+			constantTypes[i] = in.readByte();
+			constantValues[i] = in.readLong();
+		}
+
+		int functions = count(in, 10);
+		String[] functionNames = new String[functions];
+		int[] functionEntries = new int[functions];
+		int[][] functionParams = new int[functions][];
+		for(int i = 0; i < functions; i++)
+		{
+			functionNames[i] = in.readUTF();
+			functionEntries[i] = in.readInt();
+			functionParams[i] = readInts(in);
+		}
+
+		String[] strings = new String[count(in, 2)];
+		for(int i = 0; i < strings.length; i++) strings[i] = in.readUTF();
+
+		int[] code = readInts(in);
+		int[] lines = readInts(in);
+
+		try
+		{
+			return new RegisterProgram(code, registers, names, constantRegisters, constantTypes, constantValues,
+					functionNames, functionEntries, functionParams, strings, lines);
+		}
+		catch (IllegalArgumentException e)
+		{
+			throw new IOException("program does not verify: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Prints every instruction, one per line, with its pc and source line
+	 * @param out
+	 */
+	public void print(PrintStream out)
+	{
+		for(int i = 0; i < functionNames.length; i++)
+			out.println("function " + functionNames[i] + " at " + functionEntries[i]);
+
+		int line = -1;
+		for(int pc = 0; pc < code.length; pc += Opcodes.length(code, pc))
+		{
+			StringBuilder text = new StringBuilder();
+			text.append(pc).append('\t');
+			if(line(pc) != line)
+			{
+				line = line(pc);
+				text.append(line);
+			}
+			text.append('\t').append(Opcodes.name(Opcodes.opcode(code[pc])));
+
+			int opcode = Opcodes.opcode(code[pc]);
+			int operand = Opcodes.operand(code[pc]);
+			switch(opcode)
+			{
+				case Opcodes.HALT:
+				case Opcodes.RET:
+					break;
+				case Opcodes.JUMP:
+					text.append(' ').append(operand);
+					break;
+				case Opcodes.JUMPF:
+					text.append(' ').append(name(operand)).append(", ").append(code[pc + 1]);
+					break;
+				case Opcodes.JSAME:
+					text.append(' ').append(name(operand)).append(", ").append(name(code[pc + 1])).append(", ").append(code[pc + 2]);
+					break;
+				case Opcodes.DECL:
+					text.append(' ').append(name(operand)).append(", ").append(code[pc + 1]);
+					break;
+				case Opcodes.CALL:
+					text.append(' ').append(functionNames[operand]);
+					for(int i = 0; i < code[pc + 1]; i++) text.append(", ").append(name(code[pc + 2 + i]));
+					break;
+				case Opcodes.FAIL:
+					text.append(" \"").append(strings[operand]).append('"');
+					break;
+				default:
+					text.append(' ').append(name(operand));
+					for(int i = 1; i < Opcodes.length(code, pc); i++) text.append(", ").append(name(code[pc + i]));
+					break;
+			}
+			out.println(text);
+		}
+	}
+
+	///////////////////////////
+	// Private - Verification
+	///////////////////////////
+
+	/**
+	 * Checks every instruction and table entry
+	 * @throws IllegalArgumentException if anything refers to something that does not exist
+	 */
+	private void verify()
+	{
+		if(registers < names.length) check(false, "fewer registers than names");
+		// Every temporary is used by some instruction, this keeps a file from asking the machine for any number of registers
+		check(registers - names.length <= code.length, "more temporaries than instructions");
+		for(int i = 0; i < constantRegisters.length; i++)
+		{
+			checkRegister(constantRegisters[i]);
+			check(constantTypes[i] >= Interpreter.NUMBR && constantTypes[i] <= Interpreter.TROOF, "constant of unknown type");
+		}
+		for(int i = 0; i < functionNames.length; i++)
+			for(int param : functionParams[i]) checkRegister(param);
+		check(lines.length % 2 == 0, "odd line table");
+
+		// Mark where every instruction starts, then check targets land on one
+		boolean[] starts = new boolean[code.length + 1];
+		int pc = 0;
+		int opcode = Opcodes.HALT;
+		while(pc < code.length)
+		{
+			opcode = Opcodes.opcode(code[pc]);
+			check(Opcodes.isValid(opcode), "unknown opcode " + opcode + " at " + pc);
+			check(opcode != Opcodes.CALL || (pc + 1 < code.length && code[pc + 1] >= 0 && code[pc + 1] <= code.length), "bad CALL at " + pc);
+			starts[pc] = true;
+			pc += Opcodes.length(code, pc);
+		}
+		check(pc == code.length, "last instruction is cut off");
+		check(code.length > 0, "no code");
+		check(opcode == Opcodes.HALT || opcode == Opcodes.RET || opcode == Opcodes.JUMP || opcode == Opcodes.FAIL, "code runs off its end");
+
+		for(int i = 0; i < functionNames.length; i++)
+			check(functionEntries[i] >= 0 && functionEntries[i] < code.length && starts[functionEntries[i]], "bad entry of " + functionNames[i]);
+
+		for(pc = 0; pc < code.length; pc += Opcodes.length(code, pc))
+		{
+			int operand = Opcodes.operand(code[pc]);
+			switch(Opcodes.opcode(code[pc]))
+			{
+				case Opcodes.HALT:
+				case Opcodes.RET:
+					break;
+				case Opcodes.DECL:
+					checkRegister(operand);
+					check(code[pc + 1] >= Interpreter.NUMBR && code[pc + 1] <= Interpreter.TROOF, "DECL of unknown type at " + pc);
+					break;
+				case Opcodes.JUMP:
+					check(operand < code.length && starts[operand], "bad jump at " + pc);
+					break;
+				case Opcodes.JUMPF:
+					checkRegister(operand);
+					check(code[pc + 1] >= 0 && code[pc + 1] < code.length && starts[code[pc + 1]], "bad jump at " + pc);
+					break;
+				case Opcodes.JSAME:
+					checkRegister(operand);
+					checkRegister(code[pc + 1]);
+					check(code[pc + 2] >= 0 && code[pc + 2] < code.length && starts[code[pc + 2]], "bad jump at " + pc);
+					break;
+				case Opcodes.CALL:
+					check(operand < functionNames.length, "call of unknown function at " + pc);
+					check(code[pc + 1] == functionParams[operand].length, "wrong argument count at " + pc);
+					for(int i = 0; i < code[pc + 1]; i++) checkRegister(code[pc + 2 + i]);
+					break;
+				case Opcodes.FAIL:
+					check(operand < strings.length, "unknown string at " + pc);
+					break;
+				default:
+					// Every other operand is a register
+					checkRegister(operand);
+					for(int i = 1; i < Opcodes.length(code, pc); i++) checkRegister(code[pc + i]);
+					break;
+			}
+		}
+	}
+
+	/**
+	 * Checks that a register exists
+	 * @param register
+	 */
+	private void checkRegister(int register)
+	{
+		check(register >= 0 && register < registers, "register " + register + " does not exist");
+	}
+
+	/**
+	 * Fails verification if a condition does not hold
+	 * @param condition
+	 * @param message
+	 */
+	private static void check(boolean condition, String message)
+	{
+		if(!condition) throw new IllegalArgumentException(message);
+	}
+
+	///////////////////////////
+	// Private - Utilities
+	///////////////////////////
+
+	/**
+	 * Writes a length and the ints
+	 * @param out
+	 * @param values
+	 * @throws IOException
+	 */
+	private static void writeInts(DataOutputStream out, int[] values) throws IOException
+	{
+		out.writeInt(values.length);
+		for(int value : values) out.writeInt(value);
+	}
+
+	/**
+	 * Reads a length and that many ints
+	 * @param in
+	 * @return
+	 * @throws IOException
+	 */
+	private static int[] readInts(DataInputStream in) throws IOException
+	{
+		int[] values = new int[count(in, 4)];
+		for(int i = 0; i < values.length; i++) values[i] = in.readInt();
+		return values;
+	}
+
+	/**
+	 * Reads a length
+	 * @param in
+	 * @param itemBytes the fewest bytes one item takes in the file
+	 * @return
+	 * @throws IOException if it is negative or that many items do not fit in the rest of the file
+	 */
+	private static int count(DataInputStream in, int itemBytes) throws IOException
+	{
+		int count = in.readInt();
+		if(count < 0) throw new IOException("negative length in program file");
+		if(count > in.available() / itemBytes) throw new IOException("length " + count + " runs past the end of the program file");
+		return count;
+	}
+}
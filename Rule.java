@@ -1,7 +1,5 @@
 package Utilities;
 
-import java.util.ArrayList;
-
 // TODO - stub code class
 public class Rule
 {
@@ -31,14 +29,15 @@ public class Rule
 	public int final_state;
 
 	/**
-	 * List of integers to be pushed onto the stack
+	 * Integers to be pushed onto the stack, stored in reverse order (last symbol of the rule first)
+	 * so the whole array can be copied onto the stack at once. Null if the rule pushes nothing.
 	 */
-	public ArrayList<Integer> toPush = new ArrayList<Integer>();
+	public int[] toPush;
 
 	/**
-	 * List of integers that correspond to the look ahead values for this rule
+	 * Integers that correspond to the look ahead values for this rule
 	 */
-	public ArrayList<Integer> lookahead = new ArrayList<Integer>();
+	public int[] lookahead;
 
 	/**
 	 *	Secondary id associated with the specific rule
@@ -64,11 +63,11 @@ public class Rule
 		this.top = top;
 		this.final_state = final_state;
 
+		this.toPush = new int[push.length];
 		for(int i = 0; i < push.length; i++)
-			this.toPush.add(push[i]);
+			this.toPush[i] = push[push.length - 1 - i];
 
-		for(int i = 0; i < lookahead.length; i++)
-			this.lookahead.add(lookahead[i]);
+		this.lookahead = lookahead.clone();
 
 		this.sub_id = sub;
 	}
@@ -92,10 +91,11 @@ public class Rule
 		this.top = top;
 		this.final_state = final_state;
 
+		this.toPush = new int[push.length];
 		for(int i = 0; i < push.length; i++)
-			this.toPush.add(push[i]);
+			this.toPush[i] = push[push.length - 1 - i];
 
-		this.lookahead.add(lookahead);
+		this.lookahead = new int[]{lookahead};
 
 		this.sub_id = sub;
 	}
@@ -117,10 +117,9 @@ public class Rule
 		this.consume = consume;
 		this.top = top;
 		this.final_state = final_state;
-		this.toPush.add(push);
+		this.toPush = new int[]{push};
 
-		for(int i = 0; i < lookahead.length; i++)
-			this.lookahead.add(lookahead[i]);
+		this.lookahead = lookahead.clone();
 
 		this.sub_id = sub;
 	}
@@ -142,8 +141,8 @@ public class Rule
 		this.consume = consume;
 		this.top = top;
 		this.final_state = final_state;
-		this.toPush.add(push);
-		this.lookahead.add(lookahead);
+		this.toPush = new int[]{push};
+		this.lookahead = new int[]{lookahead};
 		this.sub_id = sub;
 	}
 
@@ -166,8 +165,7 @@ public class Rule
 		this.final_state = final_state;
 		this.toPush = null;
 
-		for(int i = 0; i < lookahead.length; i++)
-			this.lookahead.add(lookahead[i]);
+		this.lookahead = lookahead.clone();
 
 		this.sub_id = sub;
 	}
@@ -190,7 +188,7 @@ public class Rule
 		this.top = top;
 		this.final_state = final_state;
 		this.toPush = null;
-		this.lookahead.add(lookahead);
+		this.lookahead = new int[]{lookahead};
 		this.sub_id = sub;
 	}
 }
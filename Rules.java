@@ -1,18 +1,208 @@
 package Utilities;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 public final class Rules
 {
-	//	public static ArrayList<ArrayList<Rule> rules = new ArrayList<Rule>();
-	public static HashMap<Integer, ArrayList<Rule>> rules = new HashMap<Integer, ArrayList<Rule>>();
+	/**
+	 * Rules of each stacktop symbol. Filled once by Parser.setGrammar, read-only after build.
+	 */
+	private static Map<Integer, List<Rule>> rules = new HashMap<Integer, List<Rule>>();
+
+	/**
+	 * Every rule, indexed by rule index
+	 */
+	private static Rule[] ruleList = new Rule[0];
+
+	/**
+	 * Parse table. table[stacktop][lookahead] = index into ruleList, -1 if no rule matches.
+	 */
+	private static int[][] table = new int[0][0];
+
+	/**
+	 * FOLLOW set of each non-terminal: bit t is set if terminal t can come right after it.
+	 * Terminals are 1 - 41, so a whole set fits in one long.
+	 */
+	private static long[] follow = new long[0];
 
 	/**
-	 * Given a stacktop symbol (in integer form), return a list of rules that match it.
+	 * Given a stacktop symbol (in integer form), return a list of rules that match it. The list can not be changed.
 	 */
-	public static ArrayList<Rule> getRules(int stacktop)
+	public static List<Rule> getRules(int stacktop)
 	{
 		return rules.get(stacktop);
 	}
+
+	/**
+	 * Adds a rule for a stacktop symbol. Only while the grammar is set, the rules can not change once they are built.
+	 * @param stacktop
+	 * @param rule
+	 */
+	public static void addRule(int stacktop, Rule rule)
+	{
+		rules.computeIfAbsent(stacktop, key -> new ArrayList<Rule>()).add(rule);
+	}
+
+	/**
+	 * Builds the parse table and the FOLLOW sets from the rules, then makes the rules read-only.
+	 * Called once all rules are added.
+	 * @param symbols number of grammar symbols (stacktop values)
+	 * @param terminals number of terminal symbols (lookahead values)
+	 */
+	public static void build(int symbols, int terminals)
+	{
+		buildTable(symbols, terminals);
+		buildFollow(symbols, terminals);
+
+		Map<Integer, List<Rule>> frozen = new HashMap<Integer, List<Rule>>();
+		for(int stacktop = 0; stacktop < symbols; stacktop++)
+			frozen.put(stacktop, Collections.unmodifiableList(new ArrayList<Rule>(rules.getOrDefault(stacktop, List.of()))));
+		rules = Collections.unmodifiableMap(frozen);
+	}
+
+	/**
+	 * Given a stacktop symbol and a lookahead (in integer form), return the rule to use. Null if no rule matches.
+	 * One array access once the table is built.
+	 * @param stacktop
+	 * @param lookahead
+	 * @return
+	 */
+	public static Rule getRule(int stacktop, int lookahead)
+	{
+		if(stacktop < 0 || stacktop >= table.length || lookahead < 0 || lookahead >= table[stacktop].length) return null;
+
+		int index = table[stacktop][lookahead];
+		return index == -1 ? null : ruleList[index];
+	}
+
+	/**
+	 * Returns true if a terminal can come right after a non-terminal, that is if it is in the FOLLOW set of the non-terminal
+	 * @param nonterminal
+	 * @param terminal
+	 * @return
+	 */
+	public static boolean follows(int nonterminal, int terminal)
+	{
+		if(nonterminal < 0 || nonterminal >= follow.length || terminal < 0 || terminal >= 64) return false;
+		return (follow[nonterminal] & (1L << terminal)) != 0;
+	}
+
+	///////////////////////////
+	// Private - Building
+	///////////////////////////
+
+	/**
+	 * Builds the dense parse table from the rules.
+	 * If two rules of the same stacktop share a lookahead the one added first wins.
+	 * @param symbols number of grammar symbols (stacktop values)
+	 * @param terminals number of terminal symbols (lookahead values)
+	 */
+	private static void buildTable(int symbols, int terminals)
+	{
+		ArrayList<Rule> all = new ArrayList<Rule>();
+		int[][] newTable = new int[symbols][terminals];
+
+		for(int stacktop = 0; stacktop < symbols; stacktop++)
+		{
+			Arrays.fill(newTable[stacktop], -1);
+			if(rules.get(stacktop) == null) continue;
+
+			for(Rule rule : rules.get(stacktop))
+			{
+				int index = all.size();
+				all.add(rule);
+
+				for(int la : rule.lookahead)
+				{
+					if(la >= 0 && la < terminals && newTable[stacktop][la] == -1)
+						newTable[stacktop][la] = index;
+				}
+			}
+		}
+
+		ruleList = all.toArray(new Rule[all.size()]);
+		table = newTable;
+	}
+
+	/**
+	 * Computes the FOLLOW set of every non-terminal from the rules.
+	 * A rule with nothing to push is an epsilon rule for a non-terminal, toPush holds the right side in reverse.
+	 * First the non-terminals that can derive nothing (nullable) and the FIRST sets are found,
+	 * then FOLLOW sets are grown until nothing changes.
+	 * @param symbols number of grammar symbols (stacktop values)
+	 * @param terminals number of terminal symbols, symbols from here on are non-terminals
+	 */
+	private static void buildFollow(int symbols, int terminals)
+	{
+		boolean[] nullable = new boolean[symbols];
+		long[] first = new long[symbols];
+		long[] newFollow = new long[symbols];
+		for(int terminal = 1; terminal < terminals; terminal++) first[terminal] = 1L << terminal;
+
+		// Nullable and FIRST
+		boolean changed = true;
+		while(changed)
+		{
+			changed = false;
+			for(int nonterminal = terminals; nonterminal < symbols; nonterminal++)
+			{
+				if(rules.get(nonterminal) == null) continue;
+				for(Rule rule : rules.get(nonterminal))
+				{
+					int[] push = rule.toPush == null ? new int[0] : rule.toPush;
+					long set = first[nonterminal];
+					boolean allNullable = true;
+
+					// toPush is reversed, the right side starts at its end
+					for(int i = push.length - 1; i >= 0 && allNullable; i--)
+					{
+						set |= first[push[i]];
+						allNullable = nullable[push[i]];
+					}
+
+					if(set != first[nonterminal] || (allNullable && !nullable[nonterminal]))
+					{
+						first[nonterminal] = set;
+						nullable[nonterminal] |= allNullable;
+						changed = true;
+					}
+				}
+			}
+		}
+
+		// FOLLOW - what can follow a symbol is what starts the rest of the right side,
+		// and what follows the left side if the rest of the right side can derive nothing
+		changed = true;
+		while(changed)
+		{
+			changed = false;
+			for(int nonterminal = terminals; nonterminal < symbols; nonterminal++)
+			{
+				if(rules.get(nonterminal) == null) continue;
+				for(Rule rule : rules.get(nonterminal))
+				{
+					if(rule.toPush == null) continue;
+
+					// Walk the right side from its last symbol (toPush[0]) to its first
+					long rest = newFollow[nonterminal];
+					for(int symbol : rule.toPush)
+					{
+						if(symbol >= terminals && (newFollow[symbol] | rest) != newFollow[symbol])
+						{
+							newFollow[symbol] |= rest;
+							changed = true;
+						}
+						rest = nullable[symbol] ? rest | first[symbol] : first[symbol];
+					}
+				}
+			}
+		}
+
+		follow = newFollow;
+	}
 }
@@ -0,0 +1,298 @@
+package Scanner;
+
+import java.util.Arrays;
+
+/**
+ * Compiled transition table for the scanner DFA.
+ * Every state has one row of int[NUM_CLASSES] holding the next state for each character class.
+ * Keywords are compiled into a trie of states, identifiers, constants, ';' and white space have their own states.
+ * Every accepting state also knows the integer code of the token it accepts, so a token is classified once, when it is scanned.
+ * Static class. Table is built once when the class is loaded and never changes afterwards.
+ * @author kobypascual
+ *
+ */
+public final class ScannerDFA
+{
+	////////////////////
+	// Token Groups - which routine a state belongs to
+	////////////////////
+
+	public static final int NONE = 0;
+	public static final int KEYWORD = 1;
+	public static final int IDENTIFIER = 2;
+	public static final int CONSTANT = 3;
+	public static final int SSYMBOL = 4;
+	public static final int WHITESPACE = 5;
+
+	////////////////////
+	// Fixed States
+	////////////////////
+
+	/**
+	 * Start state, nothing has been scanned yet
+	 */
+	public static final int START = 0;
+
+	/**
+	 * Dead states. Once entered the DFA never leaves them.
+	 */
+	private static final int DEAD_NONE = 1;
+	private static final int DEAD_KEYWORD = 2;
+	private static final int DEAD_ID = 3;
+	private static final int DEAD_CONST = 4;
+
+	/**
+	 * Accepting states for white space, special symbol and identifiers
+	 */
+	private static final int WHITE_SPACE = 5;
+	private static final int SPECIAL_SYMBOL = 6;
+	private static final int ID = 7;
+
+	/**
+	 * Constant states. digits, '.' with no digit after it yet, digits after the '.'
+	 */
+	private static final int CONST_INT = 8;
+	private static final int CONST_NEED_DIGIT = 9;
+	private static final int CONST_FRACTION = 10;
+
+	/**
+	 * First state used by the keyword trie
+	 */
+	private static final int FIRST_KEYWORD_STATE = 11;
+
+	////////////////////
+	// Character Classes
+	////////////////////
+
+	private static final int C_OTHER = 0;
+	private static final int C_SPACE = 1;
+	private static final int C_TAB = 2;
+	private static final int C_SEMI = 3;
+	private static final int C_DOT = 4;
+	private static final int C_UNDERSCORE = 5;
+	private static final int C_DIGIT = 6;
+	private static final int C_LOWER = 7;
+	private static final int C_QUESTION = 8;
+	private static final int C_UPPER = 9; // 'A' - 'Z' each get their own class starting here
+	private static final int NUM_CLASSES = C_UPPER + 26;
+
+	////////////////////
+	// Token Codes - must match Parser.setIntegerCodes
+	////////////////////
+
+	private static final int ID_CODE = 1;
+	private static final int CONST_CODE = 2;
+	private static final int FIRST_KEYWORD_CODE = 3;
+	private static final int SSYMBOL_CODE = 41;
+
+	/**
+	 * Every keyword of Mini-LOL, in the order of their integer codes (HAI is 3, DIFFRINT is 40).
+	 * BTW is a comment, it is accepted with status 2 and has no code.
+	 */
+	private static final String[] KEYWORDS = {
+		"HAI", "KTHXBYE", "GIMMEH", "VISIBLE", "I HAS A", "ITZ A", "NUMBR", "NUMBAR", "TROOF", "WIN", "FAIL", "R",
+		"IM IN YR", "WILE", "IM OUTTA YR", "O RLY?", "YA RLY", "NO WAI", "OIC", "WTF?", "OMG", "FOUND YR", "GTFO",
+		"HOW IZ I", "IF U SAY SO", "YR", "I IZ", "MKAY", "SUM OF", "AN", "DIFF OF", "PRODUKT OF", "QUOSHUNT OF",
+		"BOTH OF", "EITHER OF", "NOT", "BOTH SAEM", "DIFFRINT", "BTW"
+	};
+
+	/**
+	 * Maps an ascii character to its character class
+	 */
+	private static final byte[] charClass = new byte[128];
+
+	/**
+	 * transitions[state][class] = next state
+	 */
+	private static final int[][] transitions;
+
+	/**
+	 * Value the scanner returns for each state.
+	 * 0 - need more characters
+	 * 1 - accept
+	 * 2 - accept comment
+	 * -1 - error while building a token
+	 * -2 - character can not start any token
+	 */
+	private static final int[] status;
+
+	/**
+	 * Token group of each state
+	 */
+	private static final int[] group;
+
+	/**
+	 * Integer code of the token accepted in each state, -1 if the state accepts nothing
+	 */
+	private static final int[] code;
+
+	static
+	{
+		// Character classes
+		charClass[' '] = C_SPACE;
+		charClass['\t'] = C_TAB;
+		charClass[';'] = C_SEMI;
+		charClass['.'] = C_DOT;
+		charClass['_'] = C_UNDERSCORE;
+		charClass['?'] = C_QUESTION;
+		for(char c = '0'; c <= '9'; c++) charClass[c] = C_DIGIT;
+		for(char c = 'a'; c <= 'z'; c++) charClass[c] = C_LOWER;
+		for(char c = 'A'; c <= 'Z'; c++) charClass[c] = (byte) (C_UPPER + (c - 'A'));
+
+		// Upper bound on states: fixed states plus one state per keyword character
+		int maxStates = FIRST_KEYWORD_STATE;
+		for(String keyword : KEYWORDS) maxStates += keyword.length();
+
+		int[][] table = new int[maxStates][NUM_CLASSES];
+		int[] stat = new int[maxStates];
+		int[] grp = new int[maxStates];
+		int[] cod = new int[maxStates];
+		Arrays.fill(cod, -1);
+
+		// Dead states loop on themselves
+		fill(table, DEAD_NONE, DEAD_NONE);
+		fill(table, DEAD_KEYWORD, DEAD_KEYWORD);
+		fill(table, DEAD_ID, DEAD_ID);
+		fill(table, DEAD_CONST, DEAD_CONST);
+		stat[DEAD_NONE] = -2;
+		stat[DEAD_KEYWORD] = -1;	grp[DEAD_KEYWORD] = KEYWORD;
+		stat[DEAD_ID] = -1;			grp[DEAD_ID] = IDENTIFIER;
+		stat[DEAD_CONST] = -1;		grp[DEAD_CONST] = CONSTANT;
+
+		// Start state
+		fill(table, START, DEAD_NONE);
+		table[START][C_SPACE] = WHITE_SPACE;
+		table[START][C_TAB] = WHITE_SPACE;
+		table[START][C_SEMI] = SPECIAL_SYMBOL;
+		table[START][C_LOWER] = ID;
+		table[START][C_DIGIT] = CONST_INT;
+		table[START][C_DOT] = CONST_NEED_DIGIT;
+
+		// White space and special symbol accept no matter what follows, the scanner resets after them
+		fill(table, WHITE_SPACE, WHITE_SPACE);
+		fill(table, SPECIAL_SYMBOL, SPECIAL_SYMBOL);
+		stat[WHITE_SPACE] = 1;		grp[WHITE_SPACE] = WHITESPACE;
+		stat[SPECIAL_SYMBOL] = 1;	grp[SPECIAL_SYMBOL] = SSYMBOL;
+		cod[SPECIAL_SYMBOL] = SSYMBOL_CODE;
+
+		// Identifier - lowercase letter followed by lowercase letters, digits and underscores
+		fill(table, ID, DEAD_ID);
+		table[ID][C_LOWER] = ID;
+		table[ID][C_DIGIT] = ID;
+		table[ID][C_UNDERSCORE] = ID;
+		stat[ID] = 1;	grp[ID] = IDENTIFIER;	cod[ID] = ID_CODE;
+
+		// Constant - digits with an optional fraction, or '.' followed by at least one digit
+		fill(table, CONST_INT, DEAD_CONST);
+		table[CONST_INT][C_DIGIT] = CONST_INT;
+		table[CONST_INT][C_DOT] = CONST_FRACTION;
+		stat[CONST_INT] = 1;	grp[CONST_INT] = CONSTANT;	cod[CONST_INT] = CONST_CODE;
+
+		fill(table, CONST_NEED_DIGIT, DEAD_CONST);
+		table[CONST_NEED_DIGIT][C_DIGIT] = CONST_FRACTION;
+		stat[CONST_NEED_DIGIT] = 0;		grp[CONST_NEED_DIGIT] = CONSTANT;
+
+		fill(table, CONST_FRACTION, DEAD_CONST);
+		table[CONST_FRACTION][C_DIGIT] = CONST_FRACTION;
+		stat[CONST_FRACTION] = 1;	grp[CONST_FRACTION] = CONSTANT;	cod[CONST_FRACTION] = CONST_CODE;
+
+		// Keywords - build a trie, every new state starts out going to the keyword dead state
+		int nextState = FIRST_KEYWORD_STATE;
+		for(int k = 0; k < KEYWORDS.length; k++)
+		{
+			String keyword = KEYWORDS[k];
+			int state = START;
+			for(int i = 0; i < keyword.length(); i++)
+			{
+				int c = charClass[keyword.charAt(i)];
+				int next = table[state][c];
+				if(next == DEAD_NONE || next == DEAD_KEYWORD)
+				{
+					next = nextState++;
+					fill(table, next, DEAD_KEYWORD);
+					stat[next] = 0;
+					grp[next] = KEYWORD;
+					table[state][c] = next;
+				}
+				state = next;
+			}
+			if(keyword.equals("BTW")) stat[state] = 2;
+			else
+			{
+				stat[state] = 1;
+				cod[state] = FIRST_KEYWORD_CODE + k;
+			}
+		}
+
+		transitions = table;
+		status = stat;
+		group = grp;
+		code = cod;
+	}
+
+	/**
+	 * Empty constructor for ScannerDFA. Private since this class is static.
+	 * Constructor will never be called.
+	 */
+	private ScannerDFA() {}
+
+	///////////////////////////
+	// Public - Utilities
+	///////////////////////////
+
+	/**
+	 * Returns the state reached from state on character c
+	 * @param state
+	 * @param c
+	 * @return
+	 */
+	public static int next(int state, char c)
+	{
+		return transitions[state][c < 128 ? charClass[c] : C_OTHER];
+	}
+
+	/**
+	 * Returns the scanner status value of a state
+	 * @param state
+	 * @return
+	 */
+	public static int status(int state)
+	{
+		return status[state];
+	}
+
+	/**
+	 * Returns the token group of a state
+	 * @param state
+	 * @return
+	 */
+	public static int group(int state)
+	{
+		return group[state];
+	}
+
+	/**
+	 * Returns the integer code of the token accepted in a state, -1 if the state accepts nothing
+	 * @param state
+	 * @return
+	 */
+	public static int code(int state)
+	{
+		return code[state];
+	}
+
+	///////////////////////////
+	// Private - Utilities
+	///////////////////////////
+
+	/**
+	 * Sets every transition of a state to the same next state
+	 * @param table
+	 * @param state
+	 * @param next
+	 */
+	private static void fill(int[][] table, int state, int next)
+	{
+		for(int c = 0; c < NUM_CLASSES; c++) table[state][c] = next;
+	}
+}
@@ -0,0 +1,211 @@
+package Utilities;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Holds the source program as bytes. Files are memory mapped so the scanner runs directly over the mapped bytes,
+ * nothing is copied onto the heap. Text (tokens, lines) is only materialized when asked for.
+ * The line index is only built the first time a line is asked for, it is used for printing and diagnostics.
+ * @author kobypascual
+ *
+ */
+public final class SourceFile
+{
+	/**
+	 * Bytes of the source program
+	 */
+	private final ByteBuffer buffer;
+
+	/**
+	 * Number of bytes in the source program
+	 */
+	private final int length;
+
+	/**
+	 * Offset of the first character of each line. Null until a line is asked for.
+	 */
+	private int[] lineStarts = null;
+
+	/**
+	 * Number of lines in the source program, valid once lineStarts is built
+	 */
+	private int lineCount = 0;
+
+	/**
+	 * SourceFile Constructor.
+	 * @param buffer
+	 */
+	private SourceFile(ByteBuffer buffer)
+	{
+		this.buffer = buffer;
+		this.length = buffer.limit();
+	}
+
+	///////////////////////////
+	// Public - Constructors
+	///////////////////////////
+
+	/**
+	 * Memory maps the file with the given name
+	 * @param fileName
+	 * @return
+	 * @throws IOException
+	 */
+	public static SourceFile map(String fileName) throws IOException
+	{
+		CompilerEvents.Read event = new CompilerEvents.Read();
+		event.begin();
+		try(FileChannel channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.READ))
+		{
+			// A single mapping can only address Integer.MAX_VALUE bytes
+			if(channel.size() > Integer.MAX_VALUE) throw new IOException(fileName + " is too large to map");
+
+			SourceFile file = new SourceFile(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+			if(event.shouldCommit())
+			{
+				event.fileName = fileName;
+				event.size = file.length();
+				event.commit();
+			}
+			return file;
+		}
+	}
+
+	/**
+	 * Wraps source bytes that are already in memory
+	 * @param bytes
+	 * @return
+	 */
+	public static SourceFile wrap(byte[] bytes)
+	{
+		return new SourceFile(ByteBuffer.wrap(bytes));
+	}
+
+	///////////////////////////
+	// Public - Accessors
+	///////////////////////////
+
+	/**
+	 * Returns the number of characters (bytes) in the source
+	 * @return
+	 */
+	public int length()
+	{
+		return length;
+	}
+
+	/**
+	 * Returns the character at the given offset
+	 * @param offset
+	 * @return
+	 */
+	public char charAt(int offset)
+	{
+		return (char) (buffer.get(offset) & 0xFF);
+	}
+
+	/**
+	 * Returns the text between start (inclusive) and end (exclusive)
+	 * @param start
+	 * @param end
+	 * @return
+	 */
+	public String substring(int start, int end)
+	{
+		byte[] bytes = new byte[end - start];
+		buffer.get(start, bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	///////////////////////////
+	// Public - Lines
+	///////////////////////////
+
+	/**
+	 * Returns the number of lines in the source
+	 * @return
+	 */
+	public int lineCount()
+	{
+		buildLineIndex();
+		return lineCount;
+	}
+
+	/**
+	 * Returns the given line (0 based) without its line terminator
+	 * @param line
+	 * @return
+	 */
+	public String line(int line)
+	{
+		buildLineIndex();
+		int start = lineStarts[line];
+		int end = line + 1 < lineCount ? lineStarts[line + 1] - 1 : length;
+
+		// The last line may still end with its '\n', and windows files end every line with '\r'
+		if(end > start && charAt(end - 1) == '\n') end--;
+		if(end > start && charAt(end - 1) == '\r') end--;
+
+		return substring(start, end);
+	}
+
+	/**
+	 * Returns the line number (1 based) that holds the given offset
+	 * @param offset
+	 * @return
+	 */
+	public int lineOf(int offset)
+	{
+		buildLineIndex();
+
+		// Binary search for the last line starting at or before offset
+		int low = 0;
+		int high = lineCount - 1;
+		while(low < high)
+		{
+			int mid = (low + high + 1) >>> 1;
+			if(lineStarts[mid] <= offset) low = mid;
+			else high = mid - 1;
+		}
+		return low + 1;
+	}
+
+	///////////////////////////
+	// Private - Utilities
+	///////////////////////////
+
+	/**
+	 * Builds the line index the first time it is needed
+	 */
+	private void buildLineIndex()
+	{
+		if(lineStarts != null) return;
+
+		int[] starts = new int[16];
+		int count = 0;
+		if(length > 0) starts[count++] = 0;
+
+		for(int i = 0; i < length; i++)
+		{
+			// A line starts after every '\n' unless it is the last character
+			if(buffer.get(i) == '\n' && i + 1 < length)
+			{
+				if(count == starts.length)
+				{
+					int[] bigger = new int[starts.length * 2];
+					System.arraycopy(starts, 0, bigger, 0, count);
+					starts = bigger;
+				}
+				starts[count++] = i + 1;
+			}
+		}
+
+		lineCount = count;
+		lineStarts = starts;
+	}
+}
@@ -1,35 +1,100 @@
 package Utilities;
 
-import Driver.Compiler;
+import java.util.Arrays;
+
+import Driver.CompilationContext;
 
 /**
- * Static class. Holds all id's and constant's found by the scanner.
+ * Holds all id's and constant's found by the scanner of one compilation.
+ * Tokens are kept in the order they were added, the index of a token is its symbol id and never changes.
+ * Lookups go through an open addressing hash table keyed by (name, type) that grows when it is half full.
  * @author kobypascual
  *
  */
 public final class SymbolTable
 {
+	/**
+	 * Compilation this symbol table belongs to
+	 */
+	private final CompilationContext context;
+
+	/**
+	 * nextEmpty stores the first null value of the symtab (the number of symbols)
+	 */
+	private int nextEmpty = 0;
+
+	/**
+	 * Symbol Table - tokens in the order they were added, indexed by symbol id
+	 */
+	private Token[] symtab = new Token[64];
 
 	/**
-	 * nextEmpty stores the first null value of the symtab
+	 * Hash of each token in symtab, so probing does not have to recompute it
 	 */
-	private static int nextEmpty = 0;
+	private int[] hashes = new int[64];
 
 	/**
-	 * Symbol Table is an array of size 100 of Tokens
+	 * Open addressing hash table. Holds symbol id + 1 of the token hashed to each slot, 0 if empty.
+	 * Length is always a power of 2.
 	 */
-	private static Token[] symtab = new Token[100];
+	private int[] slots = new int[128];
 
 	/**
-	 * Empty constructor for SymbolTable. Private since this class is static.
-	 * Constructor will never be called.
+	 * Number of lookups (intern and find) and of the filled slots they probed, see Metrics
 	 */
-	private SymbolTable() {}
+	private long lookups = 0;
+	private long probes = 0;
+
+	/**
+	 * SymbolTable Constructor.
+	 * @param context
+	 */
+	public SymbolTable(CompilationContext context)
+	{
+		this.context = context;
+	}
 
 	///////////////////////////
 	// Public - Accessors
 	///////////////////////////
 
+	/**
+	 * Returns the token with the given symbol id
+	 * @param id
+	 * @return
+	 */
+	public Token get(int id)
+	{
+		return symtab[id];
+	}
+
+	/**
+	 * Returns the number of symbols in the table
+	 * @return
+	 */
+	public int size()
+	{
+		return nextEmpty;
+	}
+
+	/**
+	 * Returns the number of lookups made by intern and find
+	 * @return
+	 */
+	public long getLookups()
+	{
+		return lookups;
+	}
+
+	/**
+	 * Returns the number of filled hash slots the lookups probed
+	 * @return
+	 */
+	public long getProbes()
+	{
+		return probes;
+	}
+
 	///////////////////////////
 	// Public - Mutators
 	///////////////////////////
@@ -38,25 +103,26 @@ public final class SymbolTable
 	 * Adds a constant or id to the symtab
 	 * @param name
 	 * @param type
+	 * @return the symbol id of the new token
 	 */
-	public static void add(String name, String type)
+	public int add(String name, String type)
 	{
-		// If table is full we cannot add more
-		if(nextEmpty == 100)
-		{
-			// Call error handler
-			ErrorHandler.tableFull();
-			return;
-		}
+		// Grow the arrays instead of running out of room, keep the hash table at most half full
+		if(nextEmpty == symtab.length || (nextEmpty + 1) * 2 > slots.length) grow();
 
 		// Add new token to next null value
-		symtab[nextEmpty] = new Token(name, type);
+		int id = nextEmpty;
+		int hash = hash(name, type);
+		symtab[id] = new Token(name, type);
+		hashes[id] = hash;
+		slots[emptySlot(hash)] = id + 1;
 
-		// Print added value if printAdditions is true
-		if(Compiler.getPrintAdditions()) System.out.println(type + " added: " + name);
+		// Trace the added value
+		context.trace.symbolAdded(id, name, type);
 
 		// Increment nextEmpty
 		nextEmpty += 1;
+		return id;
 	}
 
 	///////////////////////////
@@ -69,28 +135,163 @@ public final class SymbolTable
 	 * @param type
 	 * @return
 	 */
-	public static boolean checkIfExists(String currentToken, String type)
+	public boolean checkIfExists(String currentToken, String type)
 	{
-		// Next check if id or const already exists return true if so
-		for(int i = 0; i < nextEmpty; i++)
+		return find(currentToken, type) != -1;
+	}
+
+	/**
+	 * Returns the symbol id of the constant or id spelled by the given characters of a source file.
+	 * Adds it first if it is not in the table yet, that is the only time a String is made for the name.
+	 * Names are ascii, so hashing the bytes gives the same hash as the String would.
+	 * @param file
+	 * @param start
+	 * @param length
+	 * @param type
+	 * @return
+	 */
+	public int intern(SourceFile file, int start, int length, String type)
+	{
+		int h = 0;
+		for(int i = 0; i < length; i++) h = 31 * h + file.charAt(start + i);
+		int hash = mix(h * 31 + type.hashCode());
+		int mask = slots.length - 1;
+		lookups++;
+
+		// Linear probing until an empty slot is found
+		for(int slot = hash & mask; slots[slot] != 0; slot = (slot + 1) & mask)
 		{
-			// Check if current token equals current token in symtab
-			if(symtab[i].equals(currentToken, type)) return true;
+			probes++;
+			int id = slots[slot] - 1;
+			if(hashes[id] == hash && symtab[id].getType().equals(type) && sameName(symtab[id].getName(), file, start, length)) return id;
 		}
 
-		return false;
+		return add(file.substring(start, start + length), type);
+	}
+
+	/**
+	 * Returns the symbol id of a constant or id, -1 if it is not in the table
+	 * @param name
+	 * @param type
+	 * @return
+	 */
+	public int find(String name, String type)
+	{
+		int hash = hash(name, type);
+		int mask = slots.length - 1;
+		lookups++;
+
+		// Linear probing until an empty slot is found
+		for(int slot = hash & mask; slots[slot] != 0; slot = (slot + 1) & mask)
+		{
+			probes++;
+			int id = slots[slot] - 1;
+			if(hashes[id] == hash && symtab[id].equals(name, type)) return id;
+		}
+		return -1;
 	}
 
 	/**
 	 * Prints the symtab
 	 */
-	public static void printTable()
+	public void printTable()
 	{
 		// Print the symbol table
-		System.out.println("Symbol Table:");
+		context.out.println("Symbol Table:");
 		for(int i = 0; i < nextEmpty; i++)
 		{
-			symtab[i].print();
+			symtab[i].print(context.out);
 		}
 	}
+
+	///////////////////////////
+	// Private - Utilities
+	///////////////////////////
+
+	/**
+	 * Hash of a (name, type) pair. The bits are spread since the table only uses the low bits.
+	 * @param name
+	 * @param type
+	 * @return
+	 */
+	private static int hash(String name, String type)
+	{
+		return mix(name.hashCode() * 31 + type.hashCode());
+	}
+
+	/**
+	 * Spreads the high bits of a hash into the low bits
+	 * @param h
+	 * @return
+	 */
+	private static int mix(int h)
+	{
+		return h ^ (h >>> 16);
+	}
+
+	/**
+	 * Returns true if name is spelled by the given characters of a source file
+	 * @param name
+	 * @param file
+	 * @param start
+	 * @param length
+	 * @return
+	 */
+	private static boolean sameName(String name, SourceFile file, int start, int length)
+	{
+		if(name.length() != length) return false;
+		for(int i = 0; i < length; i++)
+			if(name.charAt(i) != file.charAt(start + i)) return false;
+		return true;
+	}
+
+	/**
+	 * Returns the first empty slot for the given hash
+	 * @param hash
+	 * @return
+	 */
+	private int emptySlot(int hash)
+	{
+		int mask = slots.length - 1;
+		int slot = hash & mask;
+		while(slots[slot] != 0) slot = (slot + 1) & mask;
+		return slot;
+	}
+
+	/**
+	 * Doubles the arrays that are full and the hash table if it is half full, recorded as a SymbolTableGrowth event
+	 */
+	private void grow()
+	{
+		CompilerEvents.SymbolTableGrowth event = new CompilerEvents.SymbolTableGrowth();
+		event.begin();
+		int oldCapacity = slots.length;
+
+		if(nextEmpty == symtab.length)
+		{
+			symtab = Arrays.copyOf(symtab, symtab.length * 2);
+			hashes = Arrays.copyOf(hashes, hashes.length * 2);
+		}
+		if((nextEmpty + 1) * 2 > slots.length) rehash(slots.length * 2);
+
+		if(event.shouldCommit())
+		{
+			event.fileName = context.fileName;
+			event.symbols = nextEmpty;
+			event.oldCapacity = oldCapacity;
+			event.newCapacity = slots.length;
+			event.commit();
+		}
+	}
+
+	/**
+	 * Rebuilds the hash table with the given number of slots
+	 * @param size
+	 */
+	private void rehash(int size)
+	{
+		slots = new int[size];
+		for(int id = 0; id < nextEmpty; id++)
+			slots[emptySlot(hashes[id])] = id + 1;
+	}
 }
@@ -0,0 +1,384 @@
+package Parser;
+
+import java.io.PrintStream;
+import java.util.Arrays;
+
+import Scanner.IntegerCodes;
+import Scanner.TokenBuffer;
+import Utilities.IntStack;
+import Utilities.SourceFile;
+
+/**
+ * Syntax tree built by the parser. Nodes are stored as ints in parallel arrays instead of one object per node.
+ * Every node has a kind (integer code of its non-terminal, or 1 / 2 for an identifier / constant leaf),
+ * the sub id of the rule that expanded it, a range of children and the index of its first token in the TokenBuffer.
+ * Keywords and ';' are not kept, the rule of a node already says which ones were there
+ * (an <arith> node with rule 'a' is SUM OF, a <bool> node with rule 'e' is WIN).
+ * The children of a node are allocated together when its rule is applied, so they always sit next to each other.
+ * Lists (<body>, <omgs>, <args>) are right leaning chains: the last child of a list node is the rest of the list,
+ * walk them with a loop rather than recursion so long programs do not run out of stack.
+ * Node 0 is the <lol> root.
+ * @author kobypascual
+ *
+ */
+public final class SyntaxTree
+{
+	////////////////////
+	// Node Kinds - integer codes, see Parser.setIntegerCodes
+	////////////////////
+
+	public static final int ID = 1;
+	public static final int CONST = 2;
+	public static final int LOL = 42;
+	public static final int BODY = 43;
+	public static final int STMT = 44;
+	public static final int INPUT = 45;
+	public static final int OUTPUT = 46;
+	public static final int DECL = 47;
+	public static final int TYPE = 48;
+	public static final int ASMT = 49;
+	public static final int LOOP = 50;
+	public static final int IF = 51;
+	public static final int CASE = 52;
+	public static final int OMGS = 53;
+	public static final int OMG = 54;
+	public static final int VALUE = 55;
+	public static final int RETURN = 56;
+	public static final int FUNCTION = 57;
+	public static final int ARGS = 58;
+	public static final int ARG = 59;
+	public static final int CALL = 60;
+	public static final int EXPR = 61;
+	public static final int ARITH = 62;
+	public static final int BOOL = 63;
+	public static final int COMP = 64;
+
+	/**
+	 * Integer code of each node
+	 */
+	private int[] kind = new int[64];
+
+	/**
+	 * Sub id of the rule that expanded each node, ' ' for leaves and nodes that were never expanded
+	 */
+	private char[] rule = new char[64];
+
+	/**
+	 * Index of the first child of each node
+	 */
+	private int[] firstChild = new int[64];
+
+	/**
+	 * Number of children of each node
+	 */
+	private int[] childCount = new int[64];
+
+	/**
+	 * Index of the first token of each node in the TokenBuffer, -1 if the node has none
+	 */
+	private int[] token = new int[64];
+
+	/**
+	 * Symbol id and text of each leaf made by rewriting, -1 / null for every other node. Null until a leaf is made.
+	 */
+	private int[] madeSymbol = null;
+	private String[] madeText = null;
+
+	/**
+	 * Number of nodes
+	 */
+	private int size = 0;
+
+	/**
+	 * Tokens the token indexes refer to
+	 */
+	private final TokenBuffer tokens;
+
+	/**
+	 * SyntaxTree Constructor.
+	 * @param tokens
+	 */
+	public SyntaxTree(TokenBuffer tokens)
+	{
+		this.tokens = tokens;
+	}
+
+	///////////////////////////
+	// Public - Accessors
+	///////////////////////////
+
+	/**
+	 * Returns the root node
+	 * @return
+	 */
+	public int root()
+	{
+		return 0;
+	}
+
+	/**
+	 * Returns the number of nodes
+	 * @return
+	 */
+	public int size()
+	{
+		return size;
+	}
+
+	/**
+	 * Returns the integer code of a node
+	 * @param node
+	 * @return
+	 */
+	public int kind(int node)
+	{
+		return kind[node];
+	}
+
+	/**
+	 * Returns the sub id of the rule that expanded a node
+	 * @param node
+	 * @return
+	 */
+	public char rule(int node)
+	{
+		return rule[node];
+	}
+
+	/**
+	 * Returns the number of children of a node
+	 * @param node
+	 * @return
+	 */
+	public int childCount(int node)
+	{
+		return childCount[node];
+	}
+
+	/**
+	 * Returns the i-th child of a node
+	 * @param node
+	 * @param i
+	 * @return
+	 */
+	public int child(int node, int i)
+	{
+		return firstChild[node] + i;
+	}
+
+	/**
+	 * Returns the index of the first token of a node in the TokenBuffer, -1 if it has none
+	 * @param node
+	 * @return
+	 */
+	public int token(int node)
+	{
+		return token[node];
+	}
+
+	/**
+	 * Returns the symbol id of an identifier or constant leaf, -1 for any other node
+	 * @param node
+	 * @return
+	 */
+	public int symbol(int node)
+	{
+		if(madeSymbol != null && node < madeSymbol.length && madeSymbol[node] >= 0) return madeSymbol[node];
+		return token[node] < 0 ? -1 : tokens.symbol(token[node]);
+	}
+
+	/**
+	 * Returns the line of the first token of a node, 0 if it has none
+	 * @param node
+	 * @return
+	 */
+	public int line(int node)
+	{
+		return token[node] < 0 ? 0 : tokens.line(token[node]);
+	}
+
+	/**
+	 * Returns the tokens the token indexes refer to
+	 * @return
+	 */
+	public TokenBuffer tokens()
+	{
+		return tokens;
+	}
+
+	///////////////////////////
+	// Public - Utilities
+	///////////////////////////
+
+	/**
+	 * Prints the tree, one node per line, children indented under their parent
+	 * @param out
+	 * @param file
+	 */
+	public void print(PrintStream out, SourceFile file)
+	{
+		if(size == 0) return;
+
+		// Depth first with an explicit stack, node ids and depths are pushed in pairs
+		IntStack pending = new IntStack(64);
+		pending.push(0);
+		pending.push(0);
+		StringBuilder line = new StringBuilder();
+		while(!pending.isEmpty())
+		{
+			int depth = pending.pop();
+			int node = pending.pop();
+
+			line.setLength(0);
+			for(int i = 0; i < depth; i++) line.append("  ");
+			line.append(IntegerCodes.findToken(kind[node]));
+			if(kind[node] <= CONST && madeText != null && node < madeText.length && madeText[node] != null) line.append(' ').append(madeText[node]);
+			else if(kind[node] <= CONST && token[node] >= 0) line.append(' ').append(tokens.text(token[node], file));
+			else if(rule[node] != ' ') line.append(' ').append(rule[node]);
+			out.println(line);
+
+			// Push children last to first so the first child is printed first
+			for(int i = childCount[node] - 1; i >= 0; i--)
+			{
+				pending.push(firstChild[node] + i);
+				pending.push(depth + 1);
+			}
+		}
+	}
+
+	///////////////////////////
+	// Public - Rewriting
+	///////////////////////////
+
+	/**
+	 * Turns a node into a copy of another one: same kind, rule, children and first token.
+	 * Used to replace a node by one of its descendants, whatever is left between them is no longer reachable.
+	 * @param node
+	 * @param with
+	 */
+	public void replace(int node, int with)
+	{
+		kind[node] = kind[with];
+		rule[node] = rule[with];
+		firstChild[node] = firstChild[with];
+		childCount[node] = childCount[with];
+		token[node] = token[with];
+		if(madeSymbol != null && with < madeSymbol.length)
+		{
+			madeSymbol[node] = madeSymbol[with];
+			madeText[node] = madeText[with];
+		}
+	}
+
+	/**
+	 * Changes the rule and children of a node, the old children are no longer reachable
+	 * @param node
+	 * @param sub
+	 * @param first
+	 * @param count
+	 */
+	public void rewrite(int node, char sub, int first, int count)
+	{
+		expand(node, sub, first, count);
+	}
+
+	/**
+	 * Adds a leaf that is not in the source, like a constant made by folding
+	 * @param leafKind ID or CONST
+	 * @param symbol symbol id of the leaf
+	 * @param text what print shows for it
+	 * @param at node whose first token the leaf reports its line from
+	 * @return the new leaf
+	 */
+	public int addLeaf(int leafKind, int symbol, String text, int at)
+	{
+		int leaf = addNodes(new int[]{leafKind}, 1);
+		token[leaf] = token[at];
+
+		if(madeSymbol == null)
+		{
+			madeSymbol = new int[kind.length];
+			madeText = new String[kind.length];
+			Arrays.fill(madeSymbol, -1);
+		}
+		madeSymbol[leaf] = symbol;
+		madeText[leaf] = text;
+		return leaf;
+	}
+
+	///////////////////////////
+	// Package - Building
+	///////////////////////////
+
+	/**
+	 * Adds count nodes of the given kinds next to each other and returns the index of the first one
+	 * @param kinds
+	 * @param count
+	 * @return
+	 */
+	int addNodes(int[] kinds, int count)
+	{
+		if(size + count > kind.length) grow(size + count);
+
+		int first = size;
+		for(int i = 0; i < count; i++)
+		{
+			kind[size] = kinds[i];
+			rule[size] = ' ';
+			firstChild[size] = 0;
+			childCount[size] = 0;
+			token[size] = -1;
+			size++;
+		}
+		return first;
+	}
+
+	/**
+	 * Records the rule that expanded a node and its children
+	 * @param node
+	 * @param sub
+	 * @param first
+	 * @param count
+	 */
+	void expand(int node, char sub, int first, int count)
+	{
+		rule[node] = sub;
+		firstChild[node] = first;
+		childCount[node] = count;
+	}
+
+	/**
+	 * Records the first token of a node
+	 * @param node
+	 * @param index
+	 */
+	void setToken(int node, int index)
+	{
+		token[node] = index;
+	}
+
+	///////////////////////////
+	// Private - Utilities
+	///////////////////////////
+
+	/**
+	 * Grows every array to hold at least the given number of nodes
+	 * @param needed
+	 */
+	private void grow(int needed)
+	{
+		int capacity = Math.max(needed, kind.length * 2);
+		kind = Arrays.copyOf(kind, capacity);
+		rule = Arrays.copyOf(rule, capacity);
+		firstChild = Arrays.copyOf(firstChild, capacity);
+		childCount = Arrays.copyOf(childCount, capacity);
+		token = Arrays.copyOf(token, capacity);
+		if(madeSymbol != null)
+		{
+			int old = madeSymbol.length;
+			madeSymbol = Arrays.copyOf(madeSymbol, capacity);
+			madeText = Arrays.copyOf(madeText, capacity);
+			Arrays.fill(madeSymbol, old, capacity, -1);
+		}
+	}
+}
@@ -0,0 +1,221 @@
+package Utilities;
+
+import java.io.PrintStream;
+
+import Driver.CompilationContext;
+import Scanner.IntegerCodes;
+
+/**
+ * Trace backend that writes the findings as text to the output of a compilation.
+ * The text is the same as printing each finding on its own, but lines are collected in a buffer
+ * and written out in large chunks, so the output stream is not locked and flushed once per line.
+ * The buffer must be flushed before anything else is written to the same output.
+ * @author kobypascual
+ *
+ */
+public final class TextTrace extends Trace
+{
+	/**
+	 * Buffer is written out once it holds this many characters
+	 */
+	private static final int CHUNK = 8192;
+
+	/**
+	 * Line terminator println would use
+	 */
+	private static final String NEW_LINE = System.lineSeparator();
+
+	/**
+	 * Compilation being traced
+	 */
+	private final CompilationContext context;
+
+	/**
+	 * Where the text goes
+	 */
+	private final PrintStream out;
+
+	/**
+	 * Text not written out yet
+	 */
+	private final StringBuilder buffer = new StringBuilder(CHUNK + 256);
+
+	/**
+	 * TextTrace Constructor.
+	 * @param context
+	 * @param levels
+	 */
+	public TextTrace(CompilationContext context, int levels)
+	{
+		super(levels);
+		this.context = context;
+		this.out = context.out;
+	}
+
+	///////////////////////////
+	// Public - Parser Events
+	///////////////////////////
+
+	@Override
+	public void start(int step, int stacktop)
+	{
+		if(!enabled(STEPS)) return;
+		step(step, stacktop, "HAI").append(" use rule: 0 Action: Push <lol> (1)");
+		endLine();
+	}
+
+	@Override
+	public void rule(int step, int stacktop, Rule rule)
+	{
+		if(!enabled(STEPS)) return;
+		step(step, stacktop, context.scanner.peek()).append(" use rule: ").append(rule.id).append(" - ").append(rule.sub_id);
+		endLine();
+	}
+
+	@Override
+	public void match(int step, int stacktop, int code)
+	{
+		if(!enabled(STEPS)) return;
+		String lookahead = context.scanner.peek();
+		step(step, stacktop, lookahead).append(" match ");
+
+		// Identifiers and constants show their text and then what they are, keywords only what they are
+		if(code == 1 || code == 2) buffer.append(lookahead).append(" (").append(IntegerCodes.findToken(code)).append(')');
+		else buffer.append(IntegerCodes.findToken(code));
+
+		buffer.append(" (").append(code).append(')');
+		endLine();
+	}
+
+	@Override
+	public void accept(int step, int stacktop)
+	{
+		if(!enabled(STEPS)) return;
+		step(step, stacktop, null).append(" use rule: 0 Action: Accept");
+		endLine();
+	}
+
+	@Override
+	public void syntaxError(int step, int stacktop, int line, String message)
+	{
+		if(!enabled(STEPS)) return;
+		buffer.append(message);
+		endLine();
+	}
+
+	///////////////////////////
+	// Public - Scanner Events
+	///////////////////////////
+
+	@Override
+	public void finding(int kind, int line, int start, int end)
+	{
+		if(!enabled(FINDINGS)) return;
+		buffer.append("Line#: ").append(line).append(" - ").append(kindName(kind)).append(" found: - ");
+		appendSource(start, end);
+		endLine();
+	}
+
+	@Override
+	public void lexicalError(int kind, int line)
+	{
+		// The skipped token is printed right after the error, on the same line
+		if(!enabled(FINDINGS)) return;
+		buffer.append("Line#: ").append(line).append(" - Lexical Error: Invalid ").append(kindName(kind));
+	}
+
+	@Override
+	public void skipped(int start, int end)
+	{
+		if(!enabled(FINDINGS)) return;
+		// A skipped token can hold any byte, so it is decoded like the rest of the text
+		buffer.append(" - ").append(context.file.substring(start, end)).append('\n');
+		flushIfFull();
+	}
+
+	///////////////////////////
+	// Public - Symbol Table Events
+	///////////////////////////
+
+	@Override
+	public void symbolAdded(int id, String name, String type)
+	{
+		if(!enabled(SYMBOLS)) return;
+		buffer.append(type).append(" added: ").append(name);
+		endLine();
+	}
+
+	///////////////////////////
+	// Public - Utilities
+	///////////////////////////
+
+	@Override
+	public void flush()
+	{
+		if(buffer.length() == 0) return;
+		out.print(buffer);
+		buffer.setLength(0);
+	}
+
+	///////////////////////////
+	// Private - Utilities
+	///////////////////////////
+
+	/**
+	 * Starts a parser step line
+	 * @param step
+	 * @param stacktop
+	 * @param lookahead
+	 * @return
+	 */
+	private StringBuilder step(int step, int stacktop, String lookahead)
+	{
+		return buffer.append("Step: ").append(step).append(" Stacktop: ").append(stacktop).append(" Lookahead: ").append(lookahead);
+	}
+
+	/**
+	 * Appends source characters straight from the file, no String is made for them.
+	 * Only used for accepted tokens, which are always ascii.
+	 * @param start
+	 * @param end
+	 */
+	private void appendSource(int start, int end)
+	{
+		SourceFile file = context.file;
+		for(int i = start; i < end; i++) buffer.append(file.charAt(i));
+	}
+
+	/**
+	 * Ends the current line
+	 */
+	private void endLine()
+	{
+		buffer.append(NEW_LINE);
+		flushIfFull();
+	}
+
+	/**
+	 * Writes the buffer out once it holds a full chunk
+	 */
+	private void flushIfFull()
+	{
+		if(buffer.length() >= CHUNK) flush();
+	}
+
+	/**
+	 * Returns the name of a finding kind as it is printed
+	 * @param kind
+	 * @return
+	 */
+	private static String kindName(int kind)
+	{
+		switch(kind)
+		{
+			case COMMENT: return "Comment";
+			case KEYWORD: return "Keyword";
+			case IDENTIFIER: return "Identifier";
+			case CHARACTER: return "Character";
+			default: return "Constant";
+		}
+	}
+}
@@ -1,5 +1,7 @@
 package Utilities;
 
+import java.io.PrintStream;
+
 /**
  * This class holds simple tokens containing a name and a type.
  * Example types of types are: Keywords, Identifiers, Constants, and Special Symbols
@@ -54,10 +56,11 @@ public class Token
 
 	/**
 	 * Prints this token in format: name, type
+	 * @param out
 	 */
-	public void print()
+	public void print(PrintStream out)
 	{
-		System.out.println(this.name + ", " + this.type);
+		out.println(this.name + ", " + this.type);
 	}
 
 	/**
@@ -0,0 +1,225 @@
+package Scanner;
+
+import java.util.Arrays;
+
+import Utilities.SourceFile;
+
+/**
+ * Packed buffer of scanned tokens. Each token is stored as ints in parallel arrays:
+ * its integer code (see Parser.setIntegerCodes), its start offset and length in the source file, its line number
+ * and for identifiers and constants its symbol id in the SymbolTable.
+ * The text of a token is only cut out of the source file when it is asked for.
+ * Tokens are added at the tail and consumed from the head. Once every token is consumed the buffer starts over at index 0,
+ * so it never grows past the number of tokens that are scanned ahead of the parser.
+ * When tokens are retained (a syntax tree refers to them) consumed tokens are kept and every index stays valid.
+ * @author kobypascual
+ *
+ */
+public final class TokenBuffer
+{
+	/**
+	 * Integer code of each token
+	 */
+	private int[] kind = new int[16];
+
+	/**
+	 * Offset of the first character of each token
+	 */
+	private int[] start = new int[16];
+
+	/**
+	 * Number of characters in each token
+	 */
+	private int[] length = new int[16];
+
+	/**
+	 * Line number of each token
+	 */
+	private int[] line = new int[16];
+
+	/**
+	 * Symbol id of each token, -1 for keywords and special symbols
+	 */
+	private int[] symbol = new int[16];
+
+	/**
+	 * Index of the next token to consume
+	 */
+	private int head = 0;
+
+	/**
+	 * Index of the next free slot
+	 */
+	private int tail = 0;
+
+	/**
+	 * True if consumed tokens are kept
+	 */
+	private boolean retain = false;
+
+	///////////////////////////
+	// Public - Mutators
+	///////////////////////////
+
+	/**
+	 * Adds a token to the tail of the buffer
+	 * @param kind
+	 * @param start
+	 * @param length
+	 * @param line
+	 * @param symbol
+	 */
+	public void add(int kind, int start, int length, int line, int symbol)
+	{
+		if(tail == this.kind.length) grow();
+
+		this.kind[tail] = kind;
+		this.start[tail] = start;
+		this.length[tail] = length;
+		this.line[tail] = line;
+		this.symbol[tail] = symbol;
+		tail++;
+	}
+
+	/**
+	 * Consumes the token at the head of the buffer
+	 */
+	public void poll()
+	{
+		head++;
+
+		// Everything is consumed, start over at the front
+		if(head == tail && !retain)
+		{
+			head = 0;
+			tail = 0;
+		}
+	}
+
+	/**
+	 * Removes every token
+	 */
+	public void clear()
+	{
+		head = 0;
+		tail = 0;
+	}
+
+	/**
+	 * Sets whether consumed tokens are kept
+	 * @param retain
+	 */
+	public void setRetain(boolean retain)
+	{
+		this.retain = retain;
+	}
+
+	///////////////////////////
+	// Public - Accessors
+	///////////////////////////
+
+	/**
+	 * Returns true if there are no tokens left to consume
+	 * @return
+	 */
+	public boolean isEmpty()
+	{
+		return head == tail;
+	}
+
+	/**
+	 * Returns the index of the token at the head of the buffer
+	 * @return
+	 */
+	public int head()
+	{
+		return head;
+	}
+
+	/**
+	 * Returns the number of tokens in the buffer, consumed ones included
+	 * @return
+	 */
+	public int size()
+	{
+		return tail;
+	}
+
+	/**
+	 * Returns the integer code of a token
+	 * @param index
+	 * @return
+	 */
+	public int kind(int index)
+	{
+		return kind[index];
+	}
+
+	/**
+	 * Returns the start offset of a token
+	 * @param index
+	 * @return
+	 */
+	public int start(int index)
+	{
+		return start[index];
+	}
+
+	/**
+	 * Returns the number of characters of a token
+	 * @param index
+	 * @return
+	 */
+	public int length(int index)
+	{
+		return length[index];
+	}
+
+	/**
+	 * Returns the line number of a token
+	 * @param index
+	 * @return
+	 */
+	public int line(int index)
+	{
+		return line[index];
+	}
+
+	/**
+	 * Returns the symbol id of a token, -1 for keywords and special symbols
+	 * @param index
+	 * @return
+	 */
+	public int symbol(int index)
+	{
+		return symbol[index];
+	}
+
+	/**
+	 * Cuts the text of a token out of the source file
+	 * @param index
+	 * @param file
+	 * @return
+	 */
+	public String text(int index, SourceFile file)
+	{
+		return file.substring(start[index], start[index] + length[index]);
+	}
+
+	///////////////////////////
+	// Private - Utilities
+	///////////////////////////
+
+	/**
+	 * Doubles the capacity of every array
+	 */
+	private void grow()
+	{
+		int capacity = kind.length * 2;
+		kind = Arrays.copyOf(kind, capacity);
+		start = Arrays.copyOf(start, capacity);
+		length = Arrays.copyOf(length, capacity);
+		line = Arrays.copyOf(line, capacity);
+		symbol = Arrays.copyOf(symbol, capacity);
+	}
+}
@@ -0,0 +1,180 @@
+package Utilities;
+
+/**
+ * Sink for the findings a compilation traces: every PDA step of the parser, every token and lexical error of the scanner
+ * and every symbol added to the symbol table.
+ * Events are passed as ints, a backend only builds text if it writes text, so tracing costs little when it is on
+ * and nothing when it is off (NONE has empty methods the JIT removes at every call site).
+ * Levels are bits, a backend only records the levels in its mask.
+ * Backends: TextTrace (buffered text, same text as printing every finding), BinaryTrace (compact records) and NONE.
+ * @author kobypascual
+ *
+ */
+public abstract class Trace
+{
+	////////////////////
+	// Levels
+	////////////////////
+
+	/**
+	 * Parser steps
+	 */
+	public static final int STEPS = 1;
+
+	/**
+	 * Scanner findings and lexical errors
+	 */
+	public static final int FINDINGS = 2;
+
+	/**
+	 * Symbol table additions
+	 */
+	public static final int SYMBOLS = 4;
+
+	/**
+	 * Every level
+	 */
+	public static final int ALL = STEPS | FINDINGS | SYMBOLS;
+
+	////////////////////
+	// Finding Kinds
+	////////////////////
+
+	public static final int COMMENT = 0;
+	public static final int KEYWORD = 1;
+	public static final int IDENTIFIER = 2;
+	public static final int CONSTANT = 3;
+	public static final int CHARACTER = 4;
+
+	/**
+	 * Backend that records nothing
+	 */
+	public static final Trace NONE = new Trace(0) {};
+
+	/**
+	 * Levels this backend records
+	 */
+	protected final int levels;
+
+	/**
+	 * Trace Constructor.
+	 * @param levels
+	 */
+	protected Trace(int levels)
+	{
+		this.levels = levels;
+	}
+
+	///////////////////////////
+	// Public - Accessors
+	///////////////////////////
+
+	/**
+	 * Returns true if this backend records the given level
+	 * @param level
+	 * @return
+	 */
+	public boolean enabled(int level)
+	{
+		return (levels & level) != 0;
+	}
+
+	///////////////////////////
+	// Public - Parser Events
+	///////////////////////////
+
+	/**
+	 * The start symbol is replaced by <lol>
+	 * @param step
+	 * @param stacktop
+	 */
+	public void start(int step, int stacktop) {}
+
+	/**
+	 * A non-terminal on the stack top is expanded (or popped by an epsilon rule)
+	 * @param step
+	 * @param stacktop
+	 * @param rule
+	 */
+	public void rule(int step, int stacktop, Rule rule) {}
+
+	/**
+	 * The terminal on the stack top matches the lookahead and is consumed
+	 * @param step
+	 * @param stacktop
+	 * @param code
+	 */
+	public void match(int step, int stacktop, int code) {}
+
+	/**
+	 * The parser accepts the program
+	 * @param step
+	 * @param stacktop
+	 */
+	public void accept(int step, int stacktop) {}
+
+	/**
+	 * No rule matches the stack top and the lookahead, the parser starts recovering
+	 * @param step
+	 * @param stacktop
+	 * @param line line of the lookahead
+	 * @param message the error as it is reported
+	 */
+	public void syntaxError(int step, int stacktop, int line, String message) {}
+
+	///////////////////////////
+	// Public - Scanner Events
+	///////////////////////////
+
+	/**
+	 * A token or comment is recognized between start (inclusive) and end (exclusive) of the source file
+	 * @param kind
+	 * @param line
+	 * @param start
+	 * @param end
+	 */
+	public void finding(int kind, int line, int start, int end) {}
+
+	/**
+	 * A lexical error is found while building a token of the given kind
+	 * @param kind
+	 * @param line
+	 */
+	public void lexicalError(int kind, int line) {}
+
+	/**
+	 * An invalid token between start (inclusive) and end (exclusive) is skipped
+	 * @param start
+	 * @param end
+	 */
+	public void skipped(int start, int end) {}
+
+	///////////////////////////
+	// Public - Symbol Table Events
+	///////////////////////////
+
+	/**
+	 * A symbol is added to the symbol table
+	 * @param id
+	 * @param name
+	 * @param type
+	 */
+	public void symbolAdded(int id, String name, String type) {}
+
+	///////////////////////////
+	// Public - Utilities
+	///////////////////////////
+
+	/**
+	 * Writes out everything that is buffered
+	 */
+	public void flush() {}
+
+	/**
+	 * Flushes and releases whatever the backend writes to
+	 */
+	public void close()
+	{
+		flush();
+	}
+}
@@ -0,0 +1,42 @@
+package Benchmarks;
+
+import java.io.IOException;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Main class of benchmarks.jar. Takes the usual JMH command line and always adds the GC profiler,
+ * so every result comes with its allocation rate (gc.alloc.rate and gc.alloc.rate.norm).
+ *   java -jar benchmarks/target/benchmarks.jar                       every benchmark, every program size
+ *   java -jar benchmarks/target/benchmarks.jar Scanner -p size=large one benchmark class on one size
+ * @author kobypascual
+ *
+ */
+public final class BenchmarkRunner
+{
+	private BenchmarkRunner()
+	{
+	}
+
+	public static void main(String[] args) throws CommandLineOptionException, RunnerException, IOException
+	{
+		CommandLineOptions commandLine = new CommandLineOptions(args);
+		if(commandLine.shouldHelp())
+		{
+			commandLine.showHelp();
+			return;
+		}
+
+		Options options = new OptionsBuilder()
+			.parent(commandLine)
+			.addProfiler(GCProfiler.class)
+			.build();
+		new Runner(options).run();
+	}
+}
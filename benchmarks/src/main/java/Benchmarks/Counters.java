@@ -0,0 +1,41 @@
+package Benchmarks;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Work done by a benchmark, reported next to its score as chars/s, tokens/s and PDA steps/s.
+ * Benchmarks that do not scan or parse leave a counter at 0.
+ * @author kobypascual
+ *
+ */
+@State(Scope.Thread)
+@AuxCounters(AuxCounters.Type.OPERATIONS)
+public class Counters
+{
+	/**
+	 * Characters of source read
+	 */
+	public long chars;
+
+	/**
+	 * Tokens scanned
+	 */
+	public long tokens;
+
+	/**
+	 * Steps taken by the PDA
+	 */
+	public long steps;
+
+	@Setup(Level.Iteration)
+	public void reset()
+	{
+		chars = 0;
+		tokens = 0;
+		steps = 0;
+	}
+}
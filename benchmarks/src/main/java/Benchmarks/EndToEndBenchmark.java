@@ -0,0 +1,93 @@
+package Benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import Driver.CompilationContext;
+import Driver.Compiler;
+import Utilities.SourceFile;
+
+/**
+ * Whole compilations of a program file on disk, from mapping the file to the end of the parse:
+ *   compile        Compiler.compile with the driver's print settings, the input, parser trace and symbol table
+ *                  are printed to a stream nobody reads
+ *   compileQuiet   the same phases with nothing traced or printed
+ * @author kobypascual
+ *
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EndToEndBenchmark
+{
+	/**
+	 * The program written out to a file
+	 */
+	@State(Scope.Benchmark)
+	public static class ProgramFile
+	{
+		public String fileName;
+
+		@Setup(Level.Trial)
+		public void write(ProgramState program) throws IOException
+		{
+			Path path = Files.createTempFile("benchmark-" + program.size, ".lol");
+			Files.write(path, program.source);
+			fileName = path.toString();
+		}
+
+		@TearDown(Level.Trial)
+		public void delete() throws IOException
+		{
+			Files.deleteIfExists(Path.of(fileName));
+		}
+	}
+
+	@Benchmark
+	public boolean compile(ProgramFile program, Counters counters) throws IOException
+	{
+		SourceFile file = SourceFile.map(program.fileName);
+		CompilationContext context = Compiler.compile(program.fileName, file, Programs.DISCARD);
+		return count(context, counters);
+	}
+
+	@Benchmark
+	public boolean compileQuiet(ProgramFile program, Counters counters) throws IOException
+	{
+		SourceFile file = SourceFile.map(program.fileName);
+		CompilationContext context = Programs.quietContext(file, false);
+		context.parser.parse();
+		return count(context, counters);
+	}
+
+	/**
+	 * Adds the work of a finished compilation to the counters
+	 * @param context
+	 * @param counters
+	 * @return true if the program was accepted
+	 */
+	private static boolean count(CompilationContext context, Counters counters)
+	{
+		counters.chars += context.file.length();
+		counters.tokens += context.scanner.getTokenCount();
+		counters.steps += context.parser.getSteps();
+		return context.parser.isAccepted();
+	}
+}
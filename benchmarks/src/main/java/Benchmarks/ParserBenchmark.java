@@ -0,0 +1,114 @@
+package Benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import Driver.CompilationContext;
+import Utilities.IntStack;
+import Utilities.Rule;
+import Utilities.Rules;
+import Utilities.Trace;
+
+/**
+ * Parser benchmarks:
+ *   parse        the PDA run over the whole program, with and without building the syntax tree.
+ *                The scanner only scans when the parser asks for the lookahead, so this includes scanning.
+ *   ruleLookup   the parse table alone, every (stacktop, lookahead) pair the PDA looked up replayed through Rules.getRule
+ * @author kobypascual
+ *
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParserBenchmark
+{
+	/**
+	 * Whether the parser builds a syntax tree
+	 */
+	@State(Scope.Benchmark)
+	public static class Tree
+	{
+		@Param({"false", "true"})
+		public boolean buildTree;
+	}
+
+	/**
+	 * The rule lookups of one parse of the program, in the order the PDA made them
+	 */
+	@State(Scope.Benchmark)
+	public static class Lookups
+	{
+		public int[] stacktops;
+		public int[] lookaheads;
+
+		@Setup(Level.Trial)
+		public void record(ProgramState program)
+		{
+			IntStack tops = new IntStack(1024);
+			IntStack aheads = new IntStack(1024);
+			CompilationContext context = Programs.quietContext(program.file, false);
+
+			// Every step is either a rule or a match, the lookahead is already scanned when it is traced
+			context.trace = new Trace(Trace.STEPS)
+			{
+				@Override
+				public void rule(int step, int stacktop, Rule rule)
+				{
+					tops.push(stacktop);
+					aheads.push(context.scanner.getLookAhead());
+				}
+
+				@Override
+				public void match(int step, int stacktop, int code)
+				{
+					tops.push(stacktop);
+					aheads.push(context.scanner.getLookAhead());
+				}
+			};
+			context.parser.parse();
+
+			stacktops = tops.toArray();
+			lookaheads = aheads.toArray();
+		}
+	}
+
+	@Benchmark
+	public boolean parse(ProgramState program, Tree tree, Counters counters)
+	{
+		CompilationContext context = Programs.quietContext(program.file, tree.buildTree);
+		context.parser.parse();
+
+		counters.chars += program.file.length();
+		counters.tokens += context.scanner.getTokenCount();
+		counters.steps += context.parser.getSteps();
+		return context.parser.isAccepted();
+	}
+
+	@Benchmark
+	public int ruleLookup(Lookups lookups, Counters counters)
+	{
+		int[] stacktops = lookups.stacktops;
+		int[] lookaheads = lookups.lookaheads;
+
+		int states = 0;
+		for(int i = 0; i < stacktops.length; i++)
+			states += Rules.getRule(stacktops[i], lookaheads[i]).final_state;
+
+		counters.steps += stacktops.length;
+		return states;
+	}
+}
@@ -0,0 +1,44 @@
+package Benchmarks;
+
+import java.io.IOException;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import Parser.Parser;
+import Utilities.SourceFile;
+
+/**
+ * The program a benchmark runs on, one trial per size
+ * @author kobypascual
+ *
+ */
+@State(Scope.Benchmark)
+public class ProgramState
+{
+	@Param({Programs.SMALL, Programs.MEDIUM, Programs.LARGE})
+	public String size;
+
+	/**
+	 * Source of the program
+	 */
+	public byte[] source;
+
+	/**
+	 * Source of the program as the scanner reads it
+	 */
+	public SourceFile file;
+
+	@Setup(Level.Trial)
+	public void load() throws IOException
+	{
+		source = Programs.source(size);
+		file = SourceFile.wrap(source);
+
+		// The grammar tables are built once per JVM, not inside the first measured call
+		Parser.setGrammar();
+	}
+}
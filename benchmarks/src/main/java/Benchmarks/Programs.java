@@ -0,0 +1,84 @@
+package Benchmarks;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+
+import Driver.CompilationContext;
+import Utilities.ProgramGenerator;
+import Utilities.SourceFile;
+import Utilities.Trace;
+
+/**
+ * LOL programs the benchmarks run on, and quiet compilation contexts to run them in.
+ * Small is input.txt, medium and large are made by the ProgramGenerator with a fixed seed,
+ * so every run measures the same programs.
+ * @author kobypascual
+ *
+ */
+final class Programs
+{
+	/**
+	 * Output nobody reads
+	 */
+	static final PrintStream DISCARD = new PrintStream(OutputStream.nullOutputStream());
+
+	/**
+	 * Sizes of the programs, the @Param values of the benchmarks
+	 */
+	static final String SMALL = "small";
+	static final String MEDIUM = "medium";
+	static final String LARGE = "large";
+
+	private Programs()
+	{
+	}
+
+	/**
+	 * Returns the source of the program of the given size
+	 * @param size
+	 * @return
+	 * @throws IOException
+	 */
+	static byte[] source(String size) throws IOException
+	{
+		switch(size)
+		{
+			case SMALL: return sample();
+			case MEDIUM: return new ProgramGenerator(8, 1000, 1).generate(100000);
+			case LARGE: return new ProgramGenerator(8, 100000, 1).generate(10000000);
+			default: throw new IllegalArgumentException("unknown program size " + size);
+		}
+	}
+
+	/**
+	 * Returns input.txt
+	 * @return
+	 * @throws IOException
+	 */
+	private static byte[] sample() throws IOException
+	{
+		try(InputStream in = Programs.class.getResourceAsStream("/input.txt"))
+		{
+			if(in == null) throw new IOException("input.txt is not on the class path");
+			return in.readAllBytes();
+		}
+	}
+
+	/**
+	 * Returns a context that traces and prints nothing
+	 * @param file
+	 * @param buildTree
+	 * @return
+	 */
+	static CompilationContext quietContext(SourceFile file, boolean buildTree)
+	{
+		CompilationContext context = new CompilationContext("benchmark", file, DISCARD);
+		context.trace = Trace.NONE;
+		context.printInput = false;
+		context.printSymtab = false;
+		context.buildTree = buildTree;
+		return context;
+	}
+}
@@ -0,0 +1,43 @@
+package Benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import Driver.CompilationContext;
+import Scanner.Scanner;
+
+/**
+ * Scanner on its own: every token of the program is pulled through getLookAhead and poll,
+ * the way the parser pulls them, with identifiers and constants interned into the symbol table.
+ * @author kobypascual
+ *
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ScannerBenchmark
+{
+	@Benchmark
+	public int scan(ProgramState program, Counters counters)
+	{
+		CompilationContext context = Programs.quietContext(program.file, false);
+		Scanner scanner = context.scanner;
+		scanner.open(program.file);
+
+		int kinds = 0;
+		for(int kind; (kind = scanner.getLookAhead()) != -1; scanner.poll()) kinds += kind;
+
+		counters.chars += program.file.length();
+		counters.tokens += scanner.getTokenCount();
+		return kinds;
+	}
+}
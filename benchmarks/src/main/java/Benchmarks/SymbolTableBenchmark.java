@@ -0,0 +1,127 @@
+package Benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import Driver.CompilationContext;
+import Scanner.TokenBuffer;
+import Utilities.SymbolTable;
+
+/**
+ * Symbol table benchmarks over every identifier and constant of the program, in the order the scanner finds them:
+ *   intern          names hashed straight from the source into an empty table, the table grows as it fills up
+ *   checkIfExists   names looked up as Strings in a table that already holds them
+ * @author kobypascual
+ *
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SymbolTableBenchmark
+{
+	/**
+	 * Identifiers and constants of the program
+	 */
+	@State(Scope.Benchmark)
+	public static class Names
+	{
+		public int[] starts;
+		public int[] lengths;
+		public String[] names;
+		public String[] types;
+
+		/**
+		 * Context the tables are made for, it traces nothing
+		 */
+		public CompilationContext context;
+
+		/**
+		 * Table that holds every name
+		 */
+		public SymbolTable filled;
+
+		@Setup(Level.Trial)
+		public void collect(ProgramState program)
+		{
+			// Scan once keeping every token, then read the names back out of the token buffer
+			context = Programs.quietContext(program.file, true);
+			context.scanner.open(program.file);
+			while(context.scanner.getLookAhead() != -1) context.scanner.poll();
+
+			TokenBuffer tokens = context.scanner.getTokens();
+			int count = 0;
+			for(int i = 0; i < tokens.size(); i++)
+				if(tokens.symbol(i) >= 0) count++;
+
+			starts = new int[count];
+			lengths = new int[count];
+			names = new String[count];
+			types = new String[count];
+			for(int i = 0, n = 0; i < tokens.size(); i++)
+			{
+				int symbol = tokens.symbol(i);
+				if(symbol < 0) continue;
+				starts[n] = tokens.start(i);
+				lengths[n] = tokens.length(i);
+				names[n] = context.symbolTable.get(symbol).getName();
+				types[n] = context.symbolTable.get(symbol).getType();
+				n++;
+			}
+			filled = context.symbolTable;
+		}
+	}
+
+	/**
+	 * Names looked up, reported as lookups/s
+	 */
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.OPERATIONS)
+	public static class Lookups
+	{
+		public long lookups;
+
+		@Setup(Level.Iteration)
+		public void reset()
+		{
+			lookups = 0;
+		}
+	}
+
+	@Benchmark
+	public int intern(ProgramState program, Names names, Lookups lookups)
+	{
+		SymbolTable table = new SymbolTable(names.context);
+		int ids = 0;
+		for(int i = 0; i < names.starts.length; i++)
+			ids += table.intern(program.file, names.starts[i], names.lengths[i], names.types[i]);
+
+		lookups.lookups += names.starts.length;
+		return ids;
+	}
+
+	@Benchmark
+	public int checkIfExists(Names names, Lookups lookups)
+	{
+		SymbolTable table = names.filled;
+		int found = 0;
+		for(int i = 0; i < names.names.length; i++)
+			if(table.checkIfExists(names.names[i], names.types[i])) found++;
+
+		lookups.lookups += names.names.length;
+		return found;
+	}
+}
@@ -0,0 +1,132 @@
+package Driver;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.lang.reflect.InvocationTargetException;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import Backend.BytecodeGenerator;
+import Backend.LolRuntime;
+import Backend.ProgramLoader;
+import Interpreter.ExecutionError;
+import Interpreter.Interpreter;
+import VM.RegisterCompiler;
+import VM.RegisterMachine;
+
+/**
+ * Runs each test program with the Interpreter, on the RegisterMachine and as a JVM class,
+ * and checks that all three print the same output and stop with the same runtime error.
+ * Every run parses the program again and optimizes it as the driver does, so no backend sees a tree another one used.
+ * @author kobypascual
+ *
+ */
+class BackendAgreementTest
+{
+	@ParameterizedTest
+	@ValueSource(strings = { "numbers", "functions", "recursion", "troof", "input", "order", "loops" })
+	void backendsAgree(String name)
+	{
+		String interpreted = interpret(name);
+		assertEquals(interpreted, registers(name), "--vm");
+		assertEquals(interpreted, jvm(name), "--jvm");
+	}
+
+	///////////////////////////
+	// Private - Backends
+	///////////////////////////
+
+	/**
+	 * Runs a program with the Interpreter
+	 * @param name
+	 * @return what it printed followed by the error it stopped with, if any
+	 */
+	private static String interpret(String name)
+	{
+		CompilationContext context = Programs.compile(name);
+		Run run = new Run(name);
+		try
+		{
+			new Interpreter(context.parser.getTree(), context.symbolTable, run.in, run.out).run();
+		}
+		catch (ExecutionError e)
+		{
+			return run.output(e.getMessage());
+		}
+		return run.output(null);
+	}
+
+	/**
+	 * Runs a program on the RegisterMachine
+	 * @param name
+	 * @return what it printed followed by the error it stopped with, if any
+	 */
+	private static String registers(String name)
+	{
+		CompilationContext context = Programs.compile(name);
+		Run run = new Run(name);
+		try
+		{
+			new RegisterMachine(new RegisterCompiler(context.parser.getTree(), context.symbolTable).compile(), run.in, run.out).run();
+		}
+		catch (ExecutionError e)
+		{
+			return run.output(e.getMessage());
+		}
+		return run.output(null);
+	}
+
+	/**
+	 * Compiles a program to a JVM class and runs its main method
+	 * @param name
+	 * @return what it printed followed by the error it stopped with, if any
+	 */
+	private static String jvm(String name)
+	{
+		CompilationContext context = Programs.compile(name);
+		Run run = new Run(name);
+		byte[] bytes = new BytecodeGenerator(name, context.parser.getTree(), context.symbolTable).generate();
+		LolRuntime.setStreams(run.in, run.out);
+		try
+		{
+			new ProgramLoader().define(name, bytes).getMethod("main", String[].class).invoke(null, (Object) new String[0]);
+		}
+		catch (InvocationTargetException e)
+		{
+			if(e.getCause() instanceof ExecutionError) return run.output(e.getCause().getMessage());
+			throw new AssertionError(name + ": " + e.getCause(), e.getCause());
+		}
+		catch (ReflectiveOperationException e)
+		{
+			throw new AssertionError(name + ": " + e, e);
+		}
+		return run.output(null);
+	}
+
+	/**
+	 * Input and output of one run: the program reads its .in file, or nothing if it has none
+	 */
+	private static final class Run
+	{
+		final BufferedReader in;
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		final PrintStream out = new PrintStream(bytes, false, StandardCharsets.UTF_8);
+
+		Run(String name)
+		{
+			in = Programs.input(name);
+		}
+
+		String output(String error)
+		{
+			out.flush();
+			String text = bytes.toString(StandardCharsets.UTF_8);
+			return error == null ? text : text + error + "\n";
+		}
+	}
+}
@@ -0,0 +1,93 @@
+package Driver;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+import Optimizer.ConstantFolder;
+import Optimizer.DeadCodeEliminator;
+import Utilities.SourceFile;
+import Utilities.Trace;
+
+/**
+ * Loads the test programs and parses them the way the driver does when it runs a file:
+ * quietly, with a syntax tree and without tracing, then optimized.
+ * @author kobypascual
+ *
+ */
+public final class Programs
+{
+	private Programs()
+	{
+	}
+
+	/**
+	 * Reads a resource of the tests
+	 * @param name of the resource, /input.txt or programs/...
+	 * @return its bytes, null if there is no such resource
+	 */
+	public static byte[] resource(String name)
+	{
+		String path = name.startsWith("/") ? name : "/" + name;
+		try (InputStream in = Programs.class.getResourceAsStream(path))
+		{
+			return in == null ? null : in.readAllBytes();
+		}
+		catch (IOException e)
+		{
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Parses a resource
+	 * @param name of the resource
+	 * @param buildTree if the parser builds a syntax tree
+	 * @return the context of the compilation
+	 */
+	public static CompilationContext parse(String name, boolean buildTree)
+	{
+		byte[] bytes = resource(name);
+		if(bytes == null) throw new IllegalArgumentException("no test program " + name);
+
+		CompilationContext context = new CompilationContext(name, SourceFile.wrap(bytes), new PrintStream(OutputStream.nullOutputStream()));
+		context.trace = Trace.NONE;
+		context.printInput = false;
+		context.printSymtab = false;
+		context.buildTree = buildTree;
+		context.parser.parse();
+		return context;
+	}
+
+	/**
+	 * Parses one of the test programs and optimizes its syntax tree, ready for a backend
+	 * @param name of the program, without programs/ and .lol
+	 * @return the context of the compilation
+	 * @throws IllegalStateException if the program is not accepted
+	 */
+	public static CompilationContext compile(String name)
+	{
+		CompilationContext context = parse("programs/" + name + ".lol", true);
+		if(!context.parser.isAccepted()) throw new IllegalStateException(name + ": " + context.parser.getErrors());
+
+		new ConstantFolder(context.parser.getTree(), context.symbolTable).run();
+		new DeadCodeEliminator(context.parser.getTree(), context.symbolTable).run();
+		return context;
+	}
+
+	/**
+	 * Returns the input of one of the test programs, its .in file or nothing if it has none
+	 * @param name of the program, without programs/ and .lol
+	 * @return
+	 */
+	public static BufferedReader input(String name)
+	{
+		byte[] input = resource("programs/" + name + ".in");
+		return new BufferedReader(new StringReader(input == null ? "" : new String(input, StandardCharsets.UTF_8)));
+	}
+}
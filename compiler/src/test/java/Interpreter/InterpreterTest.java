@@ -0,0 +1,101 @@
+package Interpreter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+
+import Driver.CompilationContext;
+import Driver.Programs;
+
+/**
+ * Runs the test programs with the Interpreter and checks what they print and the runtime error they stop with.
+ * @author kobypascual
+ *
+ */
+class InterpreterTest
+{
+	@Test
+	void arithmeticAndTypes()
+	{
+		assertEquals(lines("7", "2.5", "-2147483648", "3", "WIN", "12", "13", "3", "FAIL", "3", "1.5",
+				"Line#: 31 - Runtime Error: z has no value"), run("numbers"));
+	}
+
+	@Test
+	void troofs()
+	{
+		assertEquals(lines("WIN", "WIN", "2", "1", "1", "2", "1"), run("troof"));
+	}
+
+	@Test
+	void loops()
+	{
+		assertEquals(lines("3", "0.0", "4", "1.0", "5", "2.0", "3.0", "4.0", "6.0", "10.0", "FAIL"), run("loops"));
+	}
+
+	@Test
+	void functionsStopAtADivisionByZero()
+	{
+		assertEquals(lines("1", "1", "WIN", "WIN", "1", "2.5", "1", "WIN", "WIN", "2.5", "1", "1", "0.0", "1", "WIN", "WIN",
+				"Line#: 24 - Runtime Error: division by zero"), run("functions"));
+	}
+
+	@Test
+	void recursion()
+	{
+		assertEquals(lines("3", "2", "1", "0", "0", "1", "0", "0", "3"), run("recursion"));
+	}
+
+	@Test
+	void readsInputAndRejectsAValueOfTheWrongType()
+	{
+		assertEquals(lines("5.5", "WIN", "4.0", "Line#: 11 - Runtime Error: \"1.5\" is not a value for e"), run("input"));
+	}
+
+	@Test
+	void aVariableHasNoValueBeforeItIsAssigned()
+	{
+		assertEquals(lines("1", "Line#: 3 - Runtime Error: va has no value"), run("order"));
+	}
+
+	///////////////////////////
+	// Private - Utilities
+	///////////////////////////
+
+	/**
+	 * Runs a test program with the Interpreter
+	 * @param name
+	 * @return what it printed followed by the error it stopped with, if any
+	 */
+	private static String run(String name)
+	{
+		CompilationContext context = Programs.compile(name);
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		PrintStream out = new PrintStream(bytes, false, StandardCharsets.UTF_8);
+		String error = "";
+		try
+		{
+			new Interpreter(context.parser.getTree(), context.symbolTable, Programs.input(name), out).run();
+		}
+		catch (ExecutionError e)
+		{
+			error = e.getMessage() + "\n";
+		}
+		out.flush();
+		return bytes.toString(StandardCharsets.UTF_8) + error;
+	}
+
+	/**
+	 * Joins lines as the program prints them
+	 * @param lines
+	 * @return
+	 */
+	private static String lines(String... lines)
+	{
+		return String.join("\n", lines) + "\n";
+	}
+}
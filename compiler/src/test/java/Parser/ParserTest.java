@@ -0,0 +1,54 @@
+package Parser;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import Driver.CompilationContext;
+import Driver.Programs;
+
+/**
+ * Parses the sample program and a program full of mistakes, and checks what the parser reports for each.
+ * @author kobypascual
+ *
+ */
+class ParserTest
+{
+	@Test
+	void acceptsTheSampleProgram()
+	{
+		Parser parser = Programs.parse("/input.txt", true).parser;
+		assertEquals(List.of(), parser.getErrors());
+		assertTrue(parser.isAccepted());
+		assertNotNull(parser.getTree());
+	}
+
+	@Test
+	void reportsEverySyntaxErrorAndRejects()
+	{
+		Parser parser = Programs.parse("programs/syntax-errors.lol", false).parser;
+		assertFalse(parser.isAccepted());
+		assertEquals(List.of(
+				"Line#: 3 - Syntax Error: expected <expr>, found ';'",
+				"Line#: 4 - Syntax Error: expected <expr>, found 'R'",
+				"Line#: 5 - Syntax Error: expected ;, found '6'",
+				"Line#: 10 - Syntax Error: expected <arith>, found 'GIMMEH'",
+				"Line#: 12 - Syntax Error: expected [id], found '3'",
+				"Line#: 13 - Syntax Error: expected <body>, found '5'"),
+				parser.getErrors());
+	}
+
+	@Test
+	void buildsATreeOnlyWhenAsked()
+	{
+		CompilationContext context = Programs.parse("/input.txt", false);
+		assertTrue(context.parser.isAccepted());
+		assertNull(context.parser.getTree());
+	}
+}
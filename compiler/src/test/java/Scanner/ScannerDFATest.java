@@ -0,0 +1,185 @@
+package Scanner;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import Driver.CompilationContext;
+import Utilities.SourceFile;
+import Utilities.TextTrace;
+import Utilities.Trace;
+
+/**
+ * Runs the ScannerDFA over single tokens and checks the state it ends in,
+ * then scans whole programs with the Scanner and checks the tokens it returns.
+ * @author kobypascual
+ *
+ */
+class ScannerDFATest
+{
+	////////////////////
+	// DFA
+	////////////////////
+
+	@Test
+	void keywordsAcceptWithTheirCodes()
+	{
+		assertToken("HAI", ScannerDFA.KEYWORD, 3);
+		assertToken("I HAS A", ScannerDFA.KEYWORD, 7);
+		assertToken("O RLY?", ScannerDFA.KEYWORD, 18);
+		assertToken("DIFFRINT", ScannerDFA.KEYWORD, 40);
+	}
+
+	@Test
+	void partOfAKeywordNeedsMoreCharacters()
+	{
+		assertEquals(0, ScannerDFA.status(run("SUM")));
+		assertEquals(0, ScannerDFA.status(run("IM IN ")));
+		assertEquals(-1, ScannerDFA.code(run("SUM")));
+	}
+
+	@Test
+	void misspelledKeywordIsAnError()
+	{
+		int state = run("HAX");
+		assertEquals(-1, ScannerDFA.status(state));
+		assertEquals(ScannerDFA.KEYWORD, ScannerDFA.group(state));
+	}
+
+	@Test
+	void commentAcceptsWithoutACode()
+	{
+		assertEquals(2, ScannerDFA.status(run("BTW")));
+		assertEquals(-1, ScannerDFA.code(run("BTW")));
+	}
+
+	@Test
+	void identifiers()
+	{
+		assertToken("x", ScannerDFA.IDENTIFIER, 1);
+		assertToken("a_1b", ScannerDFA.IDENTIFIER, 1);
+		assertEquals(-1, ScannerDFA.status(run("aB")));
+	}
+
+	@Test
+	void constants()
+	{
+		assertToken("12", ScannerDFA.CONSTANT, 2);
+		assertToken("12.5", ScannerDFA.CONSTANT, 2);
+		assertToken(".5", ScannerDFA.CONSTANT, 2);
+		assertEquals(0, ScannerDFA.status(run(".")));
+		assertEquals(-1, ScannerDFA.status(run("1.2.3")));
+		assertEquals(-1, ScannerDFA.status(run("12a")));
+	}
+
+	@Test
+	void symbolsAndWhiteSpace()
+	{
+		assertToken(";", ScannerDFA.SSYMBOL, 41);
+		assertEquals(ScannerDFA.WHITESPACE, ScannerDFA.group(run(" \t")));
+		assertEquals(1, ScannerDFA.status(run(" \t")));
+		assertEquals(-2, ScannerDFA.status(run("#")));
+	}
+
+	////////////////////
+	// Scanner
+	////////////////////
+
+	@Test
+	void scannerSplitsStatementsIntoTokens()
+	{
+		assertEquals(List.of("HAI", "x", "R", "SUM OF", "1", "AN", "2.5", ";", "VISIBLE", "x", ";", "KTHXBYE"),
+				scan("HAI\nx R SUM OF 1 AN 2.5;\n\tVISIBLE x;\nKTHXBYE\n"));
+	}
+
+	@Test
+	void scannerSkipsComments()
+	{
+		assertEquals(List.of("HAI", "GIMMEH", "y", ";", "KTHXBYE"), scan("HAI\nBTW nothing to see here\nGIMMEH y;\nKTHXBYE\n"));
+	}
+
+	@Test
+	void scannerReportsACharacterThatCanNotStartATokenAndGoesOn()
+	{
+		ByteArrayOutputStream findings = new ByteArrayOutputStream();
+		List<String> tokens = scan("HAI\nC x;\nI HAS A y ITZ A NUMBR;\n#!\u00e9 KTHXBYE\n", new PrintStream(findings, true, StandardCharsets.UTF_8));
+
+		assertEquals(List.of("HAI", "x", ";", "I HAS A", "y", "ITZ A", "NUMBR", ";", "KTHXBYE"), tokens);
+		String text = findings.toString(StandardCharsets.UTF_8);
+		assertTrue(text.contains("Line#: 2 - Lexical Error: Invalid Character - C\n"), text);
+		assertTrue(text.contains("Line#: 4 - Lexical Error: Invalid Character - #!"), text);
+	}
+
+	///////////////////////////
+	// Private - Utilities
+	///////////////////////////
+
+	/**
+	 * Runs the DFA from its start state over some text
+	 * @param text
+	 * @return the state it ends in
+	 */
+	private static int run(String text)
+	{
+		int state = ScannerDFA.START;
+		for(int i = 0; i < text.length(); i++) state = ScannerDFA.next(state, text.charAt(i));
+		return state;
+	}
+
+	/**
+	 * Checks that the DFA accepts a whole token with the given group and code
+	 * @param text
+	 * @param group
+	 * @param code
+	 */
+	private static void assertToken(String text, int group, int code)
+	{
+		int state = run(text);
+		assertEquals(1, ScannerDFA.status(state), text);
+		assertEquals(group, ScannerDFA.group(state), text);
+		assertEquals(code, ScannerDFA.code(state), text);
+	}
+
+	/**
+	 * Scans a program and returns the text of every token
+	 * @param source
+	 * @return
+	 */
+	private static List<String> scan(String source)
+	{
+		return scan(source, null);
+	}
+
+	/**
+	 * Scans a program and returns the text of every token
+	 * @param source
+	 * @param findings where the scanner findings are traced, null to trace nothing
+	 * @return
+	 */
+	private static List<String> scan(String source, PrintStream findings)
+	{
+		SourceFile file = SourceFile.wrap(source.getBytes(StandardCharsets.UTF_8));
+		CompilationContext context = new CompilationContext("test", file, findings == null ? new PrintStream(OutputStream.nullOutputStream()) : findings);
+		context.trace = findings == null ? Trace.NONE : new TextTrace(context, Trace.FINDINGS);
+		context.printInput = false;
+
+		Scanner scanner = context.scanner;
+		scanner.open(file);
+		List<String> tokens = new ArrayList<String>();
+		for(String token = scanner.peek(); token != null; token = scanner.peek())
+		{
+			tokens.add(token);
+			scanner.poll();
+		}
+		context.trace.flush();
+		return tokens;
+	}
+}
@@ -0,0 +1,200 @@
+package VM;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+import Driver.CompilationContext;
+import Driver.Programs;
+import Interpreter.ExecutionError;
+
+/**
+ * Writes compiled programs to the .lolv file format and reads them back,
+ * and checks that damaged files are turned away with an IOException instead of loading.
+ * @author kobypascual
+ *
+ */
+class RegisterProgramTest
+{
+	/**
+	 * Offsets of the header fields: magic, version, registers and the number of names
+	 */
+	private static final int VERSION_AT = 4;
+	private static final int REGISTERS_AT = 6;
+	private static final int NAMES_AT = 10;
+
+	////////////////////
+	// Round Trip
+	////////////////////
+
+	@Test
+	void readsBackWhatItWrote() throws IOException
+	{
+		for(String name : new String[] { "functions", "recursion", "loops" })
+		{
+			RegisterProgram program = compile(name);
+			byte[] bytes = write(program);
+			RegisterProgram read = RegisterProgram.read(new ByteArrayInputStream(bytes));
+
+			assertEquals(program.size(), read.size(), name);
+			assertEquals(program.registers(), read.registers(), name);
+			assertEquals(listing(program), listing(read), name);
+			assertEquals(run(program), run(read), name);
+			assertArrayEquals(bytes, write(read), name);
+		}
+	}
+
+	////////////////////
+	// Damaged Files
+	////////////////////
+
+	@Test
+	void rejectsAFileThatIsNotAProgram()
+	{
+		byte[] bytes = program();
+		bytes[0] = 'X';
+		assertRejected(bytes, "not a compiled Mini-LOL program");
+	}
+
+	@Test
+	void rejectsAnotherVersion()
+	{
+		byte[] bytes = program();
+		ByteBuffer.wrap(bytes).putShort(VERSION_AT, (short) 1);
+		assertRejected(bytes, "program has version 1");
+	}
+
+	@Test
+	void rejectsACutOffFile()
+	{
+		byte[] bytes = program();
+		assertRejected(Arrays.copyOf(bytes, 2), "program file is cut off");
+		for(int length = VERSION_AT; length < bytes.length; length += 7)
+		{
+			byte[] cut = Arrays.copyOf(bytes, length);
+			assertThrows(IOException.class, () -> RegisterProgram.read(new ByteArrayInputStream(cut)), "cut at " + length);
+		}
+	}
+
+	@Test
+	void rejectsALengthPastTheEnd()
+	{
+		byte[] bytes = program();
+		ByteBuffer.wrap(bytes).putInt(NAMES_AT, Integer.MAX_VALUE);
+		assertRejected(bytes, "runs past the end of the program file");
+
+		ByteBuffer.wrap(bytes).putInt(NAMES_AT, -1);
+		assertThrows(IOException.class, () -> RegisterProgram.read(new ByteArrayInputStream(bytes)));
+	}
+
+	@Test
+	void rejectsMoreRegistersThanItCouldUse()
+	{
+		byte[] bytes = program();
+		ByteBuffer.wrap(bytes).putInt(REGISTERS_AT, Integer.MAX_VALUE);
+		assertRejected(bytes, "program does not verify");
+	}
+
+	///////////////////////////
+	// Private - Utilities
+	///////////////////////////
+
+	/**
+	 * Compiles a test program for the RegisterMachine
+	 * @param name
+	 * @return
+	 */
+	private static RegisterProgram compile(String name)
+	{
+		CompilationContext context = Programs.compile(name);
+		return new RegisterCompiler(context.parser.getTree(), context.symbolTable).compile();
+	}
+
+	/**
+	 * Returns a program file to damage
+	 * @return
+	 */
+	private static byte[] program()
+	{
+		try
+		{
+			return write(compile("functions"));
+		}
+		catch (IOException e)
+		{
+			throw new AssertionError(e);
+		}
+	}
+
+	/**
+	 * Writes a program in the file format
+	 * @param program
+	 * @return
+	 * @throws IOException
+	 */
+	private static byte[] write(RegisterProgram program) throws IOException
+	{
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		program.write(bytes);
+		return bytes.toByteArray();
+	}
+
+	/**
+	 * Returns the printed instructions of a program
+	 * @param program
+	 * @return
+	 */
+	private static String listing(RegisterProgram program)
+	{
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		PrintStream out = new PrintStream(bytes, true, StandardCharsets.UTF_8);
+		program.print(out);
+		return bytes.toString(StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Runs a program with no input
+	 * @param program
+	 * @return what it printed followed by the error it stopped with, if any
+	 */
+	private static String run(RegisterProgram program)
+	{
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		PrintStream out = new PrintStream(bytes, false, StandardCharsets.UTF_8);
+		String error = "";
+		try
+		{
+			new RegisterMachine(program, new BufferedReader(new StringReader("")), out).run();
+		}
+		catch (ExecutionError e)
+		{
+			error = e.getMessage();
+		}
+		out.flush();
+		return bytes.toString(StandardCharsets.UTF_8) + error;
+	}
+
+	/**
+	 * Checks that reading a file fails with a message that contains the given text
+	 * @param bytes
+	 * @param message
+	 */
+	private static void assertRejected(byte[] bytes, String message)
+	{
+		IOException e = assertThrows(IOException.class, () -> RegisterProgram.read(new ByteArrayInputStream(bytes)));
+		assertTrue(e.getMessage().contains(message), e.getMessage());
+	}
+}